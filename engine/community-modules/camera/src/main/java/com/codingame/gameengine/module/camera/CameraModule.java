@@ -58,6 +58,10 @@ public class CameraModule implements Module {
 
 
     private void sendFrameData() {
+        if (gameManager.isHeadless()) {
+            newRegistration.clear();
+            return;
+        }
         Object[] data = {null, null, null, null};
         Object[] empty = {null, null, null, null};
         if (!newRegistration.isEmpty()) {
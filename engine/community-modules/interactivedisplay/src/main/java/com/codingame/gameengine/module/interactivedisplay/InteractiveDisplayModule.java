@@ -51,7 +51,9 @@ public class InteractiveDisplayModule implements Module {
     }
 
     private void sendFrameData() {
-        if (!newRegistration.isEmpty()) {
+        if (gameManager.isHeadless()) {
+            newRegistration.clear();
+        } else if (!newRegistration.isEmpty()) {
             Object data = new HashMap[]{new HashMap<>(newRegistration)};
             newRegistration.clear();
             gameManager.setViewData("intDisplay", data);
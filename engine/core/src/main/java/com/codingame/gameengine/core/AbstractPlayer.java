@@ -163,6 +163,13 @@ abstract public class AbstractPlayer {
      */
     public final void execute() {
         gameManagerProvider.get().execute(this);
+        afterExecution();
+    }
+
+    /**
+     * Updates the time bank and time limit counters once the player has been executed.
+     */
+    final void afterExecution() {
         this.hasBeenExecuted = true;
         this.hasNeverBeenExecuted = false;
         if (this.useTimebank) {
@@ -12,8 +12,15 @@ import com.google.inject.util.Types;
 
 class GameEngineModule extends AbstractModule {
 
+    private final GameSettings settings;
+
+    GameEngineModule(GameSettings settings) {
+        this.settings = settings;
+    }
+
     @Override
     protected void configure() {
+        bind(GameSettings.class).toInstance(settings);
     }
 
     @SuppressWarnings("unchecked")
@@ -90,10 +97,10 @@ class GameEngineModule extends AbstractModule {
     }
 
     private boolean isMulti() {
-        return "multi".equals(System.getProperty("game.mode"));
+        return "multi".equals(settings.get(GameSettings.GAME_MODE));
     }
 
     private boolean isSolo() {
-        return "solo".equals(System.getProperty("game.mode"));
+        return "solo".equals(settings.get(GameSettings.GAME_MODE));
     }
 }
\ No newline at end of file
@@ -6,14 +6,18 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -29,10 +33,12 @@ abstract public class GameManager<T extends AbstractPlayer> {
     @Inject private Provider<T> playerProvider;
     @Inject private Provider<AbstractReferee> refereeProvider;
     @Inject private Gson gson;
+    @Inject private GameSettings settings;
     protected static Log log = LogFactory.getLog(GameManager.class);
 
     private static final int VIEW_DATA_TOTAL_SOFT_QUOTA = 512 * 1024;
     private static final int VIEW_DATA_TOTAL_HARD_QUOTA = 1024 * 1024;
+    private static final String VIEW_SNAPSHOTS_KEY = "snapshots";
     private static final int GAME_SUMMARY_TOTAL_HARD_QUOTA = 512 * 1024;
     private static final int GAME_SUMMARY_PER_TURN_HARD_QUOTA = 800;
     private static final int GAME_DURATION_HARD_QUOTA = 30_000;
@@ -48,8 +54,7 @@ abstract public class GameManager<T extends AbstractPlayer> {
     private Integer turn = null;
     private int frame = 0;
     private boolean gameEnd = false;
-    private Scanner s;
-    protected PrintStream out;
+    RefereeChannel channel;
     private AbstractReferee referee;
     private boolean newTurn;
 
@@ -60,6 +65,9 @@ abstract public class GameManager<T extends AbstractPlayer> {
     private List<String> prevGameSummary;
 
     private JsonObject currentViewData, prevViewData;
+    // The view data still being computed by the modules, by module name
+    private Map<String, Future<?>> currentDeferredViewData = new LinkedHashMap<>(), prevDeferredViewData = new LinkedHashMap<>();
+    private Map<String, Future<?>> currentDeferredSnapshots = new LinkedHashMap<>(), prevDeferredSnapshots = new LinkedHashMap<>();
 
     private int frameDuration = 1000;
 
@@ -70,6 +78,7 @@ abstract public class GameManager<T extends AbstractPlayer> {
     private Map<String, String> metadata = new HashMap<>();
 
     private boolean initDone = false;
+    private Boolean headless;
     private boolean outputsRead = false;
     private int totalViewDataBytesSent = 0;
     private int totalGameSummaryBytes = 0;
@@ -89,16 +98,24 @@ abstract public class GameManager<T extends AbstractPlayer> {
      *            print stream used to issue commands to Game
      */
     void start(InputStream is, PrintStream out) {
-        s = new Scanner(is);
+        start(new TextRefereeChannel(is, out));
+    }
+
+    /**
+     * GameManager main loop.
+     * 
+     * @param channel
+     *            the connection used to exchange commands with Game
+     */
+    void start(RefereeChannel channel) {
+        this.channel = channel;
         try {
-            this.out = out;
             this.referee = refereeProvider.get();
 
             // Init ---------------------------------------------------------------
             log.info("Init");
-            InputCommand iCmd = InputCommand.parse(s.nextLine());
-            int playerCount = s.nextInt();
-            s.nextLine();
+            InputCommand iCmd = channel.readCommand();
+            int playerCount = Integer.parseInt(channel.readLine().trim());
             players = new ArrayList<T>(playerCount);
 
             for (int i = 0; i < playerCount; i++) {
@@ -107,7 +124,7 @@ abstract public class GameManager<T extends AbstractPlayer> {
                 players.add(player);
             }
 
-            readGameProperties(iCmd, s);
+            readGameProperties(iCmd);
 
             prevViewData = null;
             currentViewData = new JsonObject();
@@ -155,18 +172,18 @@ abstract public class GameManager<T extends AbstractPlayer> {
             dumpMetadata();
             dumpScores();
 
-            s.close();
+            channel.close();
 
         } catch (Throwable e) {
             dumpFail(e);
-            s.close();
+            channel.close();
             throw e;
         }
     }
 
     abstract protected boolean allPlayersInactive();
 
-    abstract protected void readGameProperties(InputCommand iCmd, Scanner s);
+    abstract protected void readGameProperties(InputCommand iCmd);
 
     /**
      * Executes a player for a maximum of turnMaxTime milliseconds and store the output. Used by player.execute().
@@ -184,7 +201,7 @@ abstract public class GameManager<T extends AbstractPlayer> {
 
             player.setTimeout(false);
 
-            InputCommand iCmd = InputCommand.parse(s.nextLine());
+            InputCommand iCmd = channel.readCommand();
 
             if (iCmd.cmd != InputCommand.Command.GET_GAME_INFO) {
                 throw new RuntimeException("Invalid command: " + iCmd.cmd);
@@ -207,28 +224,82 @@ abstract public class GameManager<T extends AbstractPlayer> {
             dumpNextPlayerInfos(player.getIndex(), nbrOutputLines, timelimit + (useTimebank ? 0 : SOFT_TIMELIMIT_EXTRA));
 
             // READ PLAYER OUTPUTS
-            iCmd = InputCommand.parse(s.nextLine());
-            if (iCmd.cmd == InputCommand.Command.SET_PLAYER_OUTPUT) {
-                int lineCount = iCmd.lineCount;
-                List<String> output = new ArrayList<>(lineCount);
-
-                if (monitoringRequested) {
-                    String exectionTime = s.nextLine();
-                    long ms = Long.valueOf(exectionTime);
-                    player.setLastExecutionTimeMs(ms);
-                    lineCount--;
-                }
-                for (int i = 0; i < lineCount; i++) {
-                    output.add(s.nextLine());
-                }
-                player.setOutputs(output);
-            } else if (iCmd.cmd == InputCommand.Command.SET_PLAYER_TIMEOUT) {
-                player.setTimeout(true);
-            } else {
+            readPlayerOutput(player);
+
+            player.resetInputs();
+            newTurn = false;
+        } catch (Throwable e) {
+            //Don't let the user catch game fail exceptions
+            dumpFail(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Executes several players simultaneously, each for a maximum of its own time limit, and store their outputs. The players all receive their
+     * inputs at once and the turn lasts as long as the slowest of them. Used by executeAll().
+     * 
+     * @param batch
+     *            Players to execute.
+     */
+    protected void execute(List<T> batch) {
+        if (batch.size() == 1) {
+            execute(batch.get(0));
+            return;
+        }
+        try {
+            if (!this.initDone) {
+                throw new RuntimeException("Impossible to execute a player during init phase.");
+            }
+
+            InputCommand iCmd = channel.readCommand();
+
+            if (iCmd.cmd != InputCommand.Command.GET_GAME_INFO) {
                 throw new RuntimeException("Invalid command: " + iCmd.cmd);
             }
 
-            player.resetInputs();
+            dumpView();
+            if (!monitoringRequested) {
+                requestMonitoring();
+            }
+            dumpInfos();
+
+            OutputData inputData = new OutputData(OutputCommand.NEXT_PLAYER_INPUT);
+            OutputData infoData = new OutputData(OutputCommand.NEXT_PLAYER_INFO);
+            boolean expectsOutput = false;
+            for (T player : batch) {
+                player.setTimeout(false);
+                int nbrOutputLines = player.getExpectedOutputLines();
+                expectsOutput |= nbrOutputLines > 0;
+
+                int timelimit = player.hasNeverBeenExecuted() ? firstTurnMaxTime : turnMaxTime;
+                if (useTimebank) {
+                    timelimit = player.getRemainingTimebank();
+                }
+                player.setTimelimit(timelimit);
+
+                // Each input is framed as if it were sent alone, so that the whole content is already trimmed
+                List<String> inputs = OutputData.textLines(player.getInputs());
+                inputData.addAll(inputs);
+                infoData.add(String.valueOf(player.getIndex()));
+                infoData.add(String.valueOf(nbrOutputLines));
+                infoData.add(String.valueOf(timelimit + (useTimebank ? 0 : SOFT_TIMELIMIT_EXTRA)));
+                infoData.add(String.valueOf(inputs.size()));
+            }
+            channel.write(inputData);
+            if (log.isInfoEnabled()) {
+                log.info(inputData);
+            }
+            // Players run concurrently, so the turn only costs one time limit
+            if (expectsOutput && !useTimebank) {
+                addTurnTime();
+            }
+            channel.write(infoData);
+
+            for (T player : batch) {
+                readPlayerOutput(player);
+                player.resetInputs();
+            }
             newTurn = false;
         } catch (Throwable e) {
             //Don't let the user catch game fail exceptions
@@ -237,9 +308,32 @@ abstract public class GameManager<T extends AbstractPlayer> {
         }
     }
 
+    private void readPlayerOutput(T player) {
+        InputCommand iCmd = channel.readCommand();
+        if (iCmd.cmd == InputCommand.Command.SET_PLAYER_OUTPUT) {
+            int lineCount = iCmd.lineCount;
+            List<String> output = new ArrayList<>(lineCount);
+
+            if (monitoringRequested) {
+                String exectionTime = channel.readLine();
+                long ms = Long.valueOf(exectionTime);
+                player.setLastExecutionTimeMs(ms);
+                lineCount--;
+            }
+            for (int i = 0; i < lineCount; i++) {
+                output.add(channel.readLine());
+            }
+            player.setOutputs(output);
+        } else if (iCmd.cmd == InputCommand.Command.SET_PLAYER_TIMEOUT) {
+            player.setTimeout(true);
+        } else {
+            throw new RuntimeException("Invalid command: " + iCmd.cmd);
+        }
+    }
+
     private void requestMonitoring() {
         OutputData data = new OutputData(OutputCommand.MONITORING);
-        out.println(data);
+        channel.write(data);
         log.info(data);
         monitoringRequested = true;
     }
@@ -264,6 +358,11 @@ abstract public class GameManager<T extends AbstractPlayer> {
         prevViewData = currentViewData;
         currentViewData = new JsonObject();
 
+        prevDeferredViewData = currentDeferredViewData;
+        currentDeferredViewData = new LinkedHashMap<>();
+        prevDeferredSnapshots = currentDeferredSnapshots;
+        currentDeferredSnapshots = new LinkedHashMap<>();
+
         prevGameSummary = currentGameSummary;
         currentGameSummary = new ArrayList<>();
 
@@ -277,7 +376,7 @@ abstract public class GameManager<T extends AbstractPlayer> {
     private void dumpMetadata() {
         OutputData data = new OutputData(OutputCommand.METADATA);
         data.add(getMetadata());
-        out.println(data);
+        channel.write(data);
     }
 
     private void dumpScores() {
@@ -287,7 +386,7 @@ abstract public class GameManager<T extends AbstractPlayer> {
             playerScores.add(player.getIndex() + " " + player.getScore());
         }
         data.addAll(playerScores);
-        out.println(data);
+        channel.write(data);
     }
 
     private void dumpFail(Throwable e) {
@@ -297,12 +396,20 @@ abstract public class GameManager<T extends AbstractPlayer> {
         e.printStackTrace(pw);
 
         data.add(sw.toString());
-        out.println(data);
+        channel.write(data);
     }
 
     private void dumpView() {
         OutputData data = new OutputData(OutputCommand.VIEW);
+        if (isHeadless()) {
+            // Only the frame header is sent so that the runner still counts the frames
+            data.add((newTurn ? "KEY_FRAME " : "INTERMEDIATE_FRAME ") + frame);
+            channel.write(data);
+            frame++;
+            return;
+        }
         if (newTurn) {
+            collectDeferredViewData();
             data.add("KEY_FRAME " + frame);
             if (turn == 1) {
                 JsonObject initFrame = new JsonObject();
@@ -315,9 +422,7 @@ abstract public class GameManager<T extends AbstractPlayer> {
         } else {
             data.add("INTERMEDIATE_FRAME " + frame);
         }
-        String viewData = data.toString();
-
-        totalViewDataBytesSent += viewData.length();
+        totalViewDataBytesSent += data.textLength() - (newTurn ? getSnapshotsLength(prevViewData) : 0);
         if (totalViewDataBytesSent > VIEW_DATA_TOTAL_HARD_QUOTA) {
             throw new RuntimeException("The amount of data sent to the viewer is too big!");
         } else if (totalViewDataBytesSent > VIEW_DATA_TOTAL_SOFT_QUOTA && !viewWarning) {
@@ -327,20 +432,69 @@ abstract public class GameManager<T extends AbstractPlayer> {
             viewWarning = true;
         }
 
-        log.info(viewData);
-        out.println(viewData);
+        if (log.isInfoEnabled()) {
+            log.info(data);
+        }
+        channel.write(data);
 
         frame++;
     }
 
+    /**
+     * Adds the view data of the frame computed in the background by the modules, waiting for it if needed.
+     */
+    private void collectDeferredViewData() {
+        for (Entry<String, Future<?>> entry : prevDeferredViewData.entrySet()) {
+            Object data = getDeferredData(entry.getValue());
+            if (data != null) {
+                prevViewData.add(entry.getKey(), gson.toJsonTree(data));
+            }
+        }
+        for (Entry<String, Future<?>> entry : prevDeferredSnapshots.entrySet()) {
+            Object data = getDeferredData(entry.getValue());
+            if (data != null) {
+                addSnapshot(prevViewData, entry.getKey(), data);
+            }
+        }
+        prevDeferredViewData.clear();
+        prevDeferredSnapshots.clear();
+    }
+
+    private static Object getDeferredData(Future<?> data) {
+        try {
+            return data.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the view data", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Failed to compute the view data", e.getCause());
+        }
+    }
+
+    /**
+     * @return the number of characters the snapshots of the modules add to the JSON text of the view data
+     */
+    private int getSnapshotsLength(JsonObject viewData) {
+        JsonElement snapshots = viewData.get(VIEW_SNAPSHOTS_KEY);
+        if (snapshots == null) {
+            return 0;
+        }
+        // The key, its quotes, the colon and the comma separating it from the other members
+        int separatorsLength = viewData.size() > 1 ? 4 : 3;
+        return VIEW_SNAPSHOTS_KEY.length() + separatorsLength + snapshots.toString().length();
+    }
+
     private void dumpInfos() {
         OutputData data = new OutputData(OutputCommand.INFOS);
-        out.println(data);
+        channel.write(data);
 
         if (newTurn && prevGameSummary != null) {
             OutputData summary = new OutputData(getGameSummaryOutputCommand());
             summary.addAll(prevGameSummary);
-            out.println(summary);
+            channel.write(summary);
         }
 
         if (newTurn && prevTooltips != null && !prevTooltips.isEmpty()) {
@@ -349,7 +503,7 @@ abstract public class GameManager<T extends AbstractPlayer> {
                 data.add(t.message);
                 data.add(String.valueOf(t.player));
             }
-            out.println(data);
+            channel.write(data);
         }
     }
 
@@ -360,13 +514,13 @@ abstract public class GameManager<T extends AbstractPlayer> {
         data.add(String.valueOf(nextPlayer));
         data.add(String.valueOf(expectedOutputLineCount));
         data.add(String.valueOf(timeout));
-        out.println(data);
+        channel.write(data);
     }
 
     private void dumpNextPlayerInput(String[] input) {
         OutputData data = new OutputData(OutputCommand.NEXT_PLAYER_INPUT);
         data.addAll(input);
-        out.println(data);
+        channel.write(data);
         if (log.isInfoEnabled()) {
             log.info(data);
         }
@@ -576,9 +730,73 @@ abstract public class GameManager<T extends AbstractPlayer> {
      *            any object that can be serialized in JSON using gson.
      */
     public void setViewData(String moduleName, Object data) {
+        if (isHeadless()) {
+            return;
+        }
         this.currentViewData.add(moduleName, gson.toJsonTree(data));
     }
 
+    /**
+     * Set a snapshot of the state of a module for use by the viewer, for the current frame. Unlike the data set with <code>setViewData</code>,
+     * snapshots are not counted in the amount of data sent to the viewer: they must only hold what the viewer can already deduce from the
+     * previous frames, to help it seek through the replay.
+     * 
+     * @param moduleName
+     *            the name of the module
+     * @param data
+     *            any object that can be serialized in JSON using gson.
+     */
+    public void setViewSnapshotData(String moduleName, Object data) {
+        if (isHeadless()) {
+            return;
+        }
+        addSnapshot(currentViewData, moduleName, data);
+    }
+
+    private void addSnapshot(JsonObject viewData, String moduleName, Object data) {
+        JsonObject snapshots = viewData.getAsJsonObject(VIEW_SNAPSHOTS_KEY);
+        if (snapshots == null) {
+            snapshots = new JsonObject();
+            viewData.add(VIEW_SNAPSHOTS_KEY, snapshots);
+        }
+        snapshots.add(moduleName, gson.toJsonTree(data));
+    }
+
+    /**
+     * Set data for use by the viewer, for the current frame, for a specific module, while it is still being computed. This lets a module compute
+     * its data in the background while the next turn is played: the data is only waited for when the frame is sent to the viewer, which happens
+     * during the next turn.
+     * 
+     * @param moduleName
+     *            the name of the module
+     * @param data
+     *            the data, which can be serialized in JSON using gson. If it is null, the module sends no data for the frame. If its computation
+     *            fails, the game fails when the frame is sent.
+     */
+    public void setDeferredViewData(String moduleName, Future<?> data) {
+        if (isHeadless()) {
+            return;
+        }
+        currentDeferredViewData.put(moduleName, data);
+    }
+
+    /**
+     * Set a snapshot of the state of a module for use by the viewer, for the current frame, while it is still being computed. The snapshot is
+     * waited for when the frame is sent to the viewer, like the data set with <code>setDeferredViewData</code>.
+     * 
+     * @param moduleName
+     *            the name of the module
+     * @param data
+     *            the snapshot, which can be serialized in JSON using gson. If it is null, the module sends no snapshot for the frame.
+     * @see #setViewSnapshotData(String, Object)
+     */
+    public void setDeferredViewSnapshotData(String moduleName, Future<?> data) {
+        if (isHeadless()) {
+            return;
+        }
+        currentDeferredSnapshots.put(moduleName, data);
+    }
+
     /**
      * Set data for use by the viewer and not related to a specific frame. This must be use in the init only.
      * 
@@ -591,9 +809,29 @@ abstract public class GameManager<T extends AbstractPlayer> {
         if (initDone) {
             throw new IllegalStateException("Impossible to send global data to view outside of init phase");
         }
+        if (isHeadless()) {
+            return;
+        }
         this.globalViewData.add(moduleName, gson.toJsonTree(data));
     }
 
+    /**
+     * Tells whether this game runs without a viewer, for instance in a batch evaluation. The value is set by the game runner, or by using
+     * -Dgame.headless=true.
+     * <p>
+     * In headless mode, <code>setViewData</code> and <code>setViewGlobalData</code> ignore their data and no view is sent to the runner. Modules
+     * should use this method to skip the computation of their frame data.
+     * </p>
+     *
+     * @return true if no view should be generated for this game.
+     */
+    public boolean isHeadless() {
+        if (headless == null) {
+            headless = Boolean.parseBoolean(settings.get(GameSettings.HEADLESS));
+        }
+        return headless;
+    }
+
     /**
      * Adds a tooltip for the current turn.
      * 
@@ -661,12 +899,12 @@ abstract public class GameManager<T extends AbstractPlayer> {
     }
 
     /**
-     * Get current league level. The value can be set by using -Dleague.level=X where X is the league level.
+     * Get current league level. The value is set by the game runner, or by using -Dleague.level=X where X is the league level.
      *
      * @return a strictly positive integer. 1 is the lowest level and default value.
      */
     public int getLeagueLevel() {
-        return Integer.valueOf(System.getProperty("league.level", "1"));
+        return Integer.valueOf(settings.get(GameSettings.LEAGUE_LEVEL, "1"));
     }
 
     /**
@@ -0,0 +1,30 @@
+package com.codingame.gameengine.core;
+
+import java.util.Properties;
+
+/**
+ * The settings of one game, such as its mode and league level, bound in the game's injector.
+ * <p>
+ * Settings that were not given to <code>RefereeMain.start</code> fall back to the system property of the same name.
+ * </p>
+ */
+class GameSettings {
+    static final String GAME_MODE = "game.mode";
+    static final String LEAGUE_LEVEL = "league.level";
+    static final String HEADLESS = "game.headless";
+
+    private final Properties properties;
+
+    GameSettings(Properties properties) {
+        this.properties = properties == null ? new Properties() : properties;
+    }
+
+    String get(String key) {
+        return properties.getProperty(key, System.getProperty(key));
+    }
+
+    String get(String key, String defaultValue) {
+        String value = get(key);
+        return value == null ? defaultValue : value;
+    }
+}
@@ -1,6 +1,4 @@
 package com.codingame.gameengine.core;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 class InputCommand {
     public static enum Command {
@@ -15,16 +13,35 @@ class InputCommand {
         this.lineCount = lineCount;
     }
 
+    /**
+     * Parses a command header of the form <code>[[COMMAND] lineCount]</code>, the space being optional.
+     */
     static InputCommand parse(String line) {
-        final Pattern HEADER_PATTERN = Pattern.compile("\\[\\[(?<cmd>.+)\\] ?(?<lineCount>[0-9]+)\\]");
-        
-        Matcher m = HEADER_PATTERN.matcher(line);
-        if (!m.matches())
+        int end = line.length() - 1;
+        if (end < 0 || !line.startsWith("[[") || line.charAt(end) != ']') {
             throw new RuntimeException("Error in data sent to referee");
-        
-        Command cmd = Command.valueOf(m.group("cmd"));
-        int lineCount = Integer.parseInt(m.group("lineCount"));
-        
+        }
+
+        int digitsEnd = end;
+        int digitsStart = digitsEnd;
+        while (digitsStart > 2 && isDigit(line.charAt(digitsStart - 1))) {
+            digitsStart--;
+        }
+        int cmdEnd = digitsStart - 1;
+        if (cmdEnd >= 2 && line.charAt(cmdEnd) == ' ') {
+            cmdEnd--;
+        }
+        if (digitsStart == digitsEnd || cmdEnd <= 2 || line.charAt(cmdEnd) != ']') {
+            throw new RuntimeException("Error in data sent to referee");
+        }
+
+        Command cmd = Command.valueOf(line.substring(2, cmdEnd));
+        int lineCount = Integer.parseInt(line.substring(digitsStart, digitsEnd));
+
         return new InputCommand(cmd, lineCount);
     }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
 }
@@ -7,7 +7,6 @@ import java.security.SecureRandom;
 import java.util.List;
 import java.util.Properties;
 import java.util.Random;
-import java.util.Scanner;
 import java.util.Map.Entry;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
@@ -31,13 +30,13 @@ public final class MultiplayerGameManager<T extends AbstractMultiplayerPlayer> e
     private Random random;
 
     @Override
-    protected void readGameProperties(InputCommand iCmd, Scanner s) {
+    protected void readGameProperties(InputCommand iCmd) {
         // create game properties
         gameParameters = new Properties();
         if (iCmd.lineCount > 0) {
             for (int i = 0; i < (iCmd.lineCount - 1); i++) {
                 try {
-                    gameParameters.load(new StringReader(s.nextLine()));
+                    gameParameters.load(new StringReader(channel.readLine()));
                 } catch (IOException e) {
                     e.printStackTrace();
                 }
@@ -65,13 +64,12 @@ public final class MultiplayerGameManager<T extends AbstractMultiplayerPlayer> e
 
     @Override
     protected void dumpGameProperties() {
-        out.println(OutputCommand.UINPUT.format(gameParameters.size()));
-        log.info(OutputCommand.UINPUT.format(gameParameters.size()));
+        OutputData data = new OutputData(OutputCommand.UINPUT);
         for (Entry<Object, Object> t : gameParameters.entrySet()) {
-            out.println(t.getKey() + "=" + t.getValue());
-            log.info(t.getKey() + "=" + t.getValue());
-
+            data.add(t.getKey() + "=" + t.getValue());
         }
+        channel.write(data);
+        log.info(data);
     }
 
     /**
@@ -125,6 +123,31 @@ public final class MultiplayerGameManager<T extends AbstractMultiplayerPlayer> e
         return gameParameters;
     }
 
+    /**
+     * Executes the given players simultaneously and store their outputs. Each player gets its own time limit, as with
+     * <code>player.execute()</code>, but all of them receive their inputs at once so the turn only lasts as long as the slowest player.
+     * <p>
+     * Use it for games where players move simultaneously, instead of calling <code>execute()</code> on each player in turn.
+     * </p>
+     * 
+     * @param players
+     *            the players to execute, each at most once.
+     * @throws IllegalArgumentException
+     *             if a player is given more than once
+     */
+    public void executeAll(List<T> players) {
+        if (players.stream().distinct().count() != players.size()) {
+            throw new IllegalArgumentException("Each player can only be executed once per call to executeAll");
+        }
+        if (players.isEmpty()) {
+            return;
+        }
+        execute(players);
+        for (T player : players) {
+            player.afterExecution();
+        }
+    }
+
     /**
      * Get all the players.
      * 
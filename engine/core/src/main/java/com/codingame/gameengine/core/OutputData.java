@@ -1,48 +1,177 @@
 package com.codingame.gameengine.core;
-import java.io.PrintWriter;
-import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 
-@SuppressWarnings("serial")
-class OutputData extends LinkedList<String> {
+class OutputData {
     private OutputCommand command;
+    private List<String> lines = new ArrayList<>();
 
     public OutputData(OutputCommand command) {
         this.command = command;
     }
 
+    public OutputCommand getCommand() {
+        return command;
+    }
+
+    public List<String> getLines() {
+        return lines;
+    }
+
+    public int size() {
+        return lines.size();
+    }
+
     public boolean add(String s) {
         if (s != null)
-            return super.add(s);
+            return lines.add(s);
         return false;
     }
 
     public void addAll(String[] data) {
         if (data != null)
-            super.addAll(Arrays.asList(data));
+            lines.addAll(Arrays.asList(data));
     }
-    
+
     public void addAll(List<String> data) {
         if (data != null)
-            super.addAll(data);
+            lines.addAll(data);
     }
 
-    @Override
-    public String toString() {
-        StringWriter writer = new StringWriter();
+    /**
+     * Computes the length of the text form of this command without building it.
+     *
+     * @return the number of characters of <code>toString()</code>, for lines without leading or trailing whitespace
+     */
+    public int textLength() {
+        int length = this.command.format(lines.size()).length();
+        for (String line : lines) {
+            length += line.length() + 1;
+        }
+        return length;
+    }
+
+    /**
+     * Appends the text form of this command to the given buffer: the header, then the lines joined by line feeds and trimmed. The line count of
+     * the header is computed while the lines are appended.
+     *
+     * @param sb
+     *            the buffer to append to
+     */
+    public void writeTo(StringBuilder sb) {
+        int contentStart = sb.length();
+        int lineBreaks = 0;
+        for (String line : lines) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (c == '\r' || (c == '\n' && (i == 0 || line.charAt(i - 1) != '\r'))) {
+                    lineBreaks++;
+                }
+            }
+            if (line.isEmpty() || line.charAt(line.length() - 1) != '\r') {
+                lineBreaks++;
+            }
+            sb.append(line).append('\n');
+        }
+
+        // Trim the content, leaving out the line breaks it contained
+        int end = sb.length();
+        while (end > contentStart && sb.charAt(end - 1) <= ' ') {
+            end--;
+            lineBreaks -= countLineBreak(sb, end, contentStart);
+        }
+        int start = contentStart;
+        while (start < end && sb.charAt(start) <= ' ') {
+            start++;
+            lineBreaks -= countLineBreak(sb, start - 1, contentStart);
+        }
+        sb.setLength(end);
+        sb.delete(contentStart, start);
+
+        String header = this.command.format(end > start ? lineBreaks + 1 : 0);
+        if (end > start) {
+            sb.insert(contentStart, '\n');
+        }
+        sb.insert(contentStart, header);
+    }
+
+    /**
+     * Computes the lines received by a reader of the text form of this command: the lines are joined by line feeds and trimmed, then split again
+     * on <code>\n</code>, <code>\r\n</code> and <code>\r</code>. None of the returned lines contains a line break.
+     *
+     * @return as many lines as the line count of the header of <code>toString()</code>
+     */
+    public List<String> getTextLines() {
+        return textLines(lines);
+    }
+
+    static List<String> textLines(List<String> data) {
+        if (isText(data)) {
+            return new ArrayList<>(data);
+        }
         StringBuilder sb = new StringBuilder();
-        for (String line : this) {
+        for (String line : data) {
             sb.append(line).append('\n');
         }
-        String content = sb.toString().trim();
-        int length = (content.length() > 0) ? content.split("\r\n|\r|\n").length : 0;            
+        int end = sb.length();
+        while (end > 0 && sb.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int start = 0;
+        while (start < end && sb.charAt(start) <= ' ') {
+            start++;
+        }
+
+        List<String> textLines = new ArrayList<>();
+        if (start == end) {
+            return textLines;
+        }
+        int lineStart = start;
+        for (int i = start; i < end; i++) {
+            char c = sb.charAt(i);
+            if (c == '\n' || c == '\r') {
+                textLines.add(sb.substring(lineStart, i));
+                if (c == '\r' && i + 1 < end && sb.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                lineStart = i + 1;
+            }
+        }
+        textLines.add(sb.substring(lineStart, end));
+        return textLines;
+    }
+
+    // Whether the lines are already their own text form, which is the case of most commands
+    private static boolean isText(List<String> data) {
+        if (data.isEmpty()) {
+            return true;
+        }
+        String first = data.get(0);
+        String last = data.get(data.size() - 1);
+        if (first.isEmpty() || first.charAt(0) <= ' ' || last.isEmpty() || last.charAt(last.length() - 1) <= ' ') {
+            return false;
+        }
+        for (String line : data) {
+            if (line.indexOf('\n') >= 0 || line.indexOf('\r') >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        PrintWriter out = new PrintWriter(writer);
-        out.println(this.command.format(length));
-        out.print(content);
+    private static int countLineBreak(StringBuilder sb, int index, int contentStart) {
+        char c = sb.charAt(index);
+        if (c == '\r' || (c == '\n' && (index == contentStart || sb.charAt(index - 1) != '\r'))) {
+            return 1;
+        }
+        return 0;
+    }
 
-        return writer.toString().trim();
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        writeTo(sb);
+        return sb.toString();
     }
-}
\ No newline at end of file
+}
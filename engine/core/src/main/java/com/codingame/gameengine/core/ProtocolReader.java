@@ -0,0 +1,87 @@
+package com.codingame.gameengine.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the lines sent by the game runner through a reusable buffer. Lines end with <code>\n</code>, <code>\r\n</code> or <code>\r</code>, as
+ * with <code>Scanner.nextLine()</code>. Unlike <code>Scanner</code>, the Unicode line separators <code>\u2028</code>, <code>\u2029</code> and
+ * <code>\u0085</code> are part of the line.
+ */
+class ProtocolReader {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream in;
+    private final Charset charset;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+    private byte[] line = new byte[BUFFER_SIZE];
+    private boolean skipLineFeed = false;
+
+    ProtocolReader(InputStream in, Charset charset) {
+        this.in = in;
+        this.charset = charset;
+    }
+
+    /**
+     * Reads the next line, without its line terminator.
+     *
+     * @return the line
+     * @throws NoSuchElementException
+     *             if the end of the stream has been reached
+     */
+    String readLine() {
+        int length = 0;
+        while (true) {
+            if (position == limit && !fill()) {
+                if (length == 0) {
+                    throw new NoSuchElementException("No line found");
+                }
+                return new String(line, 0, length, charset);
+            }
+            byte b = buffer[position++];
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (b == '\n') {
+                    continue;
+                }
+            }
+            if (b == '\n' || b == '\r') {
+                skipLineFeed = b == '\r';
+                return new String(line, 0, length, charset);
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, length * 2);
+            }
+            line[length++] = b;
+        }
+    }
+
+    private boolean fill() {
+        try {
+            int nbRead;
+            do {
+                nbRead = in.read(buffer, 0, buffer.length);
+            } while (nbRead == 0);
+            position = 0;
+            limit = Math.max(nbRead, 0);
+            return nbRead > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void close() {
+        try {
+            in.close();
+        } catch (IOException e) {
+            // Nothing left to read
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.codingame.gameengine.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connects a referee running in the same JVM to the local <code>GameRunner</code>.
+ * <p>
+ * Commands are handed over as <code>Message</code> objects through in-memory queues, so they are never formatted as text, written to a stream
+ * and parsed back. The lines sent by the referee are normalized as in the text protocol: their content is trimmed and split on line breaks.
+ * </p>
+ */
+public class RefereeBridge {
+
+    private static final Message CLOSED = new Message(null, Collections.emptyList());
+
+    private final BlockingQueue<Message> toReferee = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Message> fromReferee = new LinkedBlockingQueue<>();
+
+    /**
+     * A protocol command with its lines.
+     */
+    public static class Message {
+        private final String command;
+        private final List<String> lines;
+
+        Message(String command, List<String> lines) {
+            this.command = command;
+            this.lines = lines;
+        }
+
+        /**
+         * @return the name of the command
+         */
+        public String getCommand() {
+            return command;
+        }
+
+        /**
+         * @return the lines of the command
+         */
+        public List<String> getLines() {
+            return lines;
+        }
+    }
+
+    /**
+     * Sends a command to the referee.
+     * 
+     * @param command
+     *            the name of the command
+     * @param lines
+     *            the lines of the command
+     */
+    public void send(String command, List<String> lines) {
+        toReferee.offer(new Message(command, new ArrayList<>(lines)));
+    }
+
+    /**
+     * Waits for the next command sent by the referee.
+     * 
+     * @param timeout
+     *            the maximum time to wait in milliseconds
+     * @return the command, or null if the referee did not send anything in time or has stopped
+     * @throws InterruptedException
+     *             if the current thread is interrupted while waiting
+     */
+    public Message receive(long timeout) throws InterruptedException {
+        Message message = fromReferee.poll(timeout, TimeUnit.MILLISECONDS);
+        if (message == CLOSED) {
+            fromReferee.offer(CLOSED);
+            return null;
+        }
+        return message;
+    }
+
+    /**
+     * Signals that the referee has stopped and will not send anything else.
+     */
+    public void close() {
+        fromReferee.offer(CLOSED);
+    }
+
+    RefereeChannel channel() {
+        return new RefereeChannel() {
+            private Iterator<String> lines = Collections.emptyIterator();
+
+            @Override
+            public InputCommand readCommand() {
+                try {
+                    Message message = toReferee.take();
+                    lines = message.lines.iterator();
+                    return new InputCommand(InputCommand.Command.valueOf(message.command), message.lines.size());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for the game runner", e);
+                }
+            }
+
+            @Override
+            public String readLine() {
+                if (!lines.hasNext()) {
+                    throw new NoSuchElementException("No line found");
+                }
+                return lines.next();
+            }
+
+            @Override
+            public void write(OutputData data) {
+                // The runner gets the same lines as from the text form of the command
+                fromReferee.offer(new Message(data.getCommand().name(), data.getTextLines()));
+            }
+
+            @Override
+            public void close() {
+                RefereeBridge.this.close();
+            }
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.codingame.gameengine.core;
+
+/**
+ * The connection between the <code>GameManager</code> and the game runner, over which protocol commands are exchanged.
+ */
+interface RefereeChannel {
+
+    /**
+     * Waits for the next command sent by the game runner.
+     * 
+     * @return the command header
+     */
+    InputCommand readCommand();
+
+    /**
+     * Reads the next line of the current command.
+     * 
+     * @return the line
+     */
+    String readLine();
+
+    /**
+     * Sends a command to the game runner.
+     * 
+     * @param data
+     *            the command and its lines
+     */
+    void write(OutputData data);
+
+    /**
+     * Releases the resources of this channel once the game is over.
+     */
+    void close();
+}
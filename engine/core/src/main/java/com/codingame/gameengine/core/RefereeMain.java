@@ -5,6 +5,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.lang.reflect.Type;
+import java.util.Properties;
 
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -56,14 +57,45 @@ public class RefereeMain {
      * @param is <code>InputStream</code> used to capture the referee's stdin
      * @param out <code>PrintStream</code> used to capture the referee's stdout
      */
-    @SuppressWarnings("unchecked")
     public static void start(InputStream is, PrintStream out) {
+        start(is, out, null);
+    }
 
-        Injector injector = Guice.createInjector(new GameEngineModule());
+    /**
+     * The local <code>GameRunner</code> will launch the referee using this method.
+     * <p>
+     * Each call creates its own injector, so several games can run concurrently in the same JVM.
+     * </p>
+     * 
+     * @param is <code>InputStream</code> used to capture the referee's stdin
+     * @param out <code>PrintStream</code> used to capture the referee's stdout
+     * @param settings the settings of this game such as <code>game.mode</code>, <code>league.level</code> and <code>game.headless</code>. Missing
+     *            settings are read from the system properties.
+     */
+    public static void start(InputStream is, PrintStream out, Properties settings) {
+        createGameManager(settings).start(is, out);
+    }
 
-        Type type = Types.newParameterizedType(GameManager.class, AbstractPlayer.class);
-        GameManager<AbstractPlayer> gameManager = (GameManager<AbstractPlayer>) injector.getInstance(Key.get(type));
+    /**
+     * The local <code>GameRunner</code> will launch a referee running in the same JVM using this method. Commands are exchanged through the
+     * given bridge instead of being written to and parsed from text streams.
+     * <p>
+     * The bridge is closed once the game is over.
+     * </p>
+     * 
+     * @param bridge the connection to the game runner
+     * @param settings the settings of this game such as <code>game.mode</code>, <code>league.level</code> and <code>game.headless</code>. Missing
+     *            settings are read from the system properties.
+     */
+    public static void start(RefereeBridge bridge, Properties settings) {
+        createGameManager(settings).start(bridge.channel());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static GameManager<AbstractPlayer> createGameManager(Properties settings) {
+        Injector injector = Guice.createInjector(new GameEngineModule(new GameSettings(settings)));
 
-        gameManager.start(is, out);
+        Type type = Types.newParameterizedType(GameManager.class, AbstractPlayer.class);
+        return (GameManager<AbstractPlayer>) injector.getInstance(Key.get(type));
     }
-}
\ No newline at end of file
+}
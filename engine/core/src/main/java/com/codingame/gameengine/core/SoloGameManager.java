@@ -2,7 +2,6 @@ package com.codingame.gameengine.core;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
 
 import com.google.inject.Singleton;
 
@@ -19,10 +18,10 @@ public class SoloGameManager<T extends AbstractSoloPlayer> extends GameManager<T
     private List<String> testCase = new ArrayList<>();
 
     @Override
-    protected void readGameProperties(InputCommand iCmd, Scanner s) {
+    protected void readGameProperties(InputCommand iCmd) {
         if (iCmd.lineCount > 0) {
             for (int i = 0; i < (iCmd.lineCount - 1); i++) {
-                testCase.add(s.nextLine());
+                testCase.add(channel.readLine());
             }
         }
     }
@@ -0,0 +1,43 @@
+package com.codingame.gameengine.core;
+
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+
+/**
+ * Exchanges commands as text over the referee's standard streams. Used when the referee runs in its own process.
+ */
+class TextRefereeChannel implements RefereeChannel {
+
+    private final ProtocolReader reader;
+    private final PrintStream out;
+    private final StringBuilder outputBuffer = new StringBuilder();
+
+    TextRefereeChannel(InputStream is, PrintStream out) {
+        this.reader = new ProtocolReader(is, Charset.defaultCharset());
+        this.out = out;
+    }
+
+    @Override
+    public InputCommand readCommand() {
+        return InputCommand.parse(reader.readLine());
+    }
+
+    @Override
+    public String readLine() {
+        return reader.readLine();
+    }
+
+    @Override
+    public void write(OutputData data) {
+        outputBuffer.setLength(0);
+        data.writeTo(outputBuffer);
+        outputBuffer.append(System.lineSeparator());
+        out.append(outputBuffer);
+    }
+
+    @Override
+    public void close() {
+        reader.close();
+    }
+}
@@ -290,6 +290,10 @@ export class Drawer {
     this.instantiateModules()
 
     this._frames = frames.map(f => {
+      // Frames with data may be stored as an array of their header and their already parsed data
+      if (Array.isArray(f)) {
+        return { ...f[1], key: f[0].split(' ')[0] === 'KEY_FRAME' }
+      }
       const splittedF = f.split('\n')
       const header = splittedF[0].split(' ')
 
@@ -418,7 +422,8 @@ export class Drawer {
     for (const moduleName in this.modules) {
       const module = this.modules[moduleName]
       if (typeof module.handleFrameData === 'function') {
-        parsedFrame.data[moduleName] = module.handleFrameData(parsedFrame.frameInfo, frame[moduleName])
+        const snapshot = frame.snapshots && frame.snapshots[moduleName]
+        parsedFrame.data[moduleName] = module.handleFrameData(parsedFrame.frameInfo, frame[moduleName], snapshot)
       }
     }
 
@@ -0,0 +1,77 @@
+package com.codingame.gameengine.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+class InputCommandTest {
+
+    private static final Pattern HEADER_PATTERN = Pattern.compile("\\[\\[(?<cmd>.+)\\] ?(?<lineCount>[0-9]+)\\]");
+
+    private static final List<String> TOKENS = Arrays.asList("[[", "[", "]", " ", "INIT", "SET_PLAYER_OUTPUT", "0", "12", "-", "x");
+
+    // The header as it was parsed before InputCommand.parse, with a regex
+    private static String previousParse(String line) {
+        try {
+            Matcher m = HEADER_PATTERN.matcher(line);
+            if (!m.matches()) {
+                return "error";
+            }
+            return InputCommand.Command.valueOf(m.group("cmd")) + " " + Integer.parseInt(m.group("lineCount"));
+        } catch (RuntimeException e) {
+            return "error";
+        }
+    }
+
+    private static String parse(String line) {
+        try {
+            InputCommand command = InputCommand.parse(line);
+            return command.cmd + " " + command.lineCount;
+        } catch (RuntimeException e) {
+            return "error";
+        }
+    }
+
+    @Test
+    void parsesLikeThePreviousRegex() {
+        List<String> headers = Arrays.asList(
+            "[[INIT] 3]",
+            "[[INIT]3]",
+            "[[GET_GAME_INFO] 0]",
+            "[[SET_PLAYER_OUTPUT] 0012]",
+            "[[SET_PLAYER_TIMEOUT] 1]",
+            "",
+            "[[INIT] ]",
+            "[[INIT]  3]",
+            "[[INIT] 3",
+            "[INIT] 3]",
+            "[[] 3]",
+            "[[INIT] -1]",
+            "[[INIT] 3] ",
+            " [[INIT] 3]",
+            "[[INIT]] 3]",
+            "[[INIT] 99999999999]",
+            "[[UNKNOWN] 1]"
+        );
+        for (String header : headers) {
+            assertEquals(previousParse(header), parse(header), header);
+        }
+
+        Random random = new Random(1);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder header = new StringBuilder("[[");
+            int tokenCount = random.nextInt(6);
+            for (int j = 0; j < tokenCount; j++) {
+                header.append(TOKENS.get(random.nextInt(TOKENS.size())));
+            }
+            header.append(random.nextBoolean() ? "]" : "");
+            assertEquals(previousParse(header.toString()), parse(header.toString()), header.toString());
+        }
+    }
+}
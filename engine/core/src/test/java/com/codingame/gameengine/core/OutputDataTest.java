@@ -0,0 +1,132 @@
+package com.codingame.gameengine.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class OutputDataTest {
+
+    private static final List<List<String>> EDGE_CASES = Arrays.asList(
+        Collections.emptyList(),
+        Arrays.asList(""),
+        Arrays.asList("", "", ""),
+        Arrays.asList("  ", "\t", " \r\n "),
+        Arrays.asList("a"),
+        Arrays.asList("  a", "b  "),
+        Arrays.asList("", " a b ", "", "c", ""),
+        Arrays.asList("a\r\nb", "c\rd", "e\nf"),
+        Arrays.asList("a\r", "\nb"),
+        Arrays.asList("\r\r\n\n", "a", "\r"),
+        Arrays.asList("a\r\n", "", "b\r"),
+        Arrays.asList("a", "  ", "\t", "b")
+    );
+
+    // The text form as it was built before writeTo: lines joined, trimmed, counted with a regex and printed after the header
+    private static String previousToString(OutputCommand command, List<String> lines) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line).append('\n');
+        }
+        String content = sb.toString().trim();
+        int length = (content.length() > 0) ? content.split("\r\n|\r|\n").length : 0;
+        return (command.format(length) + "\n" + content).trim();
+    }
+
+    private static List<String> randomLines(Random random) {
+        String alphabet = "ab \t\r\n";
+        List<String> lines = new ArrayList<>();
+        int lineCount = random.nextInt(5);
+        for (int i = 0; i < lineCount; i++) {
+            StringBuilder line = new StringBuilder();
+            int length = random.nextInt(6);
+            for (int j = 0; j < length; j++) {
+                line.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    private static OutputData data(OutputCommand command, List<String> lines) {
+        OutputData data = new OutputData(command);
+        data.addAll(lines);
+        return data;
+    }
+
+    // The lines a reader of the text form receives after the header
+    private static List<String> readText(String text) {
+        String[] lines = text.split("\r\n|\r|\n", -1);
+        int lineCount = Integer.parseInt(lines[0].replaceAll("\\D", ""));
+        return Arrays.asList(lines).subList(1, 1 + lineCount);
+    }
+
+    @Test
+    void writeToMatchesThePreviousToString() {
+        for (List<String> lines : EDGE_CASES) {
+            assertEquals(previousToString(OutputCommand.VIEW, lines), data(OutputCommand.VIEW, lines).toString(), lines.toString());
+        }
+        Random random = new Random(1);
+        for (int i = 0; i < 20_000; i++) {
+            List<String> lines = randomLines(random);
+            assertEquals(previousToString(OutputCommand.VIEW, lines), data(OutputCommand.VIEW, lines).toString(), lines.toString());
+        }
+    }
+
+    @Test
+    void writeToAppendsAfterExistingContent() {
+        for (List<String> lines : EDGE_CASES) {
+            StringBuilder sb = new StringBuilder(" \n[[VIEW] 1]\nx\r");
+            data(OutputCommand.INFOS, lines).writeTo(sb);
+            assertEquals(" \n[[VIEW] 1]\nx\r" + previousToString(OutputCommand.INFOS, lines), sb.toString(), lines.toString());
+        }
+    }
+
+    @Test
+    void textLinesMatchTheTextForm() {
+        for (List<String> input : EDGE_CASES) {
+            OutputData data = data(OutputCommand.NEXT_PLAYER_INPUT, input);
+            assertEquals(readText(data.toString()), data.getTextLines(), input.toString());
+        }
+        Random random = new Random(2);
+        for (int i = 0; i < 20_000; i++) {
+            OutputData data = data(OutputCommand.NEXT_PLAYER_INPUT, randomLines(random));
+            assertEquals(readText(data.toString()), data.getTextLines(), data.getLines().toString());
+        }
+    }
+
+    @Test
+    void batchInputsAreFramedLikeSingleInputs() {
+        List<List<String>> inputs = Arrays.asList(
+            Arrays.asList("", "  a b ", "c  ", ""),
+            Arrays.asList("", "", "d"),
+            Arrays.asList("e\r\nf\rg", "   "),
+            Collections.emptyList(),
+            Arrays.asList("  ", ""),
+            Arrays.asList("h  ", "", "")
+        );
+
+        OutputData batch = new OutputData(OutputCommand.NEXT_PLAYER_INPUT);
+        List<Integer> lineCounts = new ArrayList<>();
+        for (List<String> input : inputs) {
+            List<String> lines = OutputData.textLines(input);
+            batch.addAll(lines);
+            lineCounts.add(lines.size());
+        }
+
+        List<String> received = readText(batch.toString());
+        assertEquals(batch.getLines(), received);
+        int offset = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            List<String> single = readText(data(OutputCommand.NEXT_PLAYER_INPUT, inputs.get(i)).toString());
+            assertEquals(single, received.subList(offset, offset + lineCounts.get(i)), inputs.get(i).toString());
+            offset += lineCounts.get(i);
+        }
+        assertEquals(received.size(), offset);
+    }
+}
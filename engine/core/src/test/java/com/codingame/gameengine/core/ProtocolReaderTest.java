@@ -0,0 +1,123 @@
+package com.codingame.gameengine.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Scanner;
+
+import org.junit.jupiter.api.Test;
+
+class ProtocolReaderTest {
+
+    private static final List<String> EDGE_CASES = Arrays.asList(
+        "",
+        "\n",
+        "\r",
+        "\r\n",
+        "a",
+        "a\n",
+        "a\r\nb\r\n",
+        "a\rb\rc",
+        "a\r\r\nb\n\rc",
+        "\n\n\r\n\r\r",
+        "  \n\t\n \r\n",
+        "  a  \r\n\tb\t\n",
+        "[[INIT] 3]\n2\nseed=1\n  \n"
+    );
+
+    // Hands over the bytes one at a time, so that a \r\n is split between two reads
+    private static class SlowInputStream extends ByteArrayInputStream {
+        SlowInputStream(byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 1));
+        }
+    }
+
+    // The lines read as they were before ProtocolReader, with Scanner.nextLine()
+    private static List<String> scannerLines(String text) {
+        List<String> lines = new ArrayList<>();
+        try (Scanner scanner = new Scanner(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), "UTF-8")) {
+            while (true) {
+                try {
+                    lines.add(scanner.nextLine());
+                } catch (NoSuchElementException e) {
+                    return lines;
+                }
+            }
+        }
+    }
+
+    private static List<String> readerLines(InputStream in) {
+        ProtocolReader reader = new ProtocolReader(in, StandardCharsets.UTF_8);
+        List<String> lines = new ArrayList<>();
+        while (true) {
+            try {
+                lines.add(reader.readLine());
+            } catch (NoSuchElementException e) {
+                return lines;
+            }
+        }
+    }
+
+    private static void assertSameLines(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        String message = text.replace("\r", "\\r").replace("\n", "\\n");
+        assertEquals(scannerLines(text), readerLines(new ByteArrayInputStream(bytes)), message);
+        assertEquals(scannerLines(text), readerLines(new SlowInputStream(bytes)), message);
+    }
+
+    @Test
+    void readsTheSameLinesAsScanner() {
+        for (String text : EDGE_CASES) {
+            assertSameLines(text);
+        }
+        String alphabet = "ab \t\r\n\u00e9";
+        Random random = new Random(1);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertSameLines(text.toString());
+        }
+    }
+
+    @Test
+    void readsLinesLongerThanTheBuffer() {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            line.append((char) ('a' + i % 26));
+        }
+        assertSameLines(line + "\r\n" + line + "\r" + line);
+    }
+
+    @Test
+    void keepsUnicodeLineSeparatorsInTheLine() {
+        // Unlike Scanner, only \n, \r\n and \r end a line, as when the runner counts the lines of a player output
+        String text = "a\u2028b\u0085c\u2029d\n";
+        assertEquals(
+            Arrays.asList("a\u2028b\u0085c\u2029d"),
+            readerLines(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)))
+        );
+    }
+
+    @Test
+    void failsAtTheEndOfTheStream() {
+        ProtocolReader reader = new ProtocolReader(new ByteArrayInputStream("a\r\n".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+        assertEquals("a", reader.readLine());
+        assertThrows(NoSuchElementException.class, reader::readLine);
+    }
+}
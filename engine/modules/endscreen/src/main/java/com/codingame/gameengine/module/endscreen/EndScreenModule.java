@@ -76,6 +76,9 @@ public class EndScreenModule implements Module {
 
     @Override
     public final void onAfterOnEnd() {
+        if (gameManager.isHeadless()) {
+            return;
+        }
         Object[] data = { scores, titleRankingsSprite, displayedText };
         gameManager.setViewData("endScreen", data);
     }
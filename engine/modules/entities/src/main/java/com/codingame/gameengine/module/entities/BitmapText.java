@@ -45,7 +45,7 @@ public class BitmapText extends TextBasedEntity<BitmapText> {
     public BitmapText setFont(String font) {
         Objects.requireNonNull(font);
         this.font = font;
-        set("fontFamily", font, null);
+        set(Property.FONT_FAMILY, font, null);
         return this;
     }
 
@@ -0,0 +1,57 @@
+package com.codingame.gameengine.module.entities;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The cells of a <code>Tilemap</code> changed since its last commit, with their new tiles.
+ * <p>
+ * It is sent as comma separated runs of three numbers: the index of the first cell of the run, the number of consecutive cells in the run, and the
+ * tile they all show.
+ * </p>
+ */
+class CellsDelta implements PropertyDelta {
+    private final BitSet changed = new BitSet();
+    private int[] tiles = new int[0];
+
+    void set(int index, int tile) {
+        if (index >= tiles.length) {
+            tiles = Arrays.copyOf(tiles, Math.max(index + 1, tiles.length * 2));
+        }
+        tiles[index] = tile;
+        changed.set(index);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return changed.isEmpty();
+    }
+
+    @Override
+    public PropertyDelta then(PropertyDelta next) {
+        CellsDelta other = (CellsDelta) next;
+        for (int i = other.changed.nextSetBit(0); i >= 0; i = other.changed.nextSetBit(i + 1)) {
+            set(i, other.tiles[i]);
+        }
+        return this;
+    }
+
+    @Override
+    public void appendTo(StringBuilder sb) {
+        boolean first = true;
+        int start = changed.nextSetBit(0);
+        while (start >= 0) {
+            int tile = tiles[start];
+            int end = start + 1;
+            while (end < tiles.length && changed.get(end) && tiles[end] == tile) {
+                end++;
+            }
+            if (!first) {
+                sb.append(',');
+            }
+            sb.append(start).append(',').append(end - start).append(',').append(tile);
+            first = false;
+            start = changed.nextSetBit(end);
+        }
+    }
+}
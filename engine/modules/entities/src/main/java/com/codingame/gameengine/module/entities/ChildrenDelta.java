@@ -0,0 +1,52 @@
+package com.codingame.gameengine.module.entities;
+
+/**
+ * The entities added to and removed from a <code>ContainerBasedEntity</code> since its last commit.
+ * <p>
+ * It is sent as the comma separated ids of the added children, followed by the negated ids of the removed ones. An entity removed then added
+ * back, or the other way around, cancels out.
+ * </p>
+ */
+class ChildrenDelta implements PropertyDelta {
+    private final IntLinkedSet added = new IntLinkedSet();
+    private final IntLinkedSet removed = new IntLinkedSet();
+
+    void add(int id) {
+        if (!removed.remove(id)) {
+            added.add(id);
+        }
+    }
+
+    void remove(int id) {
+        if (!added.remove(id)) {
+            removed.add(id);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty();
+    }
+
+    @Override
+    public PropertyDelta then(PropertyDelta next) {
+        ChildrenDelta other = (ChildrenDelta) next;
+        other.removed.forEach(this::remove);
+        other.added.forEach(this::add);
+        return this;
+    }
+
+    @Override
+    public void appendTo(StringBuilder sb) {
+        int start = sb.length();
+        added.forEach(id -> appendId(sb, start, id));
+        removed.forEach(id -> appendId(sb, start, -id));
+    }
+
+    private static void appendId(StringBuilder sb, int start, int id) {
+        if (sb.length() > start) {
+            sb.append(',');
+        }
+        sb.append(id);
+    }
+}
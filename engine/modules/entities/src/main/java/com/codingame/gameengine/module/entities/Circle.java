@@ -50,7 +50,7 @@ public class Circle extends Shape<Circle> {
             throw new IllegalArgumentException("A Circle's radius may not be less than zero");
         }
         this.radius = radius;
-        set("radius", radius, curve);
+        set(Property.RADIUS, radius, curve);
         return this;
     }
 
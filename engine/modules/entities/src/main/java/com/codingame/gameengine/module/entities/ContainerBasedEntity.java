@@ -1,8 +1,5 @@
 package com.codingame.gameengine.module.entities;
 
-import java.util.HashSet;
-import java.util.Set;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -13,12 +10,12 @@ import java.util.stream.Stream;
  */
 public abstract class ContainerBasedEntity<T extends Entity<?>> extends Entity<T> {
 
-    private Set<Entity<?>> entities;
+    private IntLinkedSet children;
 
     ContainerBasedEntity() {
         super();
 
-        entities = new HashSet<>();
+        children = new IntLinkedSet();
     }
 
     /**
@@ -30,8 +27,8 @@ public abstract class ContainerBasedEntity<T extends Entity<?>> extends Entity<T
     public void remove(Entity<?> entity) {
         if (entity.parent == this) {
             entity.parent = null;
-            entities.remove(entity);
-            set("children", asString(entities), null);
+            children.remove(entity.getId());
+            getChildrenDelta().remove(entity.getId());
         }
     }
 
@@ -57,17 +54,27 @@ public abstract class ContainerBasedEntity<T extends Entity<?>> extends Entity<T
                     )
                 );
             }
-            this.entities.add(entity);
+            children.add(entity.getId());
             entity.parent = this;
+            getChildrenDelta().add(entity.getId());
         });
+    }
 
-        set("children", asString(this.entities), null);
+    /**
+     * @return a copy of the ids of the children of this <code>ContainerBasedEntity</code>, in the order they were added.
+     */
+    IntLinkedSet getChildIds() {
+        return new IntLinkedSet(children);
     }
 
-    private String asString(Set<Entity<?>> entities) {
-        return entities.stream()
-            .map(e -> String.valueOf(e.getId()))
-            .collect(Collectors.joining(","));
+    /**
+     * Only the children added and removed since the last commit are sent to the viewer, which applies them to the children it already knows.
+     */
+    private ChildrenDelta getChildrenDelta() {
+        if (!state.isSet(Property.CHILDREN_DELTA)) {
+            set(Property.CHILDREN_DELTA, new ChildrenDelta(), null);
+        }
+        return (ChildrenDelta) state.getObject(Property.CHILDREN_DELTA);
     }
 
 }
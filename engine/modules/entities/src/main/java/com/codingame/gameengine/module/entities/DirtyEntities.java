@@ -0,0 +1,50 @@
+package com.codingame.gameengine.module.entities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The entities of a module that have properties set since their last commit.
+ * <p>
+ * Each entity stores its own index in this set, so adding and removing an entity are done in constant time without hashing. Removing an entity
+ * moves the last entity of the set to its index.
+ * </p>
+ */
+class DirtyEntities {
+    private final List<Entity<?>> entities = new ArrayList<>();
+
+    void add(Entity<?> entity) {
+        if (entity.dirtyIndex < 0) {
+            entity.dirtyIndex = entities.size();
+            entities.add(entity);
+        }
+    }
+
+    void remove(Entity<?> entity) {
+        int index = entity.dirtyIndex;
+        if (index < 0) {
+            return;
+        }
+        Entity<?> last = entities.remove(entities.size() - 1);
+        if (last != entity) {
+            entities.set(index, last);
+            last.dirtyIndex = index;
+        }
+        entity.dirtyIndex = -1;
+    }
+
+    int size() {
+        return entities.size();
+    }
+
+    Entity<?> get(int index) {
+        return entities.get(index);
+    }
+
+    void clear() {
+        for (Entity<?> entity : entities) {
+            entity.dirtyIndex = -1;
+        }
+        entities.clear();
+    }
+}
@@ -11,9 +11,14 @@ import java.util.Optional;
  * @param <T>
  *            a subclass inheriting Entity, used in order to return <b>this</b> as a T instead of an Entity.
  */
-public abstract class Entity<T extends Entity<?>> {
-    final int id;
+public abstract class Entity<T extends Entity<?>> implements Cloneable {
+    int id;
     EntityState state;
+    DirtyEntities dirtyEntities;
+    int dirtyIndex = -1;
+    boolean disposed;
+    boolean inPool;
+    EntityTemplate<?> createdFrom;
 
     private int x, y, zIndex;
     private double scaleX = 1, scaleY = 1;
@@ -24,11 +29,10 @@ public abstract class Entity<T extends Entity<?>> {
     Mask mask;
 
     static enum Type {
-        CIRCLE, LINE, RECTANGLE, SPRITE, TEXT, BITMAPTEXT, GROUP, BUFFERED_GROUP, SPRITEANIMATION, ROUNDED_RECTANGLE, POLYGON, TILING_SPRITE
+        CIRCLE, LINE, RECTANGLE, SPRITE, TEXT, BITMAPTEXT, GROUP, BUFFERED_GROUP, SPRITEANIMATION, ROUNDED_RECTANGLE, POLYGON, TILING_SPRITE, TILEMAP, INSTANCED_SPRITE
     }
 
     Entity() {
-        id = ++GraphicEntityModule.ENTITY_COUNT;
         state = new EntityState();
 
         // World commits made before the creation of an entity should not affect that entity.
@@ -43,6 +47,28 @@ public abstract class Entity<T extends Entity<?>> {
         return (T) this;
     }
 
+    /**
+     * @return a new entity with the same property values as this one, not registered in any module and with no pending changes.
+     */
+    @SuppressWarnings("unchecked")
+    T copy() {
+        Entity<?> copy;
+        try {
+            copy = (Entity<?>) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        copy.id = 0;
+        copy.state = new EntityState();
+        copy.dirtyEntities = null;
+        copy.dirtyIndex = -1;
+        copy.disposed = false;
+        copy.inPool = false;
+        copy.createdFrom = null;
+        copy.parent = null;
+        return (T) copy;
+    }
+
     /**
      * Returns a unique identifier for this <code>Entity</code>.
      * 
@@ -52,12 +78,25 @@ public abstract class Entity<T extends Entity<?>> {
         return id;
     }
 
-    protected void set(String key, Object value, Curve curve) {
-        state.put(key, value, Optional.ofNullable(curve).orElse(Curve.DEFAULT));
+    void set(Property property, double value, Curve curve) {
+        state.set(property, value, curve == null ? Curve.DEFAULT : curve);
+        markDirty();
     }
 
-    protected void set(String key, Object value) {
-        set(key, value, null);
+    void set(Property property, boolean value, Curve curve) {
+        set(property, value ? 1 : 0, curve);
+    }
+
+    void set(Property property, Object value, Curve curve) {
+        state.set(property, value, curve == null ? Curve.DEFAULT : curve);
+        markDirty();
+    }
+
+    private void markDirty() {
+        // Properties set by the constructor are tracked once the module has registered the entity
+        if (dirtyEntities != null) {
+            dirtyEntities.add(this);
+        }
     }
 
     abstract Type getType();
@@ -90,7 +129,7 @@ public abstract class Entity<T extends Entity<?>> {
      */
     public T setX(int x, Curve curve) {
         this.x = x;
-        set("x", x, curve);
+        set(Property.X, x, curve);
         return self();
     }
 
@@ -122,7 +161,7 @@ public abstract class Entity<T extends Entity<?>> {
      */
     public T setY(int y, Curve curve) {
         this.y = y;
-        set("y", y, curve);
+        set(Property.Y, y, curve);
         return self();
     }
 
@@ -144,7 +183,7 @@ public abstract class Entity<T extends Entity<?>> {
      */
     public T setZIndex(int zIndex) {
         this.zIndex = zIndex;
-        set("zIndex", zIndex);
+        set(Property.Z_INDEX, zIndex, null);
         return self();
     }
 
@@ -176,7 +215,7 @@ public abstract class Entity<T extends Entity<?>> {
      */
     public T setScaleX(double scaleX, Curve curve) {
         this.scaleX = scaleX;
-        set("scaleX", scaleX, curve);
+        set(Property.SCALE_X, scaleX, curve);
         return self();
     }
 
@@ -208,7 +247,7 @@ public abstract class Entity<T extends Entity<?>> {
      */
     public T setScaleY(double scaleY, Curve curve) {
         this.scaleY = scaleY;
-        set("scaleY", scaleY, curve);
+        set(Property.SCALE_Y, scaleY, curve);
         return self();
     }
 
@@ -240,7 +279,7 @@ public abstract class Entity<T extends Entity<?>> {
      */
     public T setSkewX(double skewX, Curve curve) {
         this.skewX = skewX;
-        set("skewX", skewX, curve);
+        set(Property.SKEW_X, skewX, curve);
         return self();
     }
 
@@ -272,7 +311,7 @@ public abstract class Entity<T extends Entity<?>> {
      */
     public T setSkewY(double skewY, Curve curve) {
         this.skewY = skewY;
-        set("skewY", skewY, curve);
+        set(Property.SKEW_Y, skewY, curve);
         return self();
     }
 
@@ -317,7 +356,7 @@ public abstract class Entity<T extends Entity<?>> {
         requireValidAlpha(alpha);
 
         this.alpha = alpha;
-        set("alpha", alpha, curve);
+        set(Property.ALPHA, alpha, curve);
         return self();
     }
 
@@ -375,7 +414,7 @@ public abstract class Entity<T extends Entity<?>> {
      */
     public T setRotation(double rotation, Curve curve) {
         this.rotation = rotation;
-        set("rotation", rotation, curve);
+        set(Property.ROTATION, rotation, curve);
         return self();
     }
 
@@ -391,7 +430,7 @@ public abstract class Entity<T extends Entity<?>> {
      */
     public T setVisible(boolean visible) {
         this.visible = visible;
-        set("visible", visible);
+        set(Property.VISIBLE, visible, null);
         return self();
     }
 
@@ -536,7 +575,7 @@ public abstract class Entity<T extends Entity<?>> {
 
     private T saveMask(Mask entity) {
         mask = entity;
-        set("mask", entity == null ? -1 : entity.getId());
+        set(Property.MASK, entity == null ? -1 : entity.getId(), null);
         return self();
     }
 
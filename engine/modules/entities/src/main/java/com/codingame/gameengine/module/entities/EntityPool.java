@@ -0,0 +1,80 @@
+package com.codingame.gameengine.module.entities;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
+
+/**
+ * A pool of entities of the same kind, such as bullets or particles, that are hidden when they are no longer needed and shown again when an
+ * entity is needed, instead of being disposed of and created.
+ * <p>
+ * Reusing entities spares the referee and the viewer the creation of new graphical counterparts. Use
+ * <code>GraphicEntityModule.createPool()</code> to instantiate.
+ * </p>
+ *
+ * @param <T>
+ *            the type of the pooled entities.
+ */
+public class EntityPool<T extends Entity<?>> {
+    private final Supplier<T> factory;
+    private final Deque<T> released;
+
+    EntityPool(Supplier<T> factory) {
+        this.factory = factory;
+        released = new ArrayDeque<>();
+    }
+
+    /**
+     * Returns a released entity, made visible again, or a new entity if none is available.
+     * <p>
+     * A reused entity keeps the properties it had when it was released, apart from its visibility: set the ones you need. Released entities
+     * that have been disposed of since are dropped from the pool, never returned.
+     * </p>
+     * 
+     * @return an entity that is not in the pool.
+     */
+    public T obtain() {
+        T entity;
+        do {
+            entity = released.poll();
+        } while (entity != null && entity.disposed);
+        if (entity == null) {
+            return factory.get();
+        }
+        entity.inPool = false;
+        entity.setVisible(true);
+        return entity;
+    }
+
+    /**
+     * Hides the given entity and keeps it to be returned by a later call to <code>obtain()</code>. It is removed from its parent.
+     * <p>
+     * Like any other change, hiding the entity is committed at t = 1 unless it is committed sooner.
+     * </p>
+     * 
+     * @param entity
+     *            the entity to release. Nothing is done if it is already in the pool.
+     * @exception IllegalArgumentException
+     *                if the entity has been disposed of.
+     */
+    public void release(T entity) {
+        if (entity.disposed) {
+            throw new IllegalArgumentException("Entity " + entity.getId() + " has been disposed of");
+        }
+        if (entity.inPool) {
+            return;
+        }
+        entity.getParent().ifPresent(parent -> parent.remove(entity));
+        entity.setVisible(false);
+        entity.inPool = true;
+        released.push(entity);
+    }
+
+    /**
+     * @return the number of released entities waiting to be reused.
+     */
+    public int getReleasedCount() {
+        released.removeIf(entity -> entity.disposed);
+        return released.size();
+    }
+}
@@ -1,80 +1,170 @@
 package com.codingame.gameengine.module.entities;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
-import java.util.Map.Entry;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.function.BiConsumer;
-
+import java.util.stream.Stream;
+
+/**
+ * The values of some properties of an entity, each with the curve used to animate it.
+ * <p>
+ * Values are stored in arrays indexed by <code>Property</code> ordinal: numbers, booleans included, in a <code>double</code> array and other
+ * values in an object array. A bitmask tells which properties are set. States are meant to be cleared and reused rather than reallocated.
+ * </p>
+ */
 class EntityState {
-    Map<String, Param> map;
-
-    public EntityState(EntityState other) {
-        map = new HashMap<>(other.map);
+    private static final long DELTAS = Stream.of(Property.VALUES)
+        .filter(property -> property.getKind() == Property.Kind.DELTA)
+        .mapToLong(property -> bit(property.ordinal()))
+        .reduce(0, (a, b) -> a | b);
+
+    private final double[] numbers = new double[Property.COUNT];
+    private final Object[] objects = new Object[Property.COUNT];
+    private final Curve[] curves = new Curve[Property.COUNT];
+    private long setProperties;
+
+    boolean isEmpty() {
+        return setProperties == 0;
     }
 
-    static class Param {
-        Object value;
-        Curve curve;
-
-        public Param(Object value, Curve curve) {
-            Objects.requireNonNull(curve);
+    /**
+     * @return a bitmask of the set properties, where bit i stands for the property of ordinal i.
+     */
+    long getSetProperties() {
+        return setProperties;
+    }
 
-            this.value = value;
-            this.curve = curve;
-        }
+    boolean isSet(Property property) {
+        return (setProperties & bit(property.ordinal())) != 0;
+    }
 
-        public boolean equals(Param other) {
-            return other != null && other.value.equals(value);
-        }
+    double getNumber(Property property) {
+        return numbers[property.ordinal()];
     }
 
-    EntityState() {
-        map = new HashMap<>();
+    Object getObject(Property property) {
+        return objects[property.ordinal()];
     }
 
-    public void forEach(BiConsumer<? super String, ? super Param> action) {
-        map.forEach(action);
+    Curve getCurve(Property property) {
+        return curves[property.ordinal()];
     }
 
-    public Object put(String key, Param value) {
-        return map.put(key, value);
+    void set(Property property, double value, Curve curve) {
+        int slot = property.ordinal();
+        numbers[slot] = value;
+        curves[slot] = curve;
+        setProperties |= bit(slot);
     }
 
-    public Param get(String key) {
-        return map.get(key);
+    void set(Property property, Object value, Curve curve) {
+        int slot = property.ordinal();
+        objects[slot] = value;
+        curves[slot] = curve;
+        setProperties |= bit(slot);
     }
 
-    public boolean isEmpty() {
-        return map.isEmpty();
+    /**
+     * Sets all the properties set in the other state to the same values and curves.
+     */
+    void putAll(EntityState other) {
+        for (long bits = other.setProperties; bits != 0; bits &= bits - 1) {
+            int slot = Long.numberOfTrailingZeros(bits);
+            if (isDelta(slot) && (setProperties & bit(slot)) != 0) {
+                objects[slot] = ((PropertyDelta) objects[slot]).then((PropertyDelta) other.objects[slot]);
+                curves[slot] = other.curves[slot];
+            } else {
+                copySlot(other, slot);
+            }
+        }
     }
 
-    public Set<Entry<String, Param>> entrySet() {
-        return map.entrySet();
+    /**
+     * Sets all the properties set in the other state to the same values and curves, except for deltas. This keeps a state holding the values
+     * known to the viewer.
+     */
+    void putAllValues(EntityState other) {
+        for (long bits = other.setProperties & ~DELTAS; bits != 0; bits &= bits - 1) {
+            copySlot(other, Long.numberOfTrailingZeros(bits));
+        }
     }
 
-    public void put(String key, Object value, Curve curve) {
-        map.put(key, new Param(value, curve));
+    /**
+     * Unsets all properties.
+     */
+    void clear() {
+        // Release the references held by the object slots
+        for (long bits = setProperties; bits != 0; bits &= bits - 1) {
+            objects[Long.numberOfTrailingZeros(bits)] = null;
+        }
+        setProperties = 0;
     }
 
-    EntityState diffFromNonNullOtherState(EntityState prevState) {
-        EntityState diff = new EntityState();
-        forEach((key, value) -> {
-            Param prevValue = prevState.get(key);
-            if (!value.equals(prevValue)) {
-                diff.put(key, value);
+    /**
+     * Replaces the content of <code>diff</code> with the properties of this state whose value is not the same in the previous state, and its
+     * non empty deltas. Texts and lists of points are sent as a splice of their previous value when it is shorter. The curves are not
+     * compared.
+     *
+     * @param prevState
+     *            the previous state, or null if there is none
+     * @param diff
+     *            the state receiving the difference
+     */
+    void diffFromOtherState(EntityState prevState, EntityState diff) {
+        diff.clear();
+        for (long bits = setProperties; bits != 0; bits &= bits - 1) {
+            int slot = Long.numberOfTrailingZeros(bits);
+            if (isDelta(slot)) {
+                if (!((PropertyDelta) objects[slot]).isEmpty()) {
+                    diff.copySlot(this, slot);
+                }
+            } else if (prevState == null || !prevState.hasSameValue(this, slot)) {
+                if (!diff.setSplice(prevState, this, slot)) {
+                    diff.copySlot(this, slot);
+                }
             }
-        });
-        return diff;
+        }
     }
 
-    EntityState diffFromOtherState(Optional<EntityState> optionalPrevState) {
-        if (optionalPrevState.isPresent()) {
-            return diffFromNonNullOtherState(optionalPrevState.get());
-        } else {
-            return new EntityState(this);
+    /**
+     * Sets the splice turning the previous value of a text or list property into the next one, if it is shorter than the next value.
+     *
+     * @return true if the splice was set
+     */
+    private boolean setSplice(EntityState prevState, EntityState next, int slot) {
+        Property spliceProperty = Splices.getSpliceProperty(Property.VALUES[slot]);
+        if (spliceProperty == null || prevState == null || (prevState.setProperties & bit(slot)) == 0) {
+            return false;
         }
+        String splice = Splices.encode(spliceProperty, prevState.objects[slot].toString(), next.objects[slot].toString());
+        if (splice == null) {
+            return false;
+        }
+        set(spliceProperty, splice, next.curves[slot]);
+        return true;
+    }
+
+    private boolean hasSameValue(EntityState other, int slot) {
+        if ((setProperties & bit(slot)) == 0) {
+            return false;
+        }
+        if (Property.VALUES[slot].getKind() == Property.Kind.OBJECT) {
+            return Objects.equals(objects[slot], other.objects[slot]);
+        }
+        // Same as Double.equals
+        return Double.doubleToLongBits(numbers[slot]) == Double.doubleToLongBits(other.numbers[slot]);
+    }
+
+    private void copySlot(EntityState other, int slot) {
+        numbers[slot] = other.numbers[slot];
+        objects[slot] = other.objects[slot];
+        curves[slot] = other.curves[slot];
+        setProperties |= bit(slot);
+    }
+
+    private static boolean isDelta(int slot) {
+        return (DELTAS & bit(slot)) != 0;
+    }
+
+    private static long bit(int slot) {
+        return 1L << slot;
     }
-}
\ No newline at end of file
+}
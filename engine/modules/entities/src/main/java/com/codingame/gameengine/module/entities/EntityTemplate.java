@@ -0,0 +1,34 @@
+package com.codingame.gameengine.module.entities;
+
+/**
+ * The initial properties shared by entities created in bulk, such as the cells of a board. Use
+ * <code>GraphicEntityModule.createTemplate()</code> to instantiate.
+ * <p>
+ * The shared properties are sent to the viewer once for all the entities created together from the template, instead of once per entity.
+ * </p>
+ *
+ * @param <T>
+ *            the type of the entities created from this template.
+ */
+public class EntityTemplate<T extends Entity<?>> {
+    private final T model;
+
+    EntityTemplate(T model) {
+        this.model = model;
+    }
+
+    /**
+     * @return a new unregistered entity with the properties of the template.
+     */
+    @SuppressWarnings("unchecked")
+    T newInstance() {
+        return (T) model.copy();
+    }
+
+    /**
+     * @return every property set on the model, with its latest value.
+     */
+    EntityState getValues() {
+        return model.state;
+    }
+}
@@ -1,13 +1,20 @@
 package com.codingame.gameengine.module.entities;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import com.codingame.gameengine.core.AbstractPlayer;
 import com.codingame.gameengine.core.GameManager;
@@ -28,15 +35,42 @@ public class GraphicEntityModule implements Module {
 
     //TODO: extra properties for Texts (text wrapping, alignment, ...)
 
-    static int ENTITY_COUNT = 0;
+    private static final Map<Class<?>, Supplier<Entity<?>>> TEMPLATE_CONSTRUCTORS = new HashMap<>();
+    static {
+        TEMPLATE_CONSTRUCTORS.put(Circle.class, Circle::new);
+        TEMPLATE_CONSTRUCTORS.put(Line.class, Line::new);
+        TEMPLATE_CONSTRUCTORS.put(Rectangle.class, Rectangle::new);
+        TEMPLATE_CONSTRUCTORS.put(RoundedRectangle.class, RoundedRectangle::new);
+        TEMPLATE_CONSTRUCTORS.put(Polygon.class, Polygon::new);
+        TEMPLATE_CONSTRUCTORS.put(Sprite.class, Sprite::new);
+        TEMPLATE_CONSTRUCTORS.put(SpriteAnimation.class, SpriteAnimation::new);
+        TEMPLATE_CONSTRUCTORS.put(TilingSprite.class, TilingSprite::new);
+        TEMPLATE_CONSTRUCTORS.put(Text.class, Text::new);
+        TEMPLATE_CONSTRUCTORS.put(BitmapText.class, BitmapText::new);
+    }
+
+    private static final long FRAME_THREAD_KEEP_ALIVE_SECONDS = 1;
 
+    private int entityCount = 0;
     private List<SpriteSheetSplitter> newSpriteSheetSplitters;
     private List<Entity<?>> newEntities;
+    private List<Entity<?>> disposedEntities;
+    // Indexed by id - 1, disposed entities leave a null
     private List<Entity<?>> entities;
+    private DirtyEntities dirtyEntities;
     private Map<String, WorldState> worldStates;
+    private Deque<WorldState> freeWorldStates;
+    private List<WorldState> worldDiffs;
     private World world;
     private boolean lockWorld;
     private WorldState currentWorldState;
+    private int snapshotInterval = 0;
+    private int parallelThreshold = 10_000;
+    private int frameCount = 0;
+    // Only set when the frames are serialized in the background
+    private ExecutorService frameExecutor;
+    private CompletableFuture<String> pendingFrame;
+    private List<WorldState> pendingWorldStates;
 
     private GameManager<AbstractPlayer> gameManager;
     @Inject private Serializer gameSerializer;
@@ -47,10 +81,14 @@ public class GraphicEntityModule implements Module {
         this.gameManager = gameManager;
         world = new World();
         entities = new ArrayList<>();
+        dirtyEntities = new DirtyEntities();
         newEntities = new ArrayList<>();
+        disposedEntities = new ArrayList<>();
         newSpriteSheetSplitters = new ArrayList<>();
         lockWorld = false;
         worldStates = new HashMap<>();
+        freeWorldStates = new ArrayDeque<>();
+        worldDiffs = new ArrayList<>();
         currentWorldState = new WorldState("0");
 
         gameManager.registerModule(this);
@@ -89,6 +127,79 @@ public class GraphicEntityModule implements Module {
         return world;
     }
 
+    /**
+     * Makes the module mark a snapshot every given number of frames. A snapshot holds no values: the viewer keeps the state every entity has at
+     * the end of that frame.
+     * <p>
+     * The viewer then finds the state of an entity at a given frame without looking further back than the last snapshot, which speeds up
+     * seeking in long replays with many entities. Snapshots are not counted in the amount of data sent to the viewer.
+     * </p>
+     *
+     * @param frames
+     *            the number of frames between two snapshots, or 0 to send none. Default is 0.
+     * @exception IllegalArgumentException
+     *                if frames is negative.
+     */
+    public void setSnapshotInterval(int frames) {
+        if (frames < 0) {
+            throw new IllegalArgumentException("Not a valid snapshot interval: " + frames);
+        }
+        snapshotInterval = frames;
+    }
+
+    /**
+     * Makes the module diff and serialize each frame in a background thread while the next turn is played, instead of at the end of the turn.
+     * <p>
+     * The referee no longer waits for the frame data between turns: the game manager only waits for it when it sends the frame to the viewer.
+     * The frame data is the same in both modes. At most one frame is serialized at a time, the end of the next turn waits for it if needed.
+     * </p>
+     *
+     * @param pipelined
+     *            true to serialize the frames in the background. Default is false.
+     * @exception IllegalStateException
+     *                if the first frame has already been computed.
+     */
+    public void setPipelined(boolean pipelined) {
+        if (frameCount > 0) {
+            throw new IllegalStateException("The pipelined mode must be set before the first frame.");
+        }
+        if (pipelined && frameExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                1, 1, FRAME_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "GraphicEntityModule-frames");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            );
+            // onAfterOnEnd is not called when the game fails: the idle thread must still go away
+            executor.allowCoreThreadTimeOut(true);
+            frameExecutor = executor;
+        } else if (!pipelined && frameExecutor != null) {
+            frameExecutor.shutdown();
+            frameExecutor = null;
+        }
+    }
+
+    /**
+     * Sets the number of entities committed at the same frame instant from which they are diffed and serialized in parallel, on the common
+     * fork/join pool, rather than one after the other.
+     * <p>
+     * The entities are then split into ranges of ids and the frame data lists their updates in id order, whatever the number of threads. Below
+     * a few thousand entities, the cost of the tasks outweighs the gain.
+     * </p>
+     *
+     * @param entities
+     *            the number of entities from which frames are computed in parallel, or 0 to never do so. Default is 10000.
+     * @exception IllegalArgumentException
+     *                if entities is negative.
+     */
+    public void setParallelThreshold(int entities) {
+        if (entities < 0) {
+            throw new IllegalArgumentException("Not a valid parallel threshold: " + entities);
+        }
+        parallelThreshold = entities;
+    }
+
     void loadSpriteSheetSplitter(SpriteSheetSplitter spritesheetsplitter) {
         newSpriteSheetSplitters.add(spritesheetsplitter);
     }
@@ -125,7 +236,13 @@ public class GraphicEntityModule implements Module {
      * 
      */
     public void commitWorldState(double t) {
-        commitState(t, true, entities.toArray(new Entity[entities.size()]));
+        requireValidFrameInstant(t);
+        requireNonEmpty(entities);
+
+        WorldState state = getWorldState(t);
+        state.markAsWorldCommit(entityCount);
+        // Entities without pending changes have nothing to add to the commit
+        flushDirtyEntities(state, false);
     }
 
     /**
@@ -143,30 +260,84 @@ public class GraphicEntityModule implements Module {
      * 
      */
     public void commitEntityState(double t, Entity<?>... entities) {
-        commitState(t, false, entities);
-    }
-
-    private void commitState(double t, boolean commitAll, Entity<?>... entities) {
         requireValidFrameInstant(t);
         requireNonEmpty(entities);
 
-        String actualT = Serializer.formatFrameTime(t);
-
-        WorldState state = worldStates.get(actualT);
-        if (state == null) {
-            state = new WorldState(actualT);
-            worldStates.put(actualT, state);
+        WorldState state = getWorldState(t);
+        for (Entity<?> entity : entities) {
+            requireNotDisposed(entity);
+            flushEntityState(state, entity);
         }
+    }
 
-        if (commitAll) {
-            state.markAsWorldCommit();
+    /**
+     * Disposes of the given entities. Their graphical counterparts are hidden at the end of the frame currently being computed and are no longer
+     * updated afterwards.
+     * <p>
+     * A disposed entity is removed from its parent and, if it is a group, its children are removed from it. Its commits of the current frame are
+     * kept and its other changes are committed at t = 1. The module then forgets it: it can no longer be committed and changing its properties has
+     * no effect.
+     * </p>
+     * <p>
+     * To hide entities in order to reuse them later, use an <code>EntityPool</code> instead.
+     * </p>
+     * 
+     * @param entities
+     *            The entity objects to dispose of. Entities already disposed of are ignored.
+     */
+    public void dispose(Entity<?>... entities) {
+        for (Entity<?> entity : entities) {
+            if (entity.disposed) {
+                continue;
+            }
+            entity.getParent().ifPresent(parent -> parent.remove(entity));
+            if (entity instanceof ContainerBasedEntity) {
+                ContainerBasedEntity<?> container = (ContainerBasedEntity<?>) entity;
+                container.getChildIds().forEach(id -> container.remove(this.entities.get(id - 1)));
+            }
+            entity.setVisible(false);
+            flushEntityState(getWorldState(1), entity);
+
+            entity.disposed = true;
+            entity.dirtyEntities = null;
+            this.entities.set(entity.getId() - 1, null);
+            disposedEntities.add(entity);
         }
-        flushAllEntityStates(entities, state);
+    }
 
+    /**
+     * Creates a pool of entities, to hide entities that are no longer needed and show them again instead of creating new ones.
+     * <p>
+     * Example: <code>EntityPool&lt;Sprite&gt; bullets = graphicEntityModule.createPool(graphicEntityModule::createSprite);</code>
+     * </p>
+     * 
+     * @param <T>
+     *            the type of the pooled entities.
+     * @param factory
+     *            creates an entity when the pool has none to reuse, such as one of the <code>create</code> methods of this module.
+     * @return the pool.
+     */
+    public <T extends Entity<?>> EntityPool<T> createPool(Supplier<T> factory) {
+        return new EntityPool<>(factory);
+    }
+
+    private WorldState getWorldState(double t) {
+        return worldStates.computeIfAbsent(Serializer.formatFrameTime(t), this::obtainWorldState);
     }
 
-    private void flushAllEntityStates(Entity<?>[] entities, WorldState state) {
-        Stream.of(entities).forEach(entity -> state.flushEntityState(entity));
+    private void flushEntityState(WorldState state, Entity<?> entity) {
+        state.flushEntityState(entity);
+        dirtyEntities.remove(entity);
+    }
+
+    private void flushDirtyEntities(WorldState state, boolean missingOnly) {
+        // Backwards, because flushing an entity moves the last dirty entity to its index
+        for (int i = dirtyEntities.size() - 1; i >= 0; i--) {
+            Entity<?> entity = dirtyEntities.get(i);
+            if (!missingOnly || !state.isCommitted(entity)) {
+                flushEntityState(state, entity);
+            }
+        }
     }
 
     private void requireNonEmpty(Object[] items) {
@@ -175,6 +346,18 @@ public class GraphicEntityModule implements Module {
         }
     }
 
+    private void requireNonEmpty(List<?> items) {
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("Must not be an empty array");
+        }
+    }
+
+    private static void requireNotDisposed(Entity<?> entity) {
+        if (entity.disposed) {
+            throw new IllegalArgumentException("Entity " + entity.getId() + " has been disposed of");
+        }
+    }
+
     private static void requireValidFrameInstant(double t) {
         if (t < 0 || t > 1) {
             throw new IllegalArgumentException("Not a valid frame instant: " + t);
@@ -182,44 +365,136 @@ public class GraphicEntityModule implements Module {
     }
 
     private void sendFrameData() {
+        if (gameManager.isHeadless()) {
+            // Nothing is diffed nor serialized, the commits of the frame are only dropped
+            newSpriteSheetSplitters.clear();
+            newEntities.clear();
+            for (int i = 0; i < dirtyEntities.size(); i++) {
+                dirtyEntities.get(i).state.clear();
+            }
+            dirtyEntities.clear();
+            releaseWorldStates();
+            forgetDisposedEntities(disposedEntities);
+            disposedEntities.clear();
+            return;
+        }
 
         autocommit();
 
-        Optional<String> load = gameSerializer.serializeLoadSpriteSheets(newSpriteSheetSplitters);
-        newSpriteSheetSplitters.clear();
-
-        Optional<String> create = gameSerializer.serializeCreateEntities(newEntities);
-        newEntities.clear();
-
         List<WorldState> orderedStates = worldStates.entrySet().stream()
             .sorted((e1, e2) -> e1.getValue().getFrameTime().compareTo(e2.getValue().getFrameTime()))
             .map(Entry::getValue)
             .collect(Collectors.toList());
 
-        List<WorldState> updateBuilder = new ArrayList<>();
+        frameCount++;
+
+        if (frameExecutor == null) {
+            String frameData = serializeFrame(orderedStates, newSpriteSheetSplitters, newEntities, disposedEntities);
+            newSpriteSheetSplitters.clear();
+            newEntities.clear();
+            disposedEntities.clear();
+            releaseWorldStates();
+
+            gameManager.setViewData("entitymodule", frameData);
+            sendSnapshot();
+            return;
+        }
+
+        // The previous frame must be serialized first, its world states can then be reused
+        awaitPendingFrame();
+        List<SpriteSheetSplitter> spriteSheets = new ArrayList<>(newSpriteSheetSplitters);
+        List<Entity<?>> createdEntities = new ArrayList<>(newEntities);
+        List<Entity<?>> disposed = new ArrayList<>(disposedEntities);
+        newSpriteSheetSplitters.clear();
+        newEntities.clear();
+        disposedEntities.clear();
+        // The world states of the frame now belong to the background thread
+        pendingWorldStates = orderedStates;
+        worldStates.clear();
+
+        pendingFrame = CompletableFuture.supplyAsync(
+            () -> serializeFrame(orderedStates, spriteSheets, createdEntities, disposed), frameExecutor
+        );
+        gameManager.setDeferredViewData("entitymodule", pendingFrame);
+        sendSnapshot();
+    }
+
+    private void sendSnapshot() {
+        if (snapshotInterval > 0 && frameCount % snapshotInterval == 0) {
+            gameManager.setViewSnapshotData("entitymodule", gameSerializer.serializeSnapshot());
+        }
+    }
+
+    /**
+     * Diffs the world states of a frame from the values known to the viewer, which are updated, then serializes the frame.
+     */
+    private String serializeFrame(
+        List<WorldState> orderedStates, List<SpriteSheetSplitter> spriteSheets, List<Entity<?>> createdEntities, List<Entity<?>> disposed
+    ) {
+        // The diffs are kept from one frame to the next to reuse their entity states
+        while (worldDiffs.size() < orderedStates.size()) {
+            worldDiffs.add(new WorldState("0"));
+        }
+        List<WorldState> updateBuilder = worldDiffs.subList(0, orderedStates.size());
 
-        for (WorldState nextWorldState : orderedStates) {
-            WorldState worldStateDiff = nextWorldState.diffFromOtherWorldState(currentWorldState);
-            updateBuilder.add(worldStateDiff);
+        // The viewer gets the values of the template along with the creation of the entity
+        for (Entity<?> entity : createdEntities) {
+            if (entity.createdFrom != null) {
+                currentWorldState.initEntityState(entity, entity.createdFrom.getValues());
+            }
+        }
+
+        for (int i = 0; i < orderedStates.size(); i++) {
+            WorldState nextWorldState = orderedStates.get(i);
+            WorldState worldStateDiff = updateBuilder.get(i);
+            worldStateDiff.reset(nextWorldState.getFrameTime());
+            if (parallelThreshold > 0 && nextWorldState.getEntityStateMap().size() >= parallelThreshold) {
+                nextWorldState.diffFromOtherWorldStateInParallel(currentWorldState, worldStateDiff);
+            } else {
+                nextWorldState.diffFromOtherWorldState(currentWorldState, worldStateDiff);
+            }
             currentWorldState.updateAllEntities(nextWorldState);
         }
 
-        Optional<String> update = gameSerializer.serializeWorldDiff(updateBuilder);
+        String frameData = gameSerializer.serializeFrame(spriteSheets, createdEntities, updateBuilder, disposed);
+        forgetDisposedEntities(disposed);
+        return frameData;
+    }
 
+    private void awaitPendingFrame() {
+        if (pendingFrame == null) {
+            return;
+        }
+        pendingFrame.join();
+        freeWorldStates.addAll(pendingWorldStates);
+        pendingFrame = null;
+        pendingWorldStates = null;
+    }
+
+    private void forgetDisposedEntities(List<Entity<?>> disposed) {
+        for (Entity<?> entity : disposed) {
+            currentWorldState.removeEntityState(entity);
+        }
+    }
+
+    private WorldState obtainWorldState(String t) {
+        WorldState state = freeWorldStates.poll();
+        if (state == null) {
+            return new WorldState(t);
+        }
+        state.reset(t);
+        return state;
+    }
+
+    private void releaseWorldStates() {
+        freeWorldStates.addAll(worldStates.values());
         worldStates.clear();
-        gameManager.setViewData(
-            "entitymodule",
-            Stream.of(load, create, update)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.joining("\n"))
-        );
     }
 
     private void autocommit() {
-        WorldState state = worldStates.computeIfAbsent("1", (key) -> new WorldState("1"));
+        WorldState state = worldStates.computeIfAbsent("1", this::obtainWorldState);
         state.markAsWorldCommit();
-        state.flushMissingEntities(entities);
+        flushDirtyEntities(state, true);
     }
 
     /**
@@ -385,10 +660,107 @@ public class GraphicEntityModule implements Module {
         return c;
     }
 
+    /**
+     * Creates a new Tilemap entity, its graphical counterpart will be created on the frame currently being computed.
+     * <p>
+     * A Tilemap displays a whole grid of tiles as a single entity.
+     * </p>
+     * 
+     * @return the entity. Modify its properties to animate the graphical counterpart.
+     */
+    public Tilemap createTilemap() {
+        Tilemap c = new Tilemap();
+        newEntity(c);
+        return c;
+    }
+
+    /**
+     * Creates a new InstancedSprite entity, its graphical counterpart will be created on the frame currently being computed.
+     * <p>
+     * An InstancedSprite displays many lightweight copies of a sprite, such as bullets or particles, as a single entity.
+     * </p>
+     * 
+     * @return the entity. Modify its properties to animate the graphical counterpart.
+     */
+    public InstancedSprite createInstancedSprite() {
+        InstancedSprite c = new InstancedSprite();
+        newEntity(c);
+        return c;
+    }
+
+    /**
+     * Creates a template for entities of the given type, to create many entities sharing the same initial properties with
+     * <code>createFromTemplate</code>.
+     * <p>
+     * Example:
+     * <code>EntityTemplate&lt;Sprite&gt; cell = graphicEntityModule.createTemplate(Sprite.class, sprite -&gt; sprite.setImage("cell.png").setAnchor(0.5));</code>
+     * </p>
+     * 
+     * @param <T>
+     *            the type of the entities created from the template.
+     * @param type
+     *            the class of the entities: <code>Circle</code>, <code>Line</code>, <code>Rectangle</code>, <code>RoundedRectangle</code>,
+     *            <code>Polygon</code>, <code>Sprite</code>, <code>SpriteAnimation</code>, <code>TilingSprite</code>, <code>Text</code> or
+     *            <code>BitmapText</code>.
+     * @param setup
+     *            sets the properties shared by the entities. It is called once, on an entity that is never displayed.
+     * @return the template.
+     * @exception IllegalArgumentException
+     *                if no template can be created for the given type.
+     */
+    public <T extends Entity<?>> EntityTemplate<T> createTemplate(Class<T> type, Consumer<? super T> setup) {
+        Supplier<Entity<?>> constructor = TEMPLATE_CONSTRUCTORS.get(type);
+        if (constructor == null) {
+            throw new IllegalArgumentException("Cannot create a template of " + type.getSimpleName());
+        }
+        T model = type.cast(constructor.get());
+        setup.accept(model);
+        return new EntityTemplate<>(model);
+    }
+
+    /**
+     * Creates entities with the properties of the given template, their graphical counterparts will be created on the frame currently being
+     * computed.
+     * <p>
+     * The properties of the template are sent once for all the entities created from it during a frame, only the changes made to each entity
+     * afterwards are sent for that entity.
+     * </p>
+     * 
+     * @param <T>
+     *            the type of the entities.
+     * @param template
+     *            the template holding the initial properties of the entities.
+     * @param count
+     *            the number of entities to create.
+     * @return the entities, in order of creation. Modify their properties to animate the graphical counterparts.
+     * @exception IllegalArgumentException
+     *                if count is negative.
+     */
+    public <T extends Entity<?>> List<T> createFromTemplate(EntityTemplate<T> template, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Not a valid entity count: " + count);
+        }
+        List<T> created = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            T e = template.newInstance();
+            e.createdFrom = template;
+            registerEntity(e);
+            created.add(e);
+        }
+        return created;
+    }
+
     private void newEntity(Entity<?> e) {
+        registerEntity(e);
+        dirtyEntities.add(e);
+    }
+
+    private void registerEntity(Entity<?> e) {
+        e.id = ++entityCount;
         lockWorld = true;
         entities.add(e);
         newEntities.add(e);
+        e.dirtyEntities = dirtyEntities;
     }
 
     private void sendGlobalData() {
@@ -409,6 +781,10 @@ public class GraphicEntityModule implements Module {
 
     @Override
     public final void onAfterOnEnd() {
+        if (frameExecutor != null) {
+            // The last frame is still collected by the game manager
+            frameExecutor.shutdown();
+        }
     }
 
 }
@@ -0,0 +1,35 @@
+package com.codingame.gameengine.module.entities;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Splits entities sorted by id into contiguous ranges of ids, to be processed in parallel on the common fork/join pool.
+ * <p>
+ * The ranges only depend on the number of entities and the parallelism of the pool: the results of the ranges must be combined in range order
+ * so that they do not depend on the threads that computed them.
+ * </p>
+ */
+final class IdRanges {
+    // Below this size, a range is not worth a task
+    private static final int MIN_RANGE_SIZE = 256;
+    // More ranges than threads, so that a slow range does not leave the other threads idle
+    private static final int RANGES_PER_THREAD = 4;
+
+    private IdRanges() {
+    }
+
+    /**
+     * @return the number of ranges to split the given number of entities into, at least 1.
+     */
+    static int count(int size) {
+        int ranges = ForkJoinPool.getCommonPoolParallelism() * RANGES_PER_THREAD;
+        return Math.max(1, Math.min(ranges, size / MIN_RANGE_SIZE));
+    }
+
+    /**
+     * @return the index of the first entity of the given range, or the number of entities for the range after the last one.
+     */
+    static int start(int range, int count, int size) {
+        return (int) ((long) size * range / count);
+    }
+}
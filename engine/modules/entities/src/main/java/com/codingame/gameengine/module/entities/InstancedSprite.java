@@ -0,0 +1,379 @@
+package com.codingame.gameengine.module.entities;
+
+import java.util.Arrays;
+
+/**
+ * An InstancedSprite is a graphical entity which displays many lightweight copies of a sprite, such as bullets or particles, called instances.
+ * <p>
+ * Each instance has its own position, rotation, alpha, tint and image, chosen among the images of the entity. The instances are not entities:
+ * they are stored in arrays of the <code>InstancedSprite</code> and only the changed fields of the changed instances are sent to the viewer,
+ * which renders all of them in a single particle container. They are committed along with their entity and their position, rotation and alpha
+ * are animated between commits.
+ * </p>
+ */
+public class InstancedSprite extends Entity<InstancedSprite> {
+
+    private String[] images = new String[] {};
+    private double anchorX = 0, anchorY = 0;
+    private int instanceCount;
+    private int[] xs = new int[0], ys = new int[0], tints = new int[0], imageIndexes = new int[0];
+    private double[] rotations = new double[0], alphas = new double[0];
+
+    InstancedSprite() {
+        super();
+    }
+
+    @Override
+    Entity.Type getType() {
+        return Entity.Type.INSTANCED_SPRITE;
+    }
+
+    /**
+     * Sets the images the instances can display. The image of an instance is an index in this list.
+     * 
+     * @param images
+     *            the names of the images.
+     * @return this <code>InstancedSprite</code>.
+     * @exception IllegalArgumentException
+     *                if images is empty.
+     */
+    public InstancedSprite setImages(String... images) {
+        if (images.length == 0) {
+            throw new IllegalArgumentException("An InstancedSprite must have at least 1 image.");
+        }
+        this.images = images;
+        set(Property.IMAGES, String.join(",", images), null);
+        return this;
+    }
+
+    /**
+     * Returns the names of the images the instances can display.
+     * 
+     * @return the names of the images.
+     */
+    public String[] getImages() {
+        return images;
+    }
+
+    /**
+     * Sets both the X and Y anchors of the instances as a percentage of their width and height.
+     * <p>
+     * The point calculated by the anchors times the size of an instance is its origin for positioning and rotation.
+     * </p>
+     * <p>
+     * Default is 0.
+     * </p>
+     * 
+     * @param anchor
+     *            the percentage for both anchors of the instances.
+     * @return this <code>InstancedSprite</code>.
+     */
+    public InstancedSprite setAnchor(double anchor) {
+        return setAnchor(anchor, anchor);
+    }
+
+    /**
+     * Sets the X and Y anchors of the instances as a percentage of their width and height.
+     * <p>
+     * The point calculated by the anchors times the size of an instance is its origin for positioning and rotation.
+     * </p>
+     * <p>
+     * Default is 0.
+     * </p>
+     * 
+     * @param anchorX
+     *            the X anchor of the instances.
+     * @param anchorY
+     *            the Y anchor of the instances.
+     * @return this <code>InstancedSprite</code>.
+     */
+    public InstancedSprite setAnchor(double anchorX, double anchorY) {
+        this.anchorX = anchorX;
+        this.anchorY = anchorY;
+        set(Property.ANCHOR_X, anchorX, null);
+        set(Property.ANCHOR_Y, anchorY, null);
+        return this;
+    }
+
+    /**
+     * Returns the X anchor of the instances as a percentage of their width.
+     * 
+     * @return the X anchor of the instances.
+     */
+    public double getAnchorX() {
+        return anchorX;
+    }
+
+    /**
+     * Returns the Y anchor of the instances as a percentage of their height.
+     * 
+     * @return the Y anchor of the instances.
+     */
+    public double getAnchorY() {
+        return anchorY;
+    }
+
+    /**
+     * Sets the number of instances. Instances are added or removed at the end: the instances that are kept are not changed.
+     * <p>
+     * A new instance is at (0, 0), with no rotation, an alpha of 1, no tint and the first image.
+     * </p>
+     * 
+     * @param instanceCount
+     *            the number of instances.
+     * @return this <code>InstancedSprite</code>.
+     * @exception IllegalArgumentException
+     *                if instanceCount is negative.
+     */
+    public InstancedSprite setInstanceCount(int instanceCount) {
+        if (instanceCount < 0) {
+            throw new IllegalArgumentException("Not a valid instance count: " + instanceCount);
+        }
+        if (instanceCount > xs.length) {
+            int capacity = Math.max(instanceCount, xs.length * 2);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            tints = Arrays.copyOf(tints, capacity);
+            imageIndexes = Arrays.copyOf(imageIndexes, capacity);
+            rotations = Arrays.copyOf(rotations, capacity);
+            alphas = Arrays.copyOf(alphas, capacity);
+        }
+
+        // All the fields of the new instances are sent, the viewer may still hold values of previously removed instances
+        InstancesDelta delta = instanceCount > this.instanceCount ? getInstancesDelta() : null;
+        for (int i = this.instanceCount; i < instanceCount; i++) {
+            xs[i] = 0;
+            ys[i] = 0;
+            rotations[i] = 0;
+            alphas[i] = 1;
+            tints[i] = 0xFFFFFF;
+            imageIndexes[i] = 0;
+            delta.setX(i, 0);
+            delta.setY(i, 0);
+            delta.setRotation(i, 0);
+            delta.setAlpha(i, 1);
+            delta.setTint(i, 0xFFFFFF);
+            delta.setImage(i, 0);
+        }
+        this.instanceCount = instanceCount;
+        set(Property.INSTANCE_COUNT, instanceCount, null);
+        return this;
+    }
+
+    /**
+     * Returns the number of instances.
+     * 
+     * @return the number of instances.
+     */
+    public int getInstanceCount() {
+        return instanceCount;
+    }
+
+    /**
+     * Sets the position of an instance in world units, relative to this <code>InstancedSprite</code>.
+     * 
+     * @param index
+     *            the index of the instance.
+     * @param x
+     *            the X coordinate of the instance.
+     * @param y
+     *            the Y coordinate of the instance.
+     * @return this <code>InstancedSprite</code>.
+     * @exception IllegalArgumentException
+     *                if there is no instance at the given index.
+     */
+    public InstancedSprite setInstancePosition(int index, int x, int y) {
+        requireValidIndex(index);
+        if (xs[index] != x) {
+            xs[index] = x;
+            getInstancesDelta().setX(index, x);
+        }
+        if (ys[index] != y) {
+            ys[index] = y;
+            getInstancesDelta().setY(index, y);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the rotation of an instance in radians.
+     * 
+     * @param index
+     *            the index of the instance.
+     * @param rotation
+     *            the rotation of the instance.
+     * @return this <code>InstancedSprite</code>.
+     * @exception IllegalArgumentException
+     *                if there is no instance at the given index.
+     */
+    public InstancedSprite setInstanceRotation(int index, double rotation) {
+        requireValidIndex(index);
+        if (rotations[index] != rotation) {
+            rotations[index] = rotation;
+            getInstancesDelta().setRotation(index, rotation);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the alpha of an instance as a percentage of opacity.
+     * 
+     * @param index
+     *            the index of the instance.
+     * @param alpha
+     *            the alpha of the instance, from 0 to 1.
+     * @return this <code>InstancedSprite</code>.
+     * @exception IllegalArgumentException
+     *                if there is no instance at the given index or alpha is not between 0 and 1.
+     */
+    public InstancedSprite setInstanceAlpha(int index, double alpha) {
+        requireValidIndex(index);
+        requireValidAlpha(alpha);
+        if (alphas[index] != alpha) {
+            alphas[index] = alpha;
+            getInstancesDelta().setAlpha(index, alpha);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the tint of an instance as an RGB integer.
+     * 
+     * @param index
+     *            the index of the instance.
+     * @param color
+     *            the tint of the instance. 0xFFFFFF means no tint.
+     * @return this <code>InstancedSprite</code>.
+     * @exception IllegalArgumentException
+     *                if there is no instance at the given index or color is not a valid RGB integer.
+     */
+    public InstancedSprite setInstanceTint(int index, int color) {
+        requireValidIndex(index);
+        requireValidColor(color);
+        if (tints[index] != color) {
+            tints[index] = color;
+            getInstancesDelta().setTint(index, color);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the image displayed by an instance.
+     * 
+     * @param index
+     *            the index of the instance.
+     * @param image
+     *            the index of the image in the images of this <code>InstancedSprite</code>.
+     * @return this <code>InstancedSprite</code>.
+     * @exception IllegalArgumentException
+     *                if there is no instance at the given index or image is negative.
+     */
+    public InstancedSprite setInstanceImage(int index, int image) {
+        requireValidIndex(index);
+        if (image < 0) {
+            throw new IllegalArgumentException("Not a valid image index: " + image);
+        }
+        if (imageIndexes[index] != image) {
+            imageIndexes[index] = image;
+            getInstancesDelta().setImage(index, image);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the X coordinate of an instance in world units.
+     * 
+     * @param index
+     *            the index of the instance.
+     * @return the X coordinate of the instance.
+     * @exception IllegalArgumentException
+     *                if there is no instance at the given index.
+     */
+    public int getInstanceX(int index) {
+        requireValidIndex(index);
+        return xs[index];
+    }
+
+    /**
+     * Returns the Y coordinate of an instance in world units.
+     * 
+     * @param index
+     *            the index of the instance.
+     * @return the Y coordinate of the instance.
+     * @exception IllegalArgumentException
+     *                if there is no instance at the given index.
+     */
+    public int getInstanceY(int index) {
+        requireValidIndex(index);
+        return ys[index];
+    }
+
+    /**
+     * Returns the rotation of an instance in radians.
+     * 
+     * @param index
+     *            the index of the instance.
+     * @return the rotation of the instance.
+     * @exception IllegalArgumentException
+     *                if there is no instance at the given index.
+     */
+    public double getInstanceRotation(int index) {
+        requireValidIndex(index);
+        return rotations[index];
+    }
+
+    /**
+     * Returns the alpha of an instance.
+     * 
+     * @param index
+     *            the index of the instance.
+     * @return the alpha of the instance.
+     * @exception IllegalArgumentException
+     *                if there is no instance at the given index.
+     */
+    public double getInstanceAlpha(int index) {
+        requireValidIndex(index);
+        return alphas[index];
+    }
+
+    /**
+     * Returns the tint of an instance.
+     * 
+     * @param index
+     *            the index of the instance.
+     * @return the tint of the instance.
+     * @exception IllegalArgumentException
+     *                if there is no instance at the given index.
+     */
+    public int getInstanceTint(int index) {
+        requireValidIndex(index);
+        return tints[index];
+    }
+
+    /**
+     * Returns the index of the image displayed by an instance.
+     * 
+     * @param index
+     *            the index of the instance.
+     * @return the index of the image of the instance.
+     * @exception IllegalArgumentException
+     *                if there is no instance at the given index.
+     */
+    public int getInstanceImage(int index) {
+        requireValidIndex(index);
+        return imageIndexes[index];
+    }
+
+    private void requireValidIndex(int index) {
+        if (index < 0 || index >= instanceCount) {
+            throw new IllegalArgumentException("No instance at index " + index);
+        }
+    }
+
+    private InstancesDelta getInstancesDelta() {
+        if (!state.isSet(Property.INSTANCES_DELTA)) {
+            set(Property.INSTANCES_DELTA, new InstancesDelta(), null);
+        }
+        return (InstancesDelta) state.getObject(Property.INSTANCES_DELTA);
+    }
+}
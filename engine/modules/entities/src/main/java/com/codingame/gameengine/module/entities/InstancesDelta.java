@@ -0,0 +1,140 @@
+package com.codingame.gameengine.module.entities;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The instances of an <code>InstancedSprite</code> changed since its last commit, with the new values of their changed fields.
+ * <p>
+ * It is sent as comma separated blocks, one per changed instance: the index of the instance, a bitmask of its changed fields, then the value of
+ * each changed field in the order of the bits. Rotations are sent in whole degrees.
+ * </p>
+ */
+class InstancesDelta implements PropertyDelta {
+    static final int X = 1, Y = 2, ROTATION = 4, ALPHA = 8, TINT = 16, IMAGE = 32;
+    static final int ALL = X | Y | ROTATION | ALPHA | TINT | IMAGE;
+
+    private final BitSet changed = new BitSet();
+    private int[] fields = new int[0];
+    private int[] xs = new int[0], ys = new int[0], tints = new int[0], images = new int[0];
+    private double[] rotations = new double[0], alphas = new double[0];
+
+    void setX(int index, int x) {
+        ensureCapacity(index);
+        xs[index] = x;
+        markChanged(index, X);
+    }
+
+    void setY(int index, int y) {
+        ensureCapacity(index);
+        ys[index] = y;
+        markChanged(index, Y);
+    }
+
+    void setRotation(int index, double rotation) {
+        ensureCapacity(index);
+        rotations[index] = rotation;
+        markChanged(index, ROTATION);
+    }
+
+    void setAlpha(int index, double alpha) {
+        ensureCapacity(index);
+        alphas[index] = alpha;
+        markChanged(index, ALPHA);
+    }
+
+    void setTint(int index, int tint) {
+        ensureCapacity(index);
+        tints[index] = tint;
+        markChanged(index, TINT);
+    }
+
+    void setImage(int index, int image) {
+        ensureCapacity(index);
+        images[index] = image;
+        markChanged(index, IMAGE);
+    }
+
+    private void markChanged(int index, int field) {
+        fields[index] |= field;
+        changed.set(index);
+    }
+
+    private void ensureCapacity(int index) {
+        if (index < fields.length) {
+            return;
+        }
+        int capacity = Math.max(index + 1, fields.length * 2);
+        fields = Arrays.copyOf(fields, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        tints = Arrays.copyOf(tints, capacity);
+        images = Arrays.copyOf(images, capacity);
+        rotations = Arrays.copyOf(rotations, capacity);
+        alphas = Arrays.copyOf(alphas, capacity);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return changed.isEmpty();
+    }
+
+    @Override
+    public PropertyDelta then(PropertyDelta next) {
+        InstancesDelta other = (InstancesDelta) next;
+        for (int i = other.changed.nextSetBit(0); i >= 0; i = other.changed.nextSetBit(i + 1)) {
+            int otherFields = other.fields[i];
+            if ((otherFields & X) != 0) {
+                setX(i, other.xs[i]);
+            }
+            if ((otherFields & Y) != 0) {
+                setY(i, other.ys[i]);
+            }
+            if ((otherFields & ROTATION) != 0) {
+                setRotation(i, other.rotations[i]);
+            }
+            if ((otherFields & ALPHA) != 0) {
+                setAlpha(i, other.alphas[i]);
+            }
+            if ((otherFields & TINT) != 0) {
+                setTint(i, other.tints[i]);
+            }
+            if ((otherFields & IMAGE) != 0) {
+                setImage(i, other.images[i]);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public void appendTo(StringBuilder sb) {
+        boolean first = true;
+        for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            int changedFields = fields[i];
+            sb.append(i).append(',').append(changedFields);
+            if ((changedFields & X) != 0) {
+                sb.append(',').append(xs[i]);
+            }
+            if ((changedFields & Y) != 0) {
+                sb.append(',').append(ys[i]);
+            }
+            if ((changedFields & ROTATION) != 0) {
+                sb.append(',').append((int) Math.toDegrees(rotations[i]));
+            }
+            if ((changedFields & ALPHA) != 0) {
+                sb.append(',');
+                NumberFormatter.append(sb, alphas[i]);
+            }
+            if ((changedFields & TINT) != 0) {
+                sb.append(',').append(tints[i]);
+            }
+            if ((changedFields & IMAGE) != 0) {
+                sb.append(',').append(images[i]);
+            }
+        }
+    }
+}
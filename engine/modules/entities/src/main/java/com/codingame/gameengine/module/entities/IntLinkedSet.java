@@ -0,0 +1,164 @@
+package com.codingame.gameengine.module.entities;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A set of strictly positive ints, such as entity ids, iterated in insertion order and stored in primitive arrays.
+ * <p>
+ * The values are kept in insertion order in an array, where removed values leave a hole until the array is compacted. An open addressing hash
+ * table maps each value to its index in that array.
+ * </p>
+ */
+class IntLinkedSet {
+    private static final int REMOVED = 0;
+
+    private int[] values;
+    private int end;
+    private int size;
+    // Index in values + 1 of the value hashed there, or 0 for an empty slot
+    private int[] slots;
+
+    IntLinkedSet() {
+        values = new int[4];
+        slots = new int[8];
+    }
+
+    IntLinkedSet(IntLinkedSet other) {
+        values = Arrays.copyOf(other.values, other.values.length);
+        slots = Arrays.copyOf(other.slots, other.slots.length);
+        end = other.end;
+        size = other.size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int value) {
+        return find(value) >= 0;
+    }
+
+    /**
+     * Adds the value at the end of the set if it is not already in it.
+     *
+     * @return true if the value was added
+     * @exception IllegalArgumentException
+     *                if the value is not strictly positive
+     */
+    boolean add(int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("Not a strictly positive value: " + value);
+        }
+        if (find(value) >= 0) {
+            return false;
+        }
+        if (end == values.length) {
+            if (size <= end / 2) {
+                compact();
+            } else {
+                values = Arrays.copyOf(values, end * 2);
+            }
+        }
+        if ((size + 1) * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        values[end++] = value;
+        insertSlot(value, end);
+        size++;
+        return true;
+    }
+
+    /**
+     * @return true if the value was in the set
+     */
+    boolean remove(int value) {
+        int slot = find(value);
+        if (slot < 0) {
+            return false;
+        }
+        values[slots[slot] - 1] = REMOVED;
+        deleteSlot(slot);
+        size--;
+        if (size == 0) {
+            end = 0;
+        }
+        return true;
+    }
+
+    void clear() {
+        Arrays.fill(slots, 0);
+        end = 0;
+        size = 0;
+    }
+
+    void forEach(IntConsumer action) {
+        for (int i = 0; i < end; i++) {
+            if (values[i] != REMOVED) {
+                action.accept(values[i]);
+            }
+        }
+    }
+
+    private static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int find(int value) {
+        int mask = slots.length - 1;
+        for (int i = hash(value) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            if (values[slots[i] - 1] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void insertSlot(int value, int index) {
+        int mask = slots.length - 1;
+        int i = hash(value) & mask;
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = index;
+    }
+
+    private void deleteSlot(int hole) {
+        // Shift back the following entries of the probe sequence so that no lookup stops at the hole
+        int mask = slots.length - 1;
+        for (int i = (hole + 1) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            int home = hash(values[slots[i] - 1]) & mask;
+            boolean reachableFromHole = hole <= i ? (home <= hole || home > i) : (home <= hole && home > i);
+            if (reachableFromHole) {
+                slots[hole] = slots[i];
+                hole = i;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    private void compact() {
+        int count = 0;
+        for (int i = 0; i < end; i++) {
+            if (values[i] != REMOVED) {
+                values[count++] = values[i];
+            }
+        }
+        end = count;
+        rehash(slots.length);
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        for (int i = 0; i < end; i++) {
+            if (values[i] != REMOVED) {
+                insertSlot(values[i], i + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.codingame.gameengine.module.entities;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Formats decimal numbers exactly like <code>new DecimalFormat("0.######")</code> with a '.' separator: rounded half-even to at most 6
+ * fraction digits, with no trailing zeros and no grouping.
+ * <p>
+ * Usual values are formatted with integer arithmetic straight into a <code>StringBuilder</code>. The rare values whose rounding cannot be
+ * decided that way, such as near-ties or very large numbers, go through <code>BigDecimal</code>. The formatter holds no state: it is safe to
+ * use from any thread.
+ * </p>
+ */
+final class NumberFormatter {
+    private static final int FRACTION_DIGITS = 6;
+    private static final long[] POWERS_OF_TEN = { 1, 10, 100, 1_000, 10_000, 100_000, 1_000_000 };
+    private static final double SCALE = POWERS_OF_TEN[FRACTION_DIGITS];
+    // Below this magnitude, the scaled value is far from the precision limit of a double
+    private static final double FAST_PATH_LIMIT = 1e9;
+    // The value after the last kept digit, when the digits of a number are exactly halfway between two roundings
+    private static final BigDecimal HALF_UNIT = BigDecimal.valueOf(5, FRACTION_DIGITS + 1);
+
+    private NumberFormatter() {
+    }
+
+    static String format(double value) {
+        StringBuilder sb = new StringBuilder();
+        append(sb, value);
+        return sb.toString();
+    }
+
+    static void append(StringBuilder sb, double value) {
+        // Like DecimalFormat, negative values keep their sign even when rounded to zero
+        boolean negative = value < 0 || (value == 0 && 1 / value < 0);
+        if (Double.isNaN(value)) {
+            sb.append("NaN");
+            return;
+        }
+        if (negative) {
+            sb.append('-');
+        }
+        double magnitude = Math.abs(value);
+        if (magnitude == Double.POSITIVE_INFINITY) {
+            sb.append('\u221E');
+            return;
+        }
+        if (!(magnitude < FAST_PATH_LIMIT)) {
+            appendRounded(sb, magnitude);
+            return;
+        }
+
+        double scaled = magnitude * SCALE;
+        double floor = Math.floor(scaled);
+        double fraction = scaled - floor;
+        // The product is within an ulp of the exact value: close to a tie, round the exact value instead
+        if (Math.abs(fraction - 0.5) <= 2 * Math.ulp(scaled)) {
+            appendRounded(sb, magnitude);
+            return;
+        }
+        long units = (long) floor + (fraction > 0.5 ? 1 : 0);
+
+        sb.append(units / POWERS_OF_TEN[FRACTION_DIGITS]);
+
+        long fractionUnits = units % POWERS_OF_TEN[FRACTION_DIGITS];
+        if (fractionUnits != 0) {
+            int digits = FRACTION_DIGITS;
+            while (fractionUnits % 10 == 0) {
+                fractionUnits /= 10;
+                digits--;
+            }
+            sb.append('.');
+            for (int i = digits - 1; i >= 0; i--) {
+                sb.append((char) ('0' + fractionUnits / POWERS_OF_TEN[i] % 10));
+            }
+        }
+    }
+
+    /**
+     * Rounds the digits DecimalFormat starts from, those of <code>Double.toString</code>. When these digits are a tie, DecimalFormat rounds the
+     * exact binary value instead, which is either side of the tie or the tie itself.
+     */
+    private static void appendRounded(StringBuilder sb, double magnitude) {
+        BigDecimal digits = BigDecimal.valueOf(magnitude);
+        BigDecimal rounded = digits.setScale(FRACTION_DIGITS, RoundingMode.HALF_EVEN);
+        if (digits.subtract(rounded).abs().compareTo(HALF_UNIT) == 0) {
+            rounded = new BigDecimal(magnitude).setScale(FRACTION_DIGITS, RoundingMode.HALF_EVEN);
+        }
+        sb.append(rounded.stripTrailingZeros().toPlainString());
+    }
+}
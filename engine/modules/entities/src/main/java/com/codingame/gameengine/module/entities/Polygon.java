@@ -28,6 +28,13 @@ public class Polygon extends Shape<Polygon> {
         super();
     }
 
+    @Override
+    Polygon copy() {
+        Polygon copy = super.copy();
+        copy.points = new ArrayList<>(points);
+        return copy;
+    }
+
     /**
      * Adds a point to the path of this <code>Polygon</code>.
      * 
@@ -39,7 +46,7 @@ public class Polygon extends Shape<Polygon> {
      */
     public Polygon addPoint(int x, int y) {
         points.add(new Point(x, y));
-        set("points", asString(points));
+        set(Property.POINTS, asString(points), null);
         return this;
     }
 
@@ -50,7 +57,7 @@ public class Polygon extends Shape<Polygon> {
      */
     public Polygon clearPoints() {
         points.clear();
-        set("points", asString(points));
+        set(Property.POINTS, asString(points), null);
         return this;
     }
 
@@ -61,7 +68,7 @@ public class Polygon extends Shape<Polygon> {
      * @return this <code>Polygon</code>
      */
     public Polygon setPointsInterpolationCurve(Curve curve) {
-        set("points", asString(points), curve);
+        set(Property.POINTS, asString(points), curve);
         return this;
     }
 
@@ -0,0 +1,110 @@
+package com.codingame.gameengine.module.entities;
+
+/**
+ * The properties of the entities that can be sent to the viewer. The ordinal of a property is its slot in an <code>EntityState</code>.
+ */
+enum Property {
+    X("x", Kind.INT),
+    Y("y", Kind.INT),
+    Z_INDEX("zIndex", Kind.INT),
+    SCALE_X("scaleX", Kind.DOUBLE),
+    SCALE_Y("scaleY", Kind.DOUBLE),
+    SKEW_X("skewX", Kind.ANGLE),
+    SKEW_Y("skewY", Kind.ANGLE),
+    ALPHA("alpha", Kind.DOUBLE),
+    ROTATION("rotation", Kind.ANGLE),
+    VISIBLE("visible", Kind.BOOLEAN),
+    MASK("mask", Kind.INT),
+    CHILDREN_DELTA("childrenDelta", Kind.DELTA),
+    BLEND_MODE("blendMode", Kind.OBJECT),
+    RADIUS("radius", Kind.INT),
+    X2("x2", Kind.INT),
+    Y2("y2", Kind.INT),
+    WIDTH("width", Kind.INT),
+    HEIGHT("height", Kind.INT),
+    POINTS("points", Kind.OBJECT),
+    POINTS_SPLICE("pointsSplice", Kind.OBJECT),
+    FILL_COLOR("fillColor", Kind.INT),
+    FILL_ALPHA("fillAlpha", Kind.DOUBLE),
+    LINE_COLOR("lineColor", Kind.INT),
+    LINE_WIDTH("lineWidth", Kind.DOUBLE),
+    LINE_ALPHA("lineAlpha", Kind.DOUBLE),
+    IMAGE("image", Kind.OBJECT),
+    BASE_WIDTH("baseWidth", Kind.INT),
+    BASE_HEIGHT("baseHeight", Kind.INT),
+    SCALE_MODE("scaleMode", Kind.OBJECT),
+    ANCHOR_X("anchorX", Kind.DOUBLE),
+    ANCHOR_Y("anchorY", Kind.DOUBLE),
+    TINT("tint", Kind.INT),
+    IMAGES("images", Kind.OBJECT),
+    IMAGE_RANGE("imageRange", Kind.OBJECT),
+    RESTARTED("restarted", Kind.INT),
+    PLAYING("playing", Kind.BOOLEAN),
+    LOOP("loop", Kind.BOOLEAN),
+    DURATION("duration", Kind.INT),
+    TEXT("text", Kind.OBJECT),
+    TEXT_SPLICE("textSplice", Kind.OBJECT),
+    TEXT_ALIGN("textAlign", Kind.INT),
+    FONT_SIZE("fontSize", Kind.INT),
+    FONT_FAMILY("fontFamily", Kind.OBJECT),
+    FONT_WEIGHT("fontWeight", Kind.OBJECT),
+    MAX_WIDTH("maxWidth", Kind.INT),
+    STROKE_COLOR("strokeColor", Kind.INT),
+    STROKE_THICKNESS("strokeThickness", Kind.DOUBLE),
+    TILE_X("tileX", Kind.INT),
+    TILE_Y("tileY", Kind.INT),
+    TILE_SCALE_X("tileScaleX", Kind.DOUBLE),
+    TILE_SCALE_Y("tileScaleY", Kind.DOUBLE),
+    TILES("tiles", Kind.OBJECT),
+    COLUMNS("columns", Kind.INT),
+    ROWS("rows", Kind.INT),
+    TILE_WIDTH("tileWidth", Kind.INT),
+    TILE_HEIGHT("tileHeight", Kind.INT),
+    CELLS_DELTA("cellsDelta", Kind.DELTA),
+    INSTANCE_COUNT("instanceCount", Kind.INT),
+    INSTANCES_DELTA("instancesDelta", Kind.DELTA);
+
+    /**
+     * How the value of a property is stored and formatted.
+     */
+    enum Kind {
+        /** An integer, stored in the numeric slot. */
+        INT,
+        /** A decimal number, stored in the numeric slot. */
+        DOUBLE,
+        /** An angle in radians, stored in the numeric slot and sent in whole degrees. */
+        ANGLE,
+        /** A flag, stored in the numeric slot as 1 or 0. */
+        BOOLEAN,
+        /** Any other value, stored in the object slot and sent as its string form. */
+        OBJECT,
+        /** A <code>PropertyDelta</code>, stored in the object slot and sent whenever it is not empty. */
+        DELTA
+    }
+
+    static final Property[] VALUES = values();
+    static final int COUNT = VALUES.length;
+
+    static {
+        // The set properties of a state are tracked in a long
+        if (COUNT > Long.SIZE) {
+            throw new IllegalStateException("Too many entity properties");
+        }
+    }
+
+    private final String key;
+    private final Kind kind;
+
+    Property(String key, Kind kind) {
+        this.key = key;
+        this.kind = kind;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+}
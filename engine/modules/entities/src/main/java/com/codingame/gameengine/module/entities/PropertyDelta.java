@@ -0,0 +1,29 @@
+package com.codingame.gameengine.module.entities;
+
+/**
+ * A change to the value of a property that is sent instead of the whole value. The viewer applies it to the value it already has.
+ * <p>
+ * Deltas are not compared with the previous state of the entity: a non empty delta is always sent.
+ * </p>
+ */
+interface PropertyDelta {
+
+    boolean isEmpty();
+
+    /**
+     * Combines this delta with the one that follows it.
+     *
+     * @param next
+     *            a delta of the same type, applied after this one
+     * @return a delta equivalent to applying this delta then <code>next</code>, which may be this instance updated
+     */
+    PropertyDelta then(PropertyDelta next);
+
+    /**
+     * Appends the serialized form of this delta, without escaping.
+     *
+     * @param sb
+     *            the frame being serialized
+     */
+    void appendTo(StringBuilder sb);
+}
@@ -45,7 +45,7 @@ public class RoundedRectangle extends Shape<RoundedRectangle> {
      */
     public RoundedRectangle setWidth(int width, Curve curve) {
         this.width = width;
-        set("width", width, curve);
+        set(Property.WIDTH, width, curve);
         return this;
     }
 
@@ -88,7 +88,7 @@ public class RoundedRectangle extends Shape<RoundedRectangle> {
      */
     public RoundedRectangle setHeight(int height, Curve curve) {
         this.height = height;
-        set("height", height, curve);
+        set(Property.HEIGHT, height, curve);
         return this;
     }
 
@@ -117,7 +117,7 @@ public class RoundedRectangle extends Shape<RoundedRectangle> {
      */
     public RoundedRectangle setRadius(int radius, Curve curve) {
         this.radius = radius;
-        set("radius", radius, curve);
+        set(Property.RADIUS, radius, curve);
         return this;
     }
 
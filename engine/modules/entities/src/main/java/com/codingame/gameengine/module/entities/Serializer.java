@@ -1,32 +1,35 @@
 package com.codingame.gameengine.module.entities;
 
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
 
 import com.codingame.gameengine.module.entities.Entity.Type;
 import com.google.inject.Singleton;
 
 @Singleton
 class Serializer {
+    // Properties whose values are often repeated, sent through the string table
+    private static final Set<Property> INTERNED_PROPERTIES = EnumSet.of(
+        Property.IMAGE, Property.IMAGES, Property.SCALE_MODE, Property.FONT_FAMILY, Property.FONT_WEIGHT, Property.TEXT, Property.TILES
+    );
+    private static final char STRING_REFERENCE = '#';
+
     public Map<String, String> commands, keys, separators;
     Map<Entity.Type, String> types;
     Map<Curve, String> curves;
-    private static DecimalFormat decimalFormat;
-    static {
-        DecimalFormatSymbols otherSymbols = new DecimalFormatSymbols();
-        otherSymbols.setDecimalSeparator('.');
-        decimalFormat = new DecimalFormat("0.######");
-        decimalFormat.setGroupingUsed(false);
-        decimalFormat.setDecimalFormatSymbols(otherSymbols);
-    }
+    private final String[] minifiedKeys;
+    private final String createCommand, updateCommand, loadSpriteSheetCommand, destroyCommand, snapshotCommand;
+    private final String commandSeparator, argumentSeparator, commandTypeSeparator;
+    // Reused from one frame to the next
+    private final StringBuilder frame = new StringBuilder();
+    // The strings sent so far, by id. The viewer numbers them in the same order.
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final Output frameOutput = new Output(frame, false);
 
     Serializer() {
         keys = new HashMap<>();
@@ -50,8 +53,9 @@ class Serializer {
         keys.put("fontSize", "s");
         keys.put("fontWeight", "fw");
         keys.put("text", "T");
+        keys.put("textSplice", "Tp");
         keys.put("textAlign", "ta");
-        keys.put("children", "ch");
+        keys.put("childrenDelta", "cd");
         keys.put("scaleX", "sx");
         keys.put("scaleY", "sy");
         keys.put("anchorX", "ax");
@@ -68,6 +72,7 @@ class Serializer {
         keys.put("baseWidth", "bw");
         keys.put("baseHeight", "bh");
         keys.put("points", "ps");
+        keys.put("pointsSplice", "pp");
         keys.put("skewX", "kx");
         keys.put("skewY", "ky");
         keys.put("tileX", "tx");
@@ -75,11 +80,21 @@ class Serializer {
         keys.put("tileScaleX", "tsx");
         keys.put("tileScaleY", "tsy");
         keys.put("scaleMode", "sm");
+        keys.put("tiles", "tl");
+        keys.put("columns", "co");
+        keys.put("rows", "ro");
+        keys.put("tileWidth", "tw");
+        keys.put("tileHeight", "th");
+        keys.put("cellsDelta", "cc");
+        keys.put("instanceCount", "ic");
+        keys.put("instancesDelta", "in");
 
         commands = new HashMap<>();
         commands.put("CREATE", "C");
         commands.put("UPDATE", "U");
         commands.put("LOADSPRITESHEET", "L");
+        commands.put("DESTROY", "D");
+        commands.put("SNAPSHOT", "K");
 
         separators = new HashMap<>();
         separators.put("COMMAND", ";");
@@ -88,12 +103,13 @@ class Serializer {
         separators.put("COMMAND_TYPE", "\n");
 
         curves = new HashMap<>();
+        // Single byte codes, the viewer still reads the symbols of older replays
         curves.put(Curve.NONE, "_");
-        curves.put(Curve.IMMEDIATE, "Γ");
+        curves.put(Curve.IMMEDIATE, "!");
         curves.put(Curve.LINEAR, "/");
-        curves.put(Curve.EASE_IN, "🙖");
-        curves.put(Curve.EASE_OUT, "🙒");
-        curves.put(Curve.EASE_IN_AND_OUT, "∫");
+        curves.put(Curve.EASE_IN, "<");
+        curves.put(Curve.EASE_OUT, ">");
+        curves.put(Curve.EASE_IN_AND_OUT, "=");
         curves.put(Curve.ELASTIC, "~");
 
         types = new HashMap<>();
@@ -109,6 +125,22 @@ class Serializer {
         types.put(Type.SPRITEANIMATION, "A");
         types.put(Type.POLYGON, "P");
         types.put(Type.TILING_SPRITE, "D");
+        types.put(Type.TILEMAP, "M");
+        types.put(Type.INSTANCED_SPRITE, "I");
+
+        minifiedKeys = new String[Property.COUNT];
+        for (Property property : Property.VALUES) {
+            minifiedKeys[property.ordinal()] = keys.getOrDefault(property.getKey(), property.getKey());
+        }
+
+        createCommand = commands.get("CREATE");
+        updateCommand = commands.get("UPDATE");
+        loadSpriteSheetCommand = commands.get("LOADSPRITESHEET");
+        destroyCommand = commands.get("DESTROY");
+        snapshotCommand = commands.get("SNAPSHOT");
+        commandSeparator = separators.get("COMMAND");
+        argumentSeparator = separators.get("COMMAND_ARGUMENT");
+        commandTypeSeparator = separators.get("COMMAND_TYPE");
 
         if (keys.values().stream().distinct().count() != keys.values().size()) {
             throw new RuntimeException("Duplicate keys");
@@ -139,141 +171,312 @@ class Serializer {
 
     }
 
+    static String formatFrameTime(double t) {
+        return NumberFormatter.format(t);
+    }
+
+    static String escape(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        appendEscaped(sb, text);
+        return sb.toString();
+    }
+
     /**
-     * Join multiple object into a space separated string
+     * Appends the text, between single quotes and with its quotes escaped if it contains a character the viewer splits commands on.
      */
-    static private String join(Object... args) {
-        return Stream.of(args).map(String::valueOf).collect(Collectors.joining(" "));
+    private static void appendEscaped(StringBuilder sb, String text) {
+        boolean quoted = false;
+        for (int i = 0; i < text.length() && !quoted; i++) {
+            char c = text.charAt(i);
+            quoted = c == ' ' || c == ';' || c == '\n' || c == '\'';
+        }
+        if (!quoted) {
+            sb.append(text);
+            return;
+        }
+        sb.append('\'');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\'') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        sb.append('\'');
     }
 
-    static String formatFrameTime(double t) {
-        return decimalFormat.format(t);
+    /**
+     * Serializes the data of a frame of the entity module in a single pass: the sprite sheets to load, then the entities to create, then the
+     * updates of the entities, then the entities to destroy, each on their own line.
+     *
+     * @param spriteSheets
+     *            the sprite sheets loaded during the frame
+     * @param entities
+     *            the entities created during the frame
+     * @param diffs
+     *            the changes of the entities, one world state per frame instant, in order
+     * @param disposedEntities
+     *            the entities disposed during the frame
+     * @return the frame data, empty if there is nothing to send
+     */
+    String serializeFrame(
+        List<SpriteSheetSplitter> spriteSheets, List<Entity<?>> entities, List<WorldState> diffs, List<Entity<?>> disposedEntities
+    ) {
+        frame.setLength(0);
+        appendLoadSpriteSheets(spriteSheets);
+        appendCreateEntities(entities);
+        appendWorldDiff(diffs);
+        appendDestroyEntities(disposedEntities);
+        return frame.toString();
     }
 
-    static String escape(String text) {
-        if (text.contains(" ") || text.contains(";") || text.contains("\n") || text.contains("'")) {
-            String escaped = text.replaceAll("\\'", "\\\\'");
-            return "'" + escaped + "'";
+    /**
+     * A snapshot is a bare marker: the viewer already knows the state of every entity at the end of the frame, it only needs to know where it
+     * can stop looking back for it.
+     *
+     * @return the snapshot of the current frame
+     */
+    String serializeSnapshot() {
+        return snapshotCommand;
+    }
+
+    private void startCommandType(String command) {
+        if (frame.length() > 0) {
+            frame.append(commandTypeSeparator);
         }
-        return text;
+        frame.append(command);
     }
 
-    private String serializeEntitiesStateDiff(Entity<?> entity, EntityState diff, String frameInstant) {
-        String meta = join(
-            entity.getId(),
-            frameInstant
-        );
-        if (diff.isEmpty()) {
-            return meta;
+    private void appendLoadSpriteSheets(List<SpriteSheetSplitter> spriteSheets) {
+        if (spriteSheets.isEmpty()) {
+            return;
+        }
+        startCommandType(loadSpriteSheetCommand);
+        for (int i = 0; i < spriteSheets.size(); i++) {
+            if (i > 0) {
+                frame.append(commandSeparator);
+            }
+            SpriteSheetSplitter spriteSheet = spriteSheets.get(i);
+            frame.append(spriteSheet.getName())
+                .append(argumentSeparator).append(spriteSheet.getSourceImage())
+                .append(argumentSeparator).append(spriteSheet.getWidth())
+                .append(argumentSeparator).append(spriteSheet.getHeight())
+                .append(argumentSeparator).append(spriteSheet.getOrigRow())
+                .append(argumentSeparator).append(spriteSheet.getOrigCol())
+                .append(argumentSeparator).append(spriteSheet.getImageCount())
+                .append(argumentSeparator).append(spriteSheet.getImagesPerRow());
         }
-        return join(
-            meta,
-            minifyDiff(diff)
-        );
     }
 
-    private String minifyParam(String key, EntityState.Param param) {
-        String result;
+    private void appendCreateEntities(List<Entity<?>> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        startCommandType(createCommand);
+        int i = 0;
+        while (i < entities.size()) {
+            if (i > 0) {
+                frame.append(commandSeparator);
+            }
+            Entity<?> entity = entities.get(i);
+            frame.append(types.get(entity.getType()));
+            i++;
 
-        if (key.equals("rotation") || key.equals("skewX") || key.equals("skewY")) {
-            result = String.valueOf((int) Math.toDegrees((double) param.value));
-        } else if (param.value instanceof Double) {
-            result = decimalFormat.format(param.value);
-        } else if (param.value instanceof Boolean) {
-            result = (boolean) param.value ? "1" : "0";
-        } else {
-            result = escape(param.value.toString());
+            EntityTemplate<?> template = entity.createdFrom;
+            if (template != null) {
+                // Consecutive entities from the same template are created by one command, along with the values of the template
+                int count = 1;
+                while (i < entities.size() && entities.get(i).createdFrom == template) {
+                    count++;
+                    i++;
+                }
+                frame.append(argumentSeparator).append(count);
+                EntityState values = template.getValues();
+                for (long bits = values.getSetProperties(); bits != 0; bits &= bits - 1) {
+                    Property property = Property.VALUES[Long.numberOfTrailingZeros(bits)];
+                    frame.append(argumentSeparator).append(minifiedKeys[property.ordinal()]).append(argumentSeparator);
+                    appendValue(frameOutput, property, values);
+                }
+            }
         }
+    }
 
-        // We don't send the default curve, it will be implied.
-        if (param.curve.equals(Curve.DEFAULT)) {
-            return result;
+    private void appendDestroyEntities(List<Entity<?>> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        startCommandType(destroyCommand);
+        for (int i = 0; i < entities.size(); i++) {
+            if (i > 0) {
+                frame.append(commandSeparator);
+            }
+            frame.append(entities.get(i).getId());
         }
-        return join(result, curves.get(param.curve));
     }
 
-    private String minifyKey(String key) {
-        return keys.getOrDefault(key, key);
+    private void appendWorldDiff(List<WorldState> diffs) {
+        boolean first = true;
+        for (WorldState worldDiff : diffs) {
+            List<Entity<?>> entitiesById = worldDiff.getEntitiesById();
+            if (entitiesById != null) {
+                for (Output output : serializeInParallel(worldDiff, entitiesById)) {
+                    if (output.sb.length() == 0) {
+                        continue;
+                    }
+                    if (first) {
+                        startCommandType(updateCommand);
+                        first = false;
+                    } else {
+                        frame.append(commandSeparator);
+                    }
+                    appendOutput(output);
+                }
+                continue;
+            }
+            // In id order like the parallel diffs, as the order of the map depends on the hash codes of the entities
+            Map<Entity<?>, EntityState> entityDiffs = worldDiff.getEntityStateMap();
+            for (Entity<?> entity : worldDiff.getEntitiesSortedById()) {
+                if (first) {
+                    startCommandType(updateCommand);
+                    first = false;
+                } else {
+                    frame.append(commandSeparator);
+                }
+                appendEntityStateDiff(frameOutput, entity, entityDiffs.get(entity), worldDiff.getFrameTime());
+            }
+        }
     }
 
-    private String minifyDiff(EntityState diff) {
-        return diff.entrySet().stream()
-            .map((entry) -> join(minifyKey(entry.getKey()), minifyParam(entry.getKey(), entry.getValue())))
-            .collect(Collectors.joining(separators.get("COMMAND_ARGUMENT")));
+    /**
+     * Serializes each range of ids of a diff made in parallel on the common fork/join pool. The strings the string table does not hold yet are
+     * left out, to be added in id order along with the outputs.
+     *
+     * @return the outputs of the ranges, in id order
+     */
+    private Output[] serializeInParallel(WorldState worldDiff, List<Entity<?>> entitiesById) {
+        Map<Entity<?>, EntityState> diffs = worldDiff.getEntityStateMap();
+        int ranges = IdRanges.count(entitiesById.size());
+        return IntStream.range(0, ranges).parallel().mapToObj(range -> {
+            Output output = new Output(new StringBuilder(), true);
+            int end = IdRanges.start(range + 1, ranges, entitiesById.size());
+            for (int i = IdRanges.start(range, ranges, entitiesById.size()); i < end; i++) {
+                if (output.sb.length() > 0) {
+                    output.sb.append(commandSeparator);
+                }
+                Entity<?> entity = entitiesById.get(i);
+                appendEntityStateDiff(output, entity, diffs.get(entity), worldDiff.getFrameTime());
+            }
+            return output;
+        }).toArray(Output[]::new);
     }
 
-    private String serializeCreateEntity(Entity<?> e) {
-        return join(
-            types.get(e.getType())
-        );
+    /**
+     * Appends the output of a range of ids to the frame, along with the strings left out of it.
+     */
+    private void appendOutput(Output output) {
+        int start = 0;
+        for (int i = 0; i < output.newStrings.size(); i++) {
+            int position = output.newStringPositions.get(i);
+            frame.append(output.sb, start, position);
+            appendInterned(frame, output.newStrings.get(i));
+            start = position;
+        }
+        frame.append(output.sb, start, output.sb.length());
     }
 
-    public Optional<String> serializeCreateEntities(List<Entity<?>> entities) {
-        if (entities.isEmpty()) {
-            return Optional.empty();
-        } else {
-            return Optional.of(
-                commands.get("CREATE") + entities.stream()
-                    .map(e -> serializeCreateEntity(e))
-                    .collect(Collectors.joining(separators.get("COMMAND")))
-            );
+    private void appendEntityStateDiff(Output output, Entity<?> entity, EntityState diff, String frameInstant) {
+        output.sb.append(entity.getId()).append(argumentSeparator).append(frameInstant);
+        for (long bits = diff.getSetProperties(); bits != 0; bits &= bits - 1) {
+            Property property = Property.VALUES[Long.numberOfTrailingZeros(bits)];
+            output.sb.append(argumentSeparator).append(minifiedKeys[property.ordinal()]).append(argumentSeparator);
+            appendParam(output, property, diff);
         }
     }
 
-    private String serializeLoadSpriteSheet(SpriteSheetSplitter spriteSheet) {
-        return join(
-            spriteSheet.getName(), spriteSheet.getSourceImage(), spriteSheet.getWidth(), spriteSheet.getHeight(),
-            spriteSheet.getOrigRow(), spriteSheet.getOrigCol(), spriteSheet.getImageCount(), spriteSheet.getImagesPerRow()
-        );
+    private void appendParam(Output output, Property property, EntityState diff) {
+        appendValue(output, property, diff);
+
+        // We don't send the default curve, it will be implied.
+        Curve curve = diff.getCurve(property);
+        if (!curve.equals(Curve.DEFAULT)) {
+            output.sb.append(argumentSeparator).append(curves.get(curve));
+        }
     }
 
-    public Optional<String> serializeLoadSpriteSheets(List<SpriteSheetSplitter> spriteSheets) {
-        if (spriteSheets.isEmpty()) {
-            return Optional.empty();
-        } else {
-            return Optional.of(
-                commands.get("LOADSPRITESHEET") + spriteSheets.stream()
-                    .map(e -> serializeLoadSpriteSheet(e))
-                    .collect(Collectors.joining(separators.get("COMMAND")))
-            );
+    private void appendValue(Output output, Property property, EntityState diff) {
+        StringBuilder sb = output.sb;
+        double number = diff.getNumber(property);
+        switch (property.getKind()) {
+        case ANGLE:
+            sb.append((int) Math.toDegrees(number));
+            break;
+        case DOUBLE:
+            NumberFormatter.append(sb, number);
+            break;
+        case INT:
+            sb.append((int) number);
+            break;
+        case BOOLEAN:
+            sb.append(number != 0 ? '1' : '0');
+            break;
+        case DELTA:
+            // Deltas hold nothing but ids and separators, no need to escape them
+            ((PropertyDelta) diff.getObject(property)).appendTo(sb);
+            break;
+        default:
+            if (INTERNED_PROPERTIES.contains(property)) {
+                appendInterned(output, diff.getObject(property).toString());
+            } else {
+                appendEscaped(sb, diff.getObject(property).toString());
+            }
         }
     }
 
-    public Optional<String> serializeWorldDiff(List<WorldState> diffs) {
-        if (diffs.isEmpty()) {
-            return Optional.empty();
+    private void appendInterned(Output output, String text) {
+        String escaped = escape(text);
+        if (output.newStrings != null && !stringIds.containsKey(escaped)) {
+            // Its reference depends on the strings of the previous ranges
+            output.newStringPositions.add(output.sb.length());
+            output.newStrings.add(escaped);
+            return;
+        }
+        appendInterned(output.sb, escaped);
+    }
+
+    /**
+     * Appends the text, or a reference to it when it has already been sent and the reference is shorter. References are made of a '#' and
+     * the id of the text in base 36: a text starting with '#' is sent with another '#' in front of it.
+     */
+    private void appendInterned(StringBuilder sb, String escaped) {
+        Integer id = stringIds.get(escaped);
+        if (id == null) {
+            stringIds.put(escaped, stringIds.size());
         } else {
-            List<String> serialized = diffs.stream()
-                .map(worldDiff -> {
-                    Optional<String> result;
-                    Set<Entry<Entity<?>, EntityState>> diff = worldDiff.getEntityStateMap().entrySet();
-                    if (diff.isEmpty()) {
-                        result = Optional.empty();
-                    } else {
-                        result = Optional.of(
-                            diff
-                                .stream()
-                                .map(e -> {
-                                    return serializeEntitiesStateDiff(e.getKey(), e.getValue(), worldDiff.getFrameTime());
-                                })
-                                .collect(Collectors.joining(separators.get("COMMAND")))
-                        );
-                    }
-                    return result;
-                })
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList());
-            if (serialized.isEmpty()) {
-                return Optional.empty();
-            } else {
-                return Optional.of(
-                    commands.get("UPDATE") + serialized
-                        .stream()
-                        .collect(Collectors.joining(separators.get("COMMAND")))
-                );
+            String reference = Integer.toString(id, Character.MAX_RADIX);
+            if (reference.length() + 1 < escaped.length()) {
+                sb.append(STRING_REFERENCE).append(reference);
+                return;
             }
         }
+        if (!escaped.isEmpty() && escaped.charAt(0) == STRING_REFERENCE) {
+            sb.append(STRING_REFERENCE);
+        }
+        sb.append(escaped);
     }
 
-}
\ No newline at end of file
+    /**
+     * Where entity values are serialized to: the frame itself, or the output of a range of ids serialized on another thread.
+     */
+    private static class Output {
+        final StringBuilder sb;
+        // The strings left out of a range of ids, with where they go
+        final List<String> newStrings;
+        final List<Integer> newStringPositions;
+
+        Output(StringBuilder sb, boolean deferNewStrings) {
+            this.sb = sb;
+            newStrings = deferNewStrings ? new ArrayList<>() : null;
+            newStringPositions = deferNewStrings ? new ArrayList<>() : null;
+        }
+    }
+}
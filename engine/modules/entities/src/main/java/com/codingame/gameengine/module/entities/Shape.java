@@ -49,7 +49,7 @@ public abstract class Shape<T extends BlendableEntity<?>> extends BlendableEntit
     public T setFillColor(int color, Curve curve) {
         requireValidColor(color);
         this.fillColor = color;
-        set("fillColor", color, curve);
+        set(Property.FILL_COLOR, color, curve);
         return self();
     }
 
@@ -98,7 +98,7 @@ public abstract class Shape<T extends BlendableEntity<?>> extends BlendableEntit
     public T setFillAlpha(double alpha, Curve curve) {
         requireValidAlpha(alpha);
         this.fillAlpha = alpha;
-        set("fillAlpha", alpha, curve);
+        set(Property.FILL_ALPHA, alpha, curve);
         return self();
     }
 
@@ -146,7 +146,7 @@ public abstract class Shape<T extends BlendableEntity<?>> extends BlendableEntit
     public T setLineAlpha(double alpha, Curve curve) {
         requireValidAlpha(alpha);
         this.lineAlpha = alpha;
-        set("lineAlpha", alpha, curve);
+        set(Property.LINE_ALPHA, alpha, curve);
         return self();
     }
 
@@ -189,7 +189,7 @@ public abstract class Shape<T extends BlendableEntity<?>> extends BlendableEntit
      */
     public T setLineWidth(double lineWidth, Curve curve) {
         this.lineWidth = lineWidth;
-        set("lineWidth", lineWidth, curve);
+        set(Property.LINE_WIDTH, lineWidth, curve);
         return self();
     }
 
@@ -237,7 +237,7 @@ public abstract class Shape<T extends BlendableEntity<?>> extends BlendableEntit
     public T setLineColor(int lineColor, Curve curve) {
         requireValidColor(lineColor);
         this.lineColor = lineColor;
-        set("lineColor", lineColor, curve);
+        set(Property.LINE_COLOR, lineColor, curve);
         return self();
     }
 
@@ -0,0 +1,93 @@
+package com.codingame.gameengine.module.entities;
+
+/**
+ * Encodes the change of a text or of a list of points as a splice of the value known to the viewer: the index of the first changed element,
+ * the number of elements removed there, then the inserted elements.
+ * <p>
+ * The elements of a text are its characters, those of a list of points are the coordinates. A splice is only used when it is shorter than
+ * the new value, which covers appending to a value as well as editing a small part of it.
+ * </p>
+ */
+final class Splices {
+    private static final char SEPARATOR = ',';
+
+    private Splices() {
+    }
+
+    /**
+     * @return the property used to send a splice of the given property, or null if it cannot be sent that way.
+     */
+    static Property getSpliceProperty(Property property) {
+        switch (property) {
+        case TEXT:
+            return Property.TEXT_SPLICE;
+        case POINTS:
+            return Property.POINTS_SPLICE;
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * @param spliceProperty
+     *            a property returned by <code>getSpliceProperty</code>
+     * @param prev
+     *            the value known to the viewer
+     * @param next
+     *            the new value
+     * @return the splice turning <code>prev</code> into <code>next</code>, or null if it would not be shorter than <code>next</code>.
+     */
+    static String encode(Property spliceProperty, String prev, String next) {
+        if (spliceProperty == Property.TEXT_SPLICE) {
+            return encodeText(prev, next);
+        }
+        return encodeList(prev, next);
+    }
+
+    private static String encodeText(String prev, String next) {
+        // The viewer replaces $0, $1... by the names of the players, the splice would apply to the replaced text
+        if (prev.indexOf('$') >= 0 || next.indexOf('$') >= 0) {
+            return null;
+        }
+        int maxLength = Math.min(prev.length(), next.length());
+        int start = 0;
+        while (start < maxLength && prev.charAt(start) == next.charAt(start)) {
+            start++;
+        }
+        int end = 0;
+        while (end < maxLength - start && prev.charAt(prev.length() - 1 - end) == next.charAt(next.length() - 1 - end)) {
+            end++;
+        }
+        StringBuilder splice = new StringBuilder()
+            .append(start).append(SEPARATOR)
+            .append(prev.length() - start - end).append(SEPARATOR)
+            .append(next, start, next.length() - end);
+        return splice.length() < next.length() ? splice.toString() : null;
+    }
+
+    private static String encodeList(String prev, String next) {
+        String[] prevElements = split(prev);
+        String[] nextElements = split(next);
+        int maxLength = Math.min(prevElements.length, nextElements.length);
+        int start = 0;
+        while (start < maxLength && prevElements[start].equals(nextElements[start])) {
+            start++;
+        }
+        int end = 0;
+        while (end < maxLength - start
+            && prevElements[prevElements.length - 1 - end].equals(nextElements[nextElements.length - 1 - end])) {
+            end++;
+        }
+        StringBuilder splice = new StringBuilder()
+            .append(start).append(SEPARATOR)
+            .append(prevElements.length - start - end);
+        for (int i = start; i < nextElements.length - end; i++) {
+            splice.append(SEPARATOR).append(nextElements[i]);
+        }
+        return splice.length() < next.length() ? splice.toString() : null;
+    }
+
+    private static String[] split(String list) {
+        return list.isEmpty() ? new String[0] : list.split(String.valueOf(SEPARATOR));
+    }
+}
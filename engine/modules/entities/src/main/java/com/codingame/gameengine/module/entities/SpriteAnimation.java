@@ -61,7 +61,7 @@ public class SpriteAnimation extends TextureBasedEntity<SpriteAnimation> impleme
      */
     public SpriteAnimation setPlaying(boolean playing) {
         this.playing = playing;
-        set("playing", playing, null);
+        set(Property.PLAYING, playing, null);
         return this;
     }
 
@@ -71,7 +71,7 @@ public class SpriteAnimation extends TextureBasedEntity<SpriteAnimation> impleme
      * @return this animation.
      */
     public SpriteAnimation reset() {
-        set("restarted", RESTART_INDEX++, null);
+        set(Property.RESTARTED, RESTART_INDEX++, null);
         return this;
     }
 
@@ -119,7 +119,7 @@ public class SpriteAnimation extends TextureBasedEntity<SpriteAnimation> impleme
      */
     public SpriteAnimation setLoop(boolean loop) {
         this.loop = loop;
-        set("loop", loop, null);
+        set(Property.LOOP, loop, null);
         return this;
     }
 
@@ -151,7 +151,7 @@ public class SpriteAnimation extends TextureBasedEntity<SpriteAnimation> impleme
     public SpriteAnimation setDuration(int duration) {
         requireValidDuration(duration);
         this.duration = duration;
-        set("duration", duration, null);
+        set(Property.DURATION, duration, null);
         return this;
     }
 
@@ -171,11 +171,11 @@ public class SpriteAnimation extends TextureBasedEntity<SpriteAnimation> impleme
         this.images = images;
         String[] compressed = compressImages();
         if (compressed == images) {
-            set("images", Stream.of(images).collect(Collectors.joining(",")), null);
-            set("imageRange", "");
+            set(Property.IMAGES, Stream.of(images).collect(Collectors.joining(",")), null);
+            set(Property.IMAGE_RANGE, "", null);
         } else {
-            set("images", "");
-            set("imageRange", compressed[0], null);
+            set(Property.IMAGES, "", null);
+            set(Property.IMAGE_RANGE, compressed[0], null);
         }
         return this;
     }
@@ -25,7 +25,7 @@ public abstract class SpriteBasedEntity<T extends SpriteBasedEntity<?>> extends
      */
     public T setImage(String image) {
         this.image = image;
-        set("image", image, null);
+        set(Property.IMAGE, image, null);
         return self();
     }
 
@@ -38,7 +38,7 @@ public abstract class SpriteBasedEntity<T extends SpriteBasedEntity<?>> extends
      */
     public T setBaseWidth(int baseWidth) {
         this.baseWidth = baseWidth;
-        set("baseWidth", baseWidth, null);
+        set(Property.BASE_WIDTH, baseWidth, null);
         return self();
     }
 
@@ -51,7 +51,7 @@ public abstract class SpriteBasedEntity<T extends SpriteBasedEntity<?>> extends
      */
     public T setBaseHeight(int baseHeight) {
         this.baseHeight = baseHeight;
-        set("baseHeight", baseHeight, null);
+        set(Property.BASE_HEIGHT, baseHeight, null);
         return self();
     }
 
@@ -97,7 +97,7 @@ public abstract class SpriteBasedEntity<T extends SpriteBasedEntity<?>> extends
      */
     public T setScaleMode(ScaleMode scaleMode) {
         this.scaleMode = scaleMode;
-        set("scaleMode", scaleMode);
+        set(Property.SCALE_MODE, scaleMode, null);
         return self();
     }
 
@@ -76,7 +76,7 @@ public class Text extends TextBasedEntity<Text> {
     public Text setStrokeColor(int strokeColor, Curve curve) {
         requireValidColor(strokeColor);
         this.strokeColor = strokeColor;
-        set("strokeColor", strokeColor, curve);
+        set(Property.STROKE_COLOR, strokeColor, curve);
         return this;
     }
 
@@ -108,7 +108,7 @@ public class Text extends TextBasedEntity<Text> {
      */
     public Text setFontFamily(String fontFamily) {
         this.fontFamily = fontFamily;
-        set("fontFamily", fontFamily, null);
+        set(Property.FONT_FAMILY, fontFamily, null);
         return this;
     }
 
@@ -154,7 +154,7 @@ public class Text extends TextBasedEntity<Text> {
      */
     public Text setStrokeThickness(double strokeThickness, Curve curve) {
         this.strokeThickness = strokeThickness;
-        set("strokeThickness", strokeThickness, curve);
+        set(Property.STROKE_THICKNESS, strokeThickness, curve);
         return this;
     }
 
@@ -170,7 +170,7 @@ public class Text extends TextBasedEntity<Text> {
      */
     public Text setFontWeight(FontWeight weight) {
         this.fontWeight = weight;
-        set("fontWeight", weight.toString());
+        set(Property.FONT_WEIGHT, weight.toString(), null);
         return this;
     }
 
@@ -233,7 +233,7 @@ public class Text extends TextBasedEntity<Text> {
      */
     public Text setFillColor(int fillColor, Curve curve) {
         this.fillColor = fillColor;
-        set("fillColor", fillColor, curve);
+        set(Property.FILL_COLOR, fillColor, curve);
         return this;
     }
 }
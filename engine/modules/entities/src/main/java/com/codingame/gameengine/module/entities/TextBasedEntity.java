@@ -69,7 +69,7 @@ public abstract class TextBasedEntity<T extends TextureBasedEntity<?>> extends T
     public T setText(String text) {
         Objects.requireNonNull(text);
         this.text = text;
-        set("text", text, null);
+        set(Property.TEXT, text, null);
         return self();
     }
 
@@ -100,7 +100,7 @@ public abstract class TextBasedEntity<T extends TextureBasedEntity<?>> extends T
     public T setTextAlign(TextAlign align) {
         Objects.requireNonNull(align);
         this.textAlign = align;
-        set("textAlign", align.getValue(), null);
+        set(Property.TEXT_ALIGN, align.getValue(), null);
         return self();
     }
 
@@ -144,7 +144,7 @@ public abstract class TextBasedEntity<T extends TextureBasedEntity<?>> extends T
      */
     public T setFontSize(int fontSize, Curve curve) {
         this.fontSize = fontSize;
-        set("fontSize", fontSize, curve);
+        set(Property.FONT_SIZE, fontSize, curve);
         return self();
     }
 
@@ -182,7 +182,7 @@ public abstract class TextBasedEntity<T extends TextureBasedEntity<?>> extends T
         }
 
         this.maxWidth = maxWidth;
-        set("maxWidth", maxWidth, null);
+        set(Property.MAX_WIDTH, maxWidth, null);
         return self();
     }
 }
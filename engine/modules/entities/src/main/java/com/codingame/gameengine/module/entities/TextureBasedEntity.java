@@ -77,7 +77,7 @@ public abstract class TextureBasedEntity<T extends BlendableEntity<?>> extends B
      */
     public T setAnchorX(double anchorX, Curve curve) {
         this.anchorX = anchorX;
-        set("anchorX", anchorX, curve);
+        set(Property.ANCHOR_X, anchorX, curve);
         return self();
     }
 
@@ -127,7 +127,7 @@ public abstract class TextureBasedEntity<T extends BlendableEntity<?>> extends B
      */
     public T setAnchorY(double anchorY, Curve curve) {
         this.anchorY = anchorY;
-        set("anchorY", anchorY, curve);
+        set(Property.ANCHOR_Y, anchorY, curve);
         return self();
     }
 
@@ -164,7 +164,7 @@ public abstract class TextureBasedEntity<T extends BlendableEntity<?>> extends B
     public T setTint(int color, Curve curve) {
         requireValidColor(color);
         this.tint = color;
-        set("tint", color, curve);
+        set(Property.TINT, color, curve);
         return self();
     }
 
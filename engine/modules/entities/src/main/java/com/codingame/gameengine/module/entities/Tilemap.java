@@ -0,0 +1,262 @@
+package com.codingame.gameengine.module.entities;
+
+import java.util.Arrays;
+
+/**
+ * A Tilemap is a graphical entity which displays a grid of cells, each showing one tile of a tileset or nothing. It is meant for boards and
+ * levels, which would otherwise take one entity per cell.
+ * <p>
+ * The tileset is a list of images, such as the names returned by <code>SpriteSheetSplitter.split()</code>, and each cell holds the index of
+ * its tile in that list, or <code>EMPTY</code>. Only the cells changed since the last commit are sent to the viewer. Cells do not interpolate:
+ * a changed cell shows its new tile from the instant of its commit.
+ * </p>
+ */
+public class Tilemap extends Entity<Tilemap> {
+    /**
+     * The tile index of a cell showing nothing.
+     */
+    public static final int EMPTY = -1;
+
+    private String[] tiles = new String[] {};
+    private int columns, rows;
+    private int tileWidth = 100, tileHeight = 100;
+    private int[] cells = new int[0];
+
+    Tilemap() {
+        super();
+    }
+
+    @Override
+    Entity.Type getType() {
+        return Entity.Type.TILEMAP;
+    }
+
+    /**
+     * Sets the images of the tiles displayed by the cells. The tile index of a cell is an index in this list.
+     * 
+     * @param tiles
+     *            the names of the images of the tiles.
+     * @return this <code>Tilemap</code>.
+     */
+    public Tilemap setTiles(String... tiles) {
+        this.tiles = tiles;
+        set(Property.TILES, String.join(",", tiles), null);
+        return this;
+    }
+
+    /**
+     * Returns the names of the images of the tiles.
+     * 
+     * @return the names of the images of the tiles.
+     */
+    public String[] getTiles() {
+        return tiles;
+    }
+
+    /**
+     * Sets the number of columns and rows of the grid. All the cells are emptied.
+     * <p>
+     * Default is 0 by 0.
+     * </p>
+     * 
+     * @param columns
+     *            the number of columns.
+     * @param rows
+     *            the number of rows.
+     * @return this <code>Tilemap</code>.
+     * @exception IllegalArgumentException
+     *                if columns or rows is negative.
+     */
+    public Tilemap setGridSize(int columns, int rows) {
+        if (columns < 0 || rows < 0) {
+            throw new IllegalArgumentException("Not a valid grid size: " + columns + "x" + rows);
+        }
+        // The cells known to the viewer, with the previous size, must be emptied as well
+        int clearedCells = Math.max(cells.length, columns * rows);
+        this.columns = columns;
+        this.rows = rows;
+        cells = new int[columns * rows];
+        Arrays.fill(cells, EMPTY);
+        set(Property.COLUMNS, columns, null);
+        set(Property.ROWS, rows, null);
+        CellsDelta delta = getCellsDelta();
+        for (int i = 0; i < clearedCells; i++) {
+            delta.set(i, EMPTY);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the number of columns of the grid.
+     * 
+     * @return the number of columns of the grid.
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the number of rows of the grid.
+     * 
+     * @return the number of rows of the grid.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Sets the size of the cells in world units.
+     * <p>
+     * Default is 100 by 100.
+     * </p>
+     * 
+     * @param tileWidth
+     *            the width of a cell.
+     * @param tileHeight
+     *            the height of a cell.
+     * @return this <code>Tilemap</code>.
+     */
+    public Tilemap setTileSize(int tileWidth, int tileHeight) {
+        return setTileSize(tileWidth, tileHeight, null);
+    }
+
+    /**
+     * Sets the size of the cells in world units.
+     * <p>
+     * Default is 100 by 100.
+     * </p>
+     * 
+     * @param tileWidth
+     *            the width of a cell.
+     * @param tileHeight
+     *            the height of a cell.
+     * @param curve
+     *            the transition to animate between values of this property.
+     * @return this <code>Tilemap</code>.
+     */
+    public Tilemap setTileSize(int tileWidth, int tileHeight, Curve curve) {
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        set(Property.TILE_WIDTH, tileWidth, curve);
+        set(Property.TILE_HEIGHT, tileHeight, curve);
+        return this;
+    }
+
+    /**
+     * Returns the width of a cell in world units.
+     * 
+     * @return the width of a cell.
+     */
+    public int getTileWidth() {
+        return tileWidth;
+    }
+
+    /**
+     * Returns the height of a cell in world units.
+     * 
+     * @return the height of a cell.
+     */
+    public int getTileHeight() {
+        return tileHeight;
+    }
+
+    /**
+     * Sets the tile displayed by a cell.
+     * 
+     * @param column
+     *            the column of the cell, starting from 0 on the left.
+     * @param row
+     *            the row of the cell, starting from 0 at the top.
+     * @param tile
+     *            the index of the tile in the tileset, or <code>EMPTY</code>.
+     * @return this <code>Tilemap</code>.
+     * @exception IllegalArgumentException
+     *                if the cell is not in the grid or the tile is negative but not <code>EMPTY</code>.
+     */
+    public Tilemap setCell(int column, int row, int tile) {
+        requireValidTile(tile);
+        setCell(indexOf(column, row), tile);
+        return this;
+    }
+
+    /**
+     * Returns the tile displayed by a cell.
+     * 
+     * @param column
+     *            the column of the cell, starting from 0 on the left.
+     * @param row
+     *            the row of the cell, starting from 0 at the top.
+     * @return the index of the tile in the tileset, or <code>EMPTY</code>.
+     * @exception IllegalArgumentException
+     *                if the cell is not in the grid.
+     */
+    public int getCell(int column, int row) {
+        return cells[indexOf(column, row)];
+    }
+
+    /**
+     * Sets the tiles displayed by all the cells, row by row.
+     * 
+     * @param tiles
+     *            the tile of each cell, starting with the columns of the first row.
+     * @return this <code>Tilemap</code>.
+     * @exception IllegalArgumentException
+     *                if there is not exactly one tile per cell, or if a tile is negative but not <code>EMPTY</code>.
+     */
+    public Tilemap setCells(int... tiles) {
+        if (tiles.length != cells.length) {
+            throw new IllegalArgumentException("Expected " + cells.length + " tiles but got " + tiles.length);
+        }
+        for (int tile : tiles) {
+            requireValidTile(tile);
+        }
+        for (int i = 0; i < tiles.length; i++) {
+            setCell(i, tiles[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the tile displayed by all the cells.
+     * 
+     * @param tile
+     *            the index of the tile in the tileset, or <code>EMPTY</code>.
+     * @return this <code>Tilemap</code>.
+     * @exception IllegalArgumentException
+     *                if the tile is negative but not <code>EMPTY</code>.
+     */
+    public Tilemap fill(int tile) {
+        requireValidTile(tile);
+        for (int i = 0; i < cells.length; i++) {
+            setCell(i, tile);
+        }
+        return this;
+    }
+
+    private void setCell(int index, int tile) {
+        if (cells[index] != tile) {
+            cells[index] = tile;
+            getCellsDelta().set(index, tile);
+        }
+    }
+
+    private int indexOf(int column, int row) {
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            throw new IllegalArgumentException("Cell (" + column + ", " + row + ") is not in the grid");
+        }
+        return row * columns + column;
+    }
+
+    private static void requireValidTile(int tile) {
+        if (tile < EMPTY) {
+            throw new IllegalArgumentException("Not a valid tile: " + tile);
+        }
+    }
+
+    private CellsDelta getCellsDelta() {
+        if (!state.isSet(Property.CELLS_DELTA)) {
+            set(Property.CELLS_DELTA, new CellsDelta(), null);
+        }
+        return (CellsDelta) state.getObject(Property.CELLS_DELTA);
+    }
+}
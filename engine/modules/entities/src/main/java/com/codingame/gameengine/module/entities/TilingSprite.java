@@ -38,7 +38,7 @@ public class TilingSprite extends SpriteBasedEntity<TilingSprite> {
      */
     public TilingSprite setTileX(int tileX, Curve curve) {
         this.tileX = tileX;
-        set("tileX", tileX, curve);
+        set(Property.TILE_X, tileX, curve);
         return this;
     }
 
@@ -64,7 +64,7 @@ public class TilingSprite extends SpriteBasedEntity<TilingSprite> {
      */
     public TilingSprite setTileY(int tileY, Curve curve) {
         this.tileY = tileY;
-        set("tileY", tileY, curve);
+        set(Property.TILE_Y, tileY, curve);
         return this;
     }
 
@@ -116,7 +116,7 @@ public class TilingSprite extends SpriteBasedEntity<TilingSprite> {
      */
     public TilingSprite setTileScaleX(double tileScaleX, Curve curve) {
         this.tileScaleX = tileScaleX;
-        set("tileScaleX", tileScaleX, curve);
+        set(Property.TILE_SCALE_X, tileScaleX, curve);
         return this;
     }
 
@@ -142,7 +142,7 @@ public class TilingSprite extends SpriteBasedEntity<TilingSprite> {
      */
     public TilingSprite setTileScaleY(double tileScaleY, Curve curve) {
         this.tileScaleY = tileScaleY;
-        set("tileScaleY", tileScaleY, curve);
+        set(Property.TILE_SCALE_Y, tileScaleY, curve);
         return this;
     }
 
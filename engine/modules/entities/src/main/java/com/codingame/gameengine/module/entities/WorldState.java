@@ -1,18 +1,31 @@
 package com.codingame.gameengine.module.entities;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.stream.IntStream;
 
 class WorldState {
+    private static final Comparator<Entity<?>> BY_ID = Comparator.comparingInt(Entity::getId);
+
     private Map<Entity<?>, EntityState> entityStateMap;
-    private final String t;
+    private final Deque<EntityState> freeStates;
+    private String t;
     private boolean worldCommit = false;
+    private int lastWorldCommitEntityId = 0;
+    // The entities of a diff made in parallel, in id order
+    private final List<Entity<?>> entitiesById = new ArrayList<>();
+    private boolean sortedById = false;
 
     WorldState(String t) {
         this.t = t;
         entityStateMap = new HashMap<>();
+        freeStates = new ArrayDeque<>();
     }
 
     String getFrameTime() {
@@ -24,62 +37,162 @@ class WorldState {
     }
 
     /**
-     * Performs a flush of all the entity states that are not already present in the state map. This allows the default behaviour of commiting all
-     * entities at t = 1, which can be overridden.
+     * Empties this world state so that it can be reused for another frame time. Its entity states are kept for later use.
      */
-    void flushMissingEntities(List<Entity<?>> entities) {
-        entities.stream().forEach(entity -> {
-            if (!entityStateMap.containsKey(entity)) {
-                entityStateMap.put(entity, entity.state);
-                entity.state = new EntityState();
-            }
+    void reset(String t) {
+        this.t = t;
+        worldCommit = false;
+        lastWorldCommitEntityId = 0;
+        entitiesById.clear();
+        sortedById = false;
+        for (EntityState state : entityStateMap.values()) {
+            state.clear();
+            freeStates.push(state);
+        }
+        entityStateMap.clear();
+    }
 
-        });
+    /**
+     * @return the entities of this diff in id order if it was made by <code>diffFromOtherWorldStateInParallel</code>, null otherwise.
+     */
+    List<Entity<?>> getEntitiesById() {
+        return sortedById ? entitiesById : null;
+    }
+
+    /**
+     * @return the entities of this world state sorted by id, the large arrays being sorted on the common fork/join pool.
+     */
+    Entity<?>[] getEntitiesSortedById() {
+        Entity<?>[] entities = entityStateMap.keySet().toArray(new Entity<?>[0]);
+        Arrays.parallelSort(entities, BY_ID);
+        return entities;
+    }
+
+    private EntityState getOrCreateEntityState(Entity<?> entity) {
+        EntityState state = entityStateMap.get(entity);
+        if (state == null) {
+            state = freeStates.isEmpty() ? new EntityState() : freeStates.pop();
+            entityStateMap.put(entity, state);
+        }
+        return state;
+    }
+
+    /**
+     * Sets the state of a new entity to the given values, as if they had already been sent.
+     */
+    void initEntityState(Entity<?> entity, EntityState values) {
+        getOrCreateEntityState(entity).putAllValues(values);
+    }
+
+    /**
+     * Forgets the state of the given entity, keeping it for later use.
+     */
+    void removeEntityState(Entity<?> entity) {
+        EntityState state = entityStateMap.remove(entity);
+        if (state != null) {
+            state.clear();
+            freeStates.push(state);
+        }
+    }
 
+    /**
+     * Tells whether the given entity was committed in this world state, either on its own or by a world commit. This allows the default behaviour
+     * of commiting all entities at t = 1, which can be overridden.
+     */
+    boolean isCommitted(Entity<?> entity) {
+        return entity.id <= lastWorldCommitEntityId || entityStateMap.containsKey(entity);
     }
 
     void markAsWorldCommit() {
         this.worldCommit = true;
     }
 
-    boolean isWorldCommit() {
-        return worldCommit;
+    /**
+     * Marks this world state as a commit of all the entities created so far. Only the entities with pending changes need to be flushed into
+     * it: the others have no state to add.
+     *
+     * @param lastEntityId
+     *            the id of the most recently created entity
+     */
+    void markAsWorldCommit(int lastEntityId) {
+        markAsWorldCommit();
+        lastWorldCommitEntityId = lastEntityId;
     }
 
-    private void updateStateMap(EntityState oldState, EntityState currentState, Entity<?> entity) {
-        if (oldState == null) {
-            entityStateMap.put(entity, currentState);
-        } else {
-            currentState.forEach((key, value) -> oldState.put(key, value));
-        }
+    boolean isWorldCommit() {
+        return worldCommit;
     }
 
     void flushEntityState(Entity<?> entity) {
-        final EntityState state = entityStateMap.get(entity);
-        updateStateMap(state, entity.state, entity);
-        entity.state = new EntityState();
+        getOrCreateEntityState(entity).putAll(entity.state);
+        entity.state.clear();
     }
 
     void updateAllEntities(WorldState next) {
         next.entityStateMap.forEach((entity, nextState) -> {
-            EntityState oldState = entityStateMap.get(entity);
-            updateStateMap(oldState, nextState, entity);
+            getOrCreateEntityState(entity).putAllValues(nextState);
         });
     }
 
-    public WorldState diffFromOtherWorldState(WorldState previousWorldState) {
-        WorldState worldDiff = new WorldState(this.t);
-
+    /**
+     * Fills the given world state with the difference between this world state and the previous one.
+     *
+     * @param previousWorldState
+     *            the state the viewer is in before this world state
+     * @param worldDiff
+     *            an empty world state for the same frame time
+     */
+    public void diffFromOtherWorldState(WorldState previousWorldState, WorldState worldDiff) {
         getEntityStateMap()
             .forEach((entity, nextEntityState) -> {
-                Optional<EntityState> prevEntityState = Optional.ofNullable(previousWorldState.getEntityStateMap().get(entity));
-                EntityState entitiesDiff = nextEntityState.diffFromOtherState(prevEntityState);
+                EntityState prevEntityState = previousWorldState.getEntityStateMap().get(entity);
+                EntityState entitiesDiff = worldDiff.getOrCreateEntityState(entity);
+                nextEntityState.diffFromOtherState(prevEntityState, entitiesDiff);
 
                 // Forced entities should be sent even if they are empty
-                if (!isWorldCommit() || !entitiesDiff.isEmpty()) {
-                    worldDiff.getEntityStateMap().put(entity, entitiesDiff);
+                if (isWorldCommit() && entitiesDiff.isEmpty()) {
+                    worldDiff.getEntityStateMap().remove(entity);
+                    worldDiff.freeStates.push(entitiesDiff);
                 }
             });
-        return worldDiff;
+    }
+
+    /**
+     * Same as <code>diffFromOtherWorldState</code>, for world states with many entities: the entities are sorted by id and each range of ids is
+     * diffed on the common fork/join pool. The diff keeps its entities in id order, so that it is serialized the same way whatever the number of
+     * threads.
+     *
+     * @param previousWorldState
+     *            the state the viewer is in before this world state
+     * @param worldDiff
+     *            an empty world state for the same frame time
+     */
+    void diffFromOtherWorldStateInParallel(WorldState previousWorldState, WorldState worldDiff) {
+        Entity<?>[] entities = getEntitiesSortedById();
+        EntityState[] diffs = new EntityState[entities.length];
+        for (int i = 0; i < diffs.length; i++) {
+            diffs[i] = worldDiff.freeStates.isEmpty() ? new EntityState() : worldDiff.freeStates.pop();
+        }
+
+        // The maps are only read until all the ranges are diffed
+        Map<Entity<?>, EntityState> previousStates = previousWorldState.getEntityStateMap();
+        int ranges = IdRanges.count(entities.length);
+        IntStream.range(0, ranges).parallel().forEach(range -> {
+            int end = IdRanges.start(range + 1, ranges, entities.length);
+            for (int i = IdRanges.start(range, ranges, entities.length); i < end; i++) {
+                entityStateMap.get(entities[i]).diffFromOtherState(previousStates.get(entities[i]), diffs[i]);
+            }
+        });
+
+        for (int i = 0; i < entities.length; i++) {
+            // Forced entities should be sent even if they are empty
+            if (isWorldCommit() && diffs[i].isEmpty()) {
+                worldDiff.freeStates.push(diffs[i]);
+            } else {
+                worldDiff.entityStateMap.put(entities[i], diffs[i]);
+                worldDiff.entitiesById.add(entities[i]);
+            }
+        }
+        worldDiff.sortedById = true;
     }
 }
@@ -26,8 +26,10 @@ const PROPERTY_KEY_MAP = {
   s: 'fontSize',
   fw: 'fontWeight',
   T: 'text',
+  Tp: 'textSplice',
   ta: 'textAlign',
   ch: 'children',
+  cd: 'childrenDelta',
   sx: 'scaleX',
   sy: 'scaleY',
   ax: 'anchorX',
@@ -46,23 +48,89 @@ const PROPERTY_KEY_MAP = {
   bw: 'baseWidth',
   bh: 'baseHeight',
   ps: 'points',
+  pp: 'pointsSplice',
   tx: 'tileX',
   ty: 'tileY',
   tsx: 'tileScaleX',
   tsy: 'tileScaleY',
-  sm: 'scaleMode'
+  sm: 'scaleMode',
+  tl: 'tiles',
+  co: 'columns',
+  ro: 'rows',
+  tw: 'tileWidth',
+  th: 'tileHeight',
+  cc: 'cellsDelta',
+  ic: 'instanceCount',
+  in: 'instancesDelta'
+}
+
+// Strings of the interned properties are numbered in the order they are first sent, later occurrences may be sent as a '#' and that number
+function resolveString (value, globalData) {
+  if (value[0] === '#' && value[1] !== '#') {
+    return globalData.strings[parseInt(value.slice(1), 36)]
+  }
+  // A literal starting with '#' is escaped by another '#'
+  const literal = value[0] === '#' ? value.slice(1) : value
+  if (!globalData.stringIds.has(literal)) {
+    globalData.stringIds.set(literal, globalData.strings.length)
+    globalData.strings.push(literal)
+  }
+  return literal
+}
+
+// Reads the keys and values following each other from the given index, with no curves
+function parseValues (args, startIdx, globalData, frameInfo) {
+  const values = {}
+  for (let idx = startIdx; idx < args.length; idx += 2) {
+    const key = PROPERTY_KEY_MAP[args[idx]] || args[idx]
+    const opts = (PROPERTIES[key] || PROPERTIES.default)
+    let value = opts.type(args[idx + 1])
+    if (opts.interned) {
+      value = resolveString(value, globalData)
+    }
+    if (typeof opts.convert === 'function') {
+      value = opts.convert(value, globalData, frameInfo, 1)
+    }
+    values[key] = value
+  }
+  return values
 }
 
 export class CreateCommand {
-  constructor (args, globalData) {
-    this.id = ++globalData.instanceCount
+  constructor (args, globalData, frameInfo) {
     this.type = args[0]
+    // Entities created from a template come as a batch followed by the properties they share
+    const count = args.length > 1 ? +args[1] : 1
+    this.firstId = globalData.instanceCount + 1
+    globalData.instanceCount += count
+    this.lastId = globalData.instanceCount
+    this.defaults = parseValues(args, 2, globalData, frameInfo)
   }
 
-  apply (entities) {
-    const entity = EntityFactory.create(this.type)
-    entity.id = this.id
-    entities.set(this.id, entity)
+  apply (entities, frameInfo) {
+    const fromTemplate = Object.keys(this.defaults).length > 0
+    for (let id = this.firstId; id <= this.lastId; id++) {
+      const entity = EntityFactory.create(this.type)
+      entity.id = id
+      entities.set(id, entity)
+      if (fromTemplate) {
+        Object.assign(entity.defaultState, this.defaults)
+        // The shared properties are only sent once: the entity needs a state of its own to be extrapolated from its defaults
+        entity.addState(1, { values: {}, curve: {} }, frameInfo.number)
+        entity.stateAdded = true
+      }
+    }
+  }
+}
+
+export class DestroyCommand {
+  constructor (args) {
+    this.id = +args[0]
+  }
+
+  apply (entities, frameInfo) {
+    // The entity is kept to be rendered again when seeking back to a previous frame
+    entities.get(this.id).destroyedAt = frameInfo.number
   }
 }
 
@@ -134,10 +202,15 @@ export class PropertiesCommand {
     return {
       // '/': (a => a), this will be used by default
       '_': a => a < 1 ? 0 : 1,
+      '=': transitions.ease,
+      '<': transitions.easeIn,
+      '>': transitions.easeOut,
+      '~': transitions.elastic,
+      '!': a => 1,
+      // Codes of older replays
       '∫': transitions.ease,
       '🙖': transitions.easeIn,
       '🙒': transitions.easeOut,
-      '~': transitions.elastic,
       'Γ': a => 1
     }
   }
@@ -152,6 +225,9 @@ export class PropertiesCommand {
       const key = PROPERTY_KEY_MAP[args[idx]] || args[idx]
       const opts = (PROPERTIES[key] || PROPERTIES.default)
       let value = opts.type(args[idx + 1])
+      if (opts.interned) {
+        value = resolveString(value, globalData)
+      }
       if (typeof opts.convert === 'function') {
         value = opts.convert(value, globalData, frameInfo, this.t)
       }
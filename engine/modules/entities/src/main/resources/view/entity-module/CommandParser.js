@@ -1,9 +1,10 @@
-import { CreateCommand, PropertiesCommand, LoadCommand } from './Command.js'
+import { CreateCommand, PropertiesCommand, LoadCommand, DestroyCommand } from './Command.js'
 
 const COMMAND_KEY_MAP = {
   C: CreateCommand,
   U: PropertiesCommand,
-  L: LoadCommand
+  L: LoadCommand,
+  D: DestroyCommand
 }
 
 function splitOnCharOutsideQuotes (text, charParam) {
@@ -57,6 +57,19 @@ export class Entity {
     }
   }
 
+  /**
+   * Returns the substates of the most recent frame up to the given one in which this entity has some, or null. Every entity known at a
+   * snapshot has a state in its frame, so the search stops there.
+   */
+  findStates (frameNumber, snapshotFrameNumber = 0) {
+    for (let frame = frameNumber; frame >= snapshotFrameNumber; frame--) {
+      if (this.states[frame]) {
+        return this.states[frame]
+      }
+    }
+    return null
+  }
+
   set (t, params, frame) {
     this.addState(t, params, frame)
   }
@@ -79,16 +92,8 @@ export class Entity {
 
       if (!start) {
         // The start frame must be at the end of a previous turn
-        const frameNumbers = Object.keys(this.states)
-        let index = frameNumbers.indexOf(data.number.toString()) - 1
-        // Failsafe
-        if (index === -1) {
-          index = frameNumbers.length - 1
-        }
-        while (index >= 0 && frameNumbers[index] >= data.number) {
-          index--
-        }
-        const prev = this.states[frameNumbers[index]] || []
+        const previousSnapshot = data.lastSnapshot === data.number ? data.previous.lastSnapshot : data.lastSnapshot
+        const prev = this.findStates(data.number - 1, previousSnapshot) || []
         start = prev[prev.length - 1]
 
         // If it didn't exist on the previous turn, don't even animate it
@@ -104,12 +109,7 @@ export class Entity {
       }
     } else {
       // Look for the most recent state, but don't interpolate?
-      const frameNumbers = Object.keys(this.states)
-      let index = frameNumbers.length - 1
-      while (index >= 0 && frameNumbers[index] > data.number) {
-        index--
-      }
-      const substates = this.states[frameNumbers[index]]
+      const substates = this.findStates(data.number, data.lastSnapshot)
 
       if (substates != null) {
         start = substates[substates.length - 1]
@@ -10,6 +10,8 @@ import { SpriteAnimation } from './SpriteAnimation.js'
 import { RoundedRectangle } from './RoundedRectangle.js'
 import { Polygon } from './Polygon.js'
 import { TilingSprite } from './TilingSprite.js'
+import { Tilemap } from './Tilemap.js'
+import { InstancedSprite } from './InstancedSprite.js'
 
 export class EntityFactory {
   static create (type) {
@@ -25,7 +27,9 @@ export class EntityFactory {
       A: SpriteAnimation,
       K: RoundedRectangle,
       P: Polygon,
-      D: TilingSprite
+      D: TilingSprite,
+      M: Tilemap,
+      I: InstancedSprite
     }[type]
     if (!EntityClass) {
       throw new Error('Exception: entity type not found: ' + type)
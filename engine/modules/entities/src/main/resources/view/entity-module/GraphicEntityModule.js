@@ -19,7 +19,9 @@ export class GraphicEntityModule {
       maskUpdates: {},
       updatedBuffers: [],
       players: [],
-      instanceCount: 0
+      instanceCount: 0,
+      strings: [],
+      stringIds: new Map()
     }
 
     api.entities = this.entities
@@ -29,7 +31,7 @@ export class GraphicEntityModule {
     return 'entitymodule'
   }
 
-  handleFrameData (frameInfo, frameData) {
+  handleFrameData (frameInfo, frameData, snapshotData) {
     if (frameData) {
       const commands = CommandParser.parse(frameData, this.globalData, frameInfo)
       if (commands) {
@@ -51,6 +53,13 @@ export class GraphicEntityModule {
 
     this.extrapolate(parsedFrame)
 
+    if (snapshotData) {
+      this.applySnapshot(parsedFrame)
+      parsedFrame.lastSnapshot = parsedFrame.number
+    } else {
+      parsedFrame.lastSnapshot = parsedFrame.previous.lastSnapshot || 0
+    }
+
     if (parsedFrame !== parsedFrame.previous) {
       parsedFrame.previous.next = parsedFrame
     }
@@ -103,7 +112,9 @@ export class GraphicEntityModule {
 
         entity.states[frameNumber] = subStates.map((subState) => {
           // Extrapolate through existing substates, updating the extrapolationMap in the process (currentState)
-          const state = this.extrapolationMap[entity.id] = { ...this.extrapolationMap[entity.id], ...subState }
+          const previous = this.extrapolationMap[entity.id]
+          const state = this.extrapolationMap[entity.id] = { ...previous, ...subState }
+          applyDeltas(previous, subState, state)
 
           if (typeof entity.computeAnimationProgressTime === 'function') {
             entity.computeAnimationProgressTime(prevState, state)
@@ -114,6 +125,20 @@ export class GraphicEntityModule {
       })
   }
 
+  /**
+   * Gives every entity extrapolated so far a state in this frame, so that the state of an entity at a later frame is never looked for before
+   * this one. The snapshot is a bare marker: the entities that were never extrapolated have no state at all and show their default one.
+   */
+  applySnapshot (frameInfo) {
+    const frameNumber = frameInfo.number
+    for (const id in this.extrapolationMap) {
+      const entity = this.entities.get(+id)
+      if (!entity.states[frameNumber] || !entity.states[frameNumber].length) {
+        entity.states[frameNumber] = [this.extrapolationMap[id]]
+      }
+    }
+  }
+
   reinitScene (container, canvasData) {
     this.globalData.toPixel = (WIDTH / canvasData.width) * canvasData.oversampling
     this.globalData.mustResetTree = true
@@ -132,7 +157,14 @@ export class GraphicEntityModule {
       return
     }
 
-    this.entities.forEach(e => e.render(progress, currentData, this.globalData))
+    this.entities.forEach(e => {
+      // Destroyed entities are hidden from the end of the frame they were destroyed in
+      if (e.destroyedAt < currentData.number) {
+        e.container.visible = false
+      } else {
+        e.render(progress, currentData, this.globalData)
+      }
+    })
 
     // Flags are set by Entity when a group has different children
     if (this.globalData.mustResetTree) {
@@ -220,3 +252,80 @@ export class GraphicEntityModule {
     }
   }
 }
+
+// Turns the deltas and splices of a substate into the values of the extrapolated state
+function applyDeltas (previous, subState, state) {
+  if (subState.childrenDelta) {
+    state.children = applyChildrenDelta(previous.children, subState.childrenDelta)
+    delete state.childrenDelta
+  }
+  if (subState.cellsDelta) {
+    state.cells = applyCellsDelta(previous.cells, subState.cellsDelta)
+    delete state.cellsDelta
+  }
+  if (subState.instancesDelta) {
+    state.instances = applyInstancesDelta(previous.instances, subState.instancesDelta)
+    delete state.instancesDelta
+  }
+
+  if (subState.textSplice) {
+    state.text = applySplice(previous.text, subState.textSplice)
+    delete state.textSplice
+  }
+  if (subState.pointsSplice) {
+    state.points = applySplice(previous.points, subState.pointsSplice)
+    delete state.pointsSplice
+    if (subState.curve.pointsSplice) {
+      subState.curve.points = subState.curve.pointsSplice
+    }
+  }
+}
+
+function applyChildrenDelta (children, delta) {
+  const removed = new Set(delta.filter(id => id < 0).map(id => -id))
+  return children
+    .filter(id => !removed.has(id))
+    .concat(delta.filter(id => id > 0))
+}
+
+function applySplice (value, splice) {
+  return value.slice(0, splice.start).concat(splice.items, value.slice(splice.start + splice.deleteCount))
+}
+
+function applyCellsDelta (cells, delta) {
+  const result = cells.slice()
+  for (let idx = 0; idx < delta.length; idx += 3) {
+    const [start, count, tile] = delta.slice(idx, idx + 3)
+    for (let i = start; i < start + count; i++) {
+      result[i] = tile
+    }
+  }
+  return result
+}
+
+const INSTANCE_FIELDS = [
+  { bit: 1, name: 'x', convert: v => v },
+  { bit: 2, name: 'y', convert: v => v },
+  { bit: 4, name: 'rotation', convert: v => v * Math.PI / 180 },
+  { bit: 8, name: 'alpha', convert: v => v },
+  { bit: 16, name: 'tint', convert: v => v },
+  { bit: 32, name: 'image', convert: v => v }
+]
+
+function applyInstancesDelta (instances, delta) {
+  const result = {}
+  for (const field of INSTANCE_FIELDS) {
+    result[field.name] = instances[field.name].slice()
+  }
+  let idx = 0
+  while (idx < delta.length) {
+    const index = delta[idx++]
+    const fields = delta[idx++]
+    for (const field of INSTANCE_FIELDS) {
+      if (fields & field.bit) {
+        result[field.name][index] = field.convert(delta[idx++])
+      }
+    }
+  }
+  return result
+}
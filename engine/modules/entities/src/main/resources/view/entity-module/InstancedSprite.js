@@ -0,0 +1,98 @@
+import { Entity } from './Entity.js'
+import { ErrorLog } from '../core/ErrorLog.js'
+import { MissingImageError } from './errors/MissingImageError.js'
+
+/* global PIXI */
+
+const NO_INSTANCES = { x: [], y: [], rotation: [], alpha: [], tint: [], image: [] }
+
+export class InstancedSprite extends Entity {
+  constructor () {
+    super()
+    Object.assign(this.defaultState, {
+      images: '',
+      anchorX: 0,
+      anchorY: 0,
+      instanceCount: 0,
+      instances: NO_INSTANCES
+    })
+    this.missingTextures = {}
+  }
+
+  initDisplay () {
+    super.initDisplay()
+    this.capacity = 0
+    this.sprites = []
+    this.textures = []
+    this.graphics = this.createParticleContainer(1500)
+  }
+
+  createParticleContainer (capacity) {
+    this.capacity = capacity
+    return new PIXI.ParticleContainer(capacity, {
+      vertices: true,
+      position: true,
+      rotation: true,
+      uvs: true,
+      tint: true
+    })
+  }
+
+  updateDisplay (state, changed, globalData) {
+    super.updateDisplay(state, changed, globalData)
+    if (changed.images) {
+      this.textures = state.images ? state.images.split(',').map(image => this.getTexture(image)) : []
+    }
+    if (!changed.images && !changed.instances && !changed.instanceCount && !changed.anchorX && !changed.anchorY) {
+      return
+    }
+
+    const count = state.instanceCount
+    if (count > this.capacity) {
+      // A particle container never renders more sprites than its capacity
+      const previous = this.graphics
+      this.graphics = this.createParticleContainer(Math.max(count, this.capacity * 2))
+      this.graphics.addChild(...previous.removeChildren())
+      this.container.removeChild(previous)
+      this.container.addChild(this.graphics)
+      previous.destroy()
+    }
+    while (this.sprites.length < count) {
+      const sprite = new PIXI.Sprite(PIXI.Texture.EMPTY)
+      this.sprites.push(sprite)
+      this.graphics.addChild(sprite)
+    }
+    while (this.sprites.length > count) {
+      this.graphics.removeChild(this.sprites.pop()).destroy()
+    }
+
+    const instances = state.instances
+    const toWorldUnits = globalData.toWorldUnits
+    for (let i = 0; i < count; i++) {
+      const sprite = this.sprites[i]
+      const texture = this.textures[instances.image[i] || 0]
+      sprite.visible = !!texture
+      if (!texture) {
+        continue
+      }
+      sprite.texture = texture
+      sprite.anchor.set(state.anchorX, state.anchorY)
+      sprite.position.set((instances.x[i] || 0) * toWorldUnits, (instances.y[i] || 0) * toWorldUnits)
+      sprite.rotation = instances.rotation[i] || 0
+      sprite.alpha = instances.alpha[i] === undefined ? 1 : instances.alpha[i]
+      sprite.tint = instances.tint[i] === undefined ? 0xFFFFFF : instances.tint[i]
+    }
+  }
+
+  getTexture (image) {
+    try {
+      return PIXI.Texture.from(image)
+    } catch (error) {
+      if (!this.missingTextures[image]) {
+        this.missingTextures[image] = true
+        ErrorLog.push(new MissingImageError(image, error))
+      }
+      return null
+    }
+  }
+}
@@ -0,0 +1,86 @@
+import { Entity } from './Entity.js'
+import { ErrorLog } from '../core/ErrorLog.js'
+import { MissingImageError } from './errors/MissingImageError.js'
+
+/* global PIXI */
+
+export class Tilemap extends Entity {
+  constructor () {
+    super()
+    Object.assign(this.defaultState, {
+      tiles: [],
+      columns: 0,
+      rows: 0,
+      tileWidth: 100,
+      tileHeight: 100,
+      cells: []
+    })
+    this.missingTextures = {}
+  }
+
+  initDisplay () {
+    super.initDisplay()
+    // All the cells are sprites of the same container, so that tiles of the same sprite sheet are drawn in a single batch
+    this.graphics = new PIXI.Container()
+    this.cellSprites = []
+    this.textures = []
+  }
+
+  updateDisplay (state, changed, globalData) {
+    super.updateDisplay(state, changed, globalData)
+    if (changed.tiles) {
+      this.textures = state.tiles.map(image => this.getTexture(image))
+    }
+    const layoutChanged = changed.columns || changed.rows || changed.tileWidth || changed.tileHeight
+    if (!layoutChanged && !changed.tiles && !changed.cells) {
+      return
+    }
+
+    const cellCount = state.columns * state.rows
+    while (this.cellSprites.length < cellCount) {
+      const sprite = new PIXI.Sprite(PIXI.Texture.EMPTY)
+      sprite.visible = false
+      this.cellSprites.push(sprite)
+      this.graphics.addChild(sprite)
+    }
+    while (this.cellSprites.length > cellCount) {
+      this.graphics.removeChild(this.cellSprites.pop()).destroy()
+    }
+
+    for (let i = 0; i < cellCount; i++) {
+      // Only the cells whose tile changed need an update, unless they all moved or changed textures
+      if (layoutChanged || changed.tiles || state.cells[i] !== this.currentState.cells[i]) {
+        this.updateCell(i, state, globalData)
+      }
+    }
+  }
+
+  updateCell (index, state, globalData) {
+    const sprite = this.cellSprites[index]
+    const tile = state.cells[index]
+    const texture = tile >= 0 ? this.textures[tile] : null
+    sprite.visible = !!texture
+    if (!texture) {
+      return
+    }
+    sprite.texture = texture
+    sprite.position.set(
+      (index % state.columns) * state.tileWidth * globalData.toWorldUnits,
+      Math.floor(index / state.columns) * state.tileHeight * globalData.toWorldUnits
+    )
+    sprite.width = state.tileWidth * globalData.toWorldUnits
+    sprite.height = state.tileHeight * globalData.toWorldUnits
+  }
+
+  getTexture (image) {
+    try {
+      return PIXI.Texture.from(image)
+    } catch (error) {
+      if (!this.missingTextures[image]) {
+        this.missingTextures[image] = true
+        ErrorLog.push(new MissingImageError(image, error))
+      }
+      return null
+    }
+  }
+}
@@ -5,6 +5,25 @@ import { InvalidPlayerColorToken } from './errors/InvalidPlayerColorToken.js'
 const noLerp = (a, b, u) => u < 1 ? a : b
 const timeLerp = (a, b, u) => b < a ? b : lerp(a, b, u)
 
+function lerpInstances (a, b, u) {
+  if (u >= 1 || a === b) {
+    return b
+  }
+  if (u <= 0) {
+    return a
+  }
+  // New instances appear at their end position
+  const lerpField = (from, to, lerpMethod) => to.map((value, i) => from[i] === undefined ? value : lerpMethod(from[i], value, u))
+  return {
+    x: lerpField(a.x, b.x, lerp),
+    y: lerpField(a.y, b.y, lerp),
+    rotation: lerpField(a.rotation, b.rotation, lerpAngle),
+    alpha: lerpField(a.alpha, b.alpha, lerp),
+    tint: lerpField(a.tint, b.tint, lerpColor),
+    image: a.image
+  }
+}
+
 const colorOpts = {
   type: Number,
   lerpMethod: lerpColor,
@@ -28,6 +47,12 @@ const stringOpts = {
   }
 }
 
+// Values often repeated, which may be sent as references to the string table
+const internedOpts = {
+  ...stringOpts,
+  interned: true
+}
+
 const angleOpts = {
   type: Number,
   lerpMethod: lerpAngle,
@@ -75,10 +100,10 @@ export const PROPERTIES = {
   mask: constOpts,
   baseWidth: constOpts,
   baseHeight: constOpts,
-  image: stringOpts,
-  images: stringOpts,
+  image: internedOpts,
+  images: internedOpts,
   imageRange: stringOpts,
-  scaleMode: stringOpts,
+  scaleMode: internedOpts,
   restarted: {
     type: String,
     convert (value, globalData, frameInfo, t) {
@@ -98,7 +123,7 @@ export const PROPERTIES = {
   loop: boolOpts,
 
   text: {
-    ...stringOpts,
+    ...internedOpts,
     convert (value, globalData) {
       value = unescape(value)
       const regexp = /\$(\d)/g
@@ -117,6 +142,20 @@ export const PROPERTIES = {
       return res
     }
   },
+  textSplice: {
+    ...stringOpts,
+    convert (value) {
+      // Index of the first changed character, number of removed characters, inserted text
+      value = unescape(value)
+      const first = value.indexOf(',')
+      const second = value.indexOf(',', first + 1)
+      return {
+        start: +value.substring(0, first),
+        deleteCount: +value.substring(first + 1, second),
+        items: value.substring(second + 1)
+      }
+    }
+  },
   textAlign: {
     ...stringOpts,
     convert: (value) => (
@@ -127,14 +166,59 @@ export const PROPERTIES = {
       }[value]
     )
   },
-  fontFamily: stringOpts,
-  fontWeight: stringOpts,
+  fontFamily: internedOpts,
+  fontWeight: internedOpts,
   children: {
     ...stringOpts,
     convert (value) {
       return value ? value.split(',').map(id => +id) : []
     }
   },
+  tiles: {
+    ...internedOpts,
+    convert (value) {
+      return value ? value.split(',') : []
+    }
+  },
+  columns: constOpts,
+  rows: constOpts,
+  cells: {
+    lerpMethod: noLerp
+  },
+  cellsDelta: {
+    ...stringOpts,
+    convert (value) {
+      // Runs of cells: index of the first cell, number of cells, tile
+      return value ? value.split(',').map(v => +v) : []
+    }
+  },
+  instanceCount: constOpts,
+  instances: {
+    lerpMethod: lerpInstances
+  },
+  instancesDelta: {
+    ...stringOpts,
+    convert (value) {
+      // Blocks of an instance index, a bitmask of the changed fields and their values
+      return value ? value.split(',').map(v => +v) : []
+    }
+  },
+  childrenDelta: {
+    ...stringOpts,
+    convert (value) {
+      // Added ids are positive, removed ids are negative
+      return value ? value.split(',').map(id => +id) : []
+    }
+  },
+
+  pointsSplice: {
+    ...stringOpts,
+    convert (value) {
+      // Index of the first changed coordinate, number of removed coordinates, inserted coordinates
+      const [start, deleteCount, ...items] = value.split(',').map(v => parseInt(v))
+      return { start, deleteCount, items }
+    }
+  },
 
   points: {
     ...stringOpts,
@@ -0,0 +1,82 @@
+package com.codingame.gameengine.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * A game manager outside of any game, which records the view data its modules send for each frame.
+ */
+public class RecordingGameManager extends GameManager<AbstractPlayer> {
+
+    private final List<Future<?>> frames = new ArrayList<>();
+    private final List<Future<?>> snapshots = new ArrayList<>();
+
+    @Override
+    protected boolean allPlayersInactive() {
+        return false;
+    }
+
+    @Override
+    protected void readGameProperties(InputCommand iCmd) {
+    }
+
+    @Override
+    protected OutputCommand getGameSummaryOutputCommand() {
+        return OutputCommand.SUMMARY;
+    }
+
+    @Override
+    public boolean isHeadless() {
+        return false;
+    }
+
+    @Override
+    public void setViewGlobalData(String moduleName, Object data) {
+    }
+
+    @Override
+    public void setViewData(String moduleName, Object data) {
+        setDeferredViewData(moduleName, CompletableFuture.completedFuture(data));
+    }
+
+    @Override
+    public void setDeferredViewData(String moduleName, Future<?> data) {
+        frames.add(data);
+        snapshots.add(null);
+    }
+
+    @Override
+    public void setViewSnapshotData(String moduleName, Object data) {
+        setDeferredViewSnapshotData(moduleName, CompletableFuture.completedFuture(data));
+    }
+
+    @Override
+    public void setDeferredViewSnapshotData(String moduleName, Future<?> data) {
+        snapshots.set(snapshots.size() - 1, data);
+    }
+
+    /**
+     * @return the data of each frame, followed by its snapshot if it has one, waiting for the data still being computed
+     */
+    public String getRecording() {
+        StringBuilder recording = new StringBuilder();
+        for (int i = 0; i < frames.size(); i++) {
+            recording.append("--- frame ").append(i).append('\n').append(get(frames.get(i))).append('\n');
+            if (snapshots.get(i) != null) {
+                recording.append("--- snapshot ").append(i).append('\n').append(get(snapshots.get(i))).append('\n');
+            }
+        }
+        return recording.toString();
+    }
+
+    private static Object get(Future<?> data) {
+        try {
+            return data.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.codingame.gameengine.module.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class NumberFormatterTest {
+
+    private static final double[] EDGE_CASES = {
+        0, -0.0, 1, -1, 0.5, 1e-7, -1e-7, 4.9e-7, 5e-7, 5.1e-7, 1.5e-6, 2.5e-6, 0.1234565, 0.1234575, 0.9999995, 0.99999949, 1.0000005,
+        1 / 3.0, -2 / 3.0, 0.1 + 0.2, 123456.7890125, 999999.9999995, 999999999.9999995, 1e9 - 1e-6, 1e9, 1e9 + 5e-7, 12345678901.0000005, 4503599627370495.5, 1e12, -1e15, 1e20, 1e23, 1e300,
+        Double.MIN_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, Integer.MAX_VALUE + 0.5, Long.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY,
+        Double.NEGATIVE_INFINITY
+    };
+
+    // The format the frames were serialized with before NumberFormatter
+    private static DecimalFormat decimalFormat() {
+        DecimalFormatSymbols symbols = new DecimalFormatSymbols();
+        symbols.setDecimalSeparator('.');
+        DecimalFormat format = new DecimalFormat("0.######");
+        format.setGroupingUsed(false);
+        format.setDecimalFormatSymbols(symbols);
+        return format;
+    }
+
+    @Test
+    void formatsLikeDecimalFormat() {
+        DecimalFormat expected = decimalFormat();
+        for (double value : EDGE_CASES) {
+            assertEquals(expected.format(value), NumberFormatter.format(value), String.valueOf(value));
+            assertEquals(expected.format(-value), NumberFormatter.format(-value), String.valueOf(-value));
+        }
+
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            double value;
+            switch (random.nextInt(4)) {
+            case 0:
+                value = random.nextDouble();
+                break;
+            case 1:
+                // Ties at the 6th fraction digit and their neighbours
+                value = (random.nextInt(2_000_000) + 0.5) / 1e6 + (random.nextInt(3) - 1) * 1e-13;
+                break;
+            case 2:
+                value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(24) - 8);
+                break;
+            default:
+                value = random.nextInt(100_000) / 1000.0;
+            }
+            assertEquals(expected.format(value), NumberFormatter.format(value), String.valueOf(value));
+        }
+    }
+
+    @Test
+    void appendsToExistingContent() {
+        StringBuilder sb = new StringBuilder("x ");
+        NumberFormatter.append(sb, -0.5);
+        sb.append(' ');
+        NumberFormatter.append(sb, 1e12);
+        assertEquals("x -0.5 1000000000000", sb.toString());
+    }
+}
@@ -0,0 +1,401 @@
+package com.codingame.gameengine.module.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.codingame.gameengine.core.RecordingGameManager;
+import com.codingame.gameengine.module.entities.BlendableEntity.BlendMode;
+import com.codingame.gameengine.module.entities.Text.FontWeight;
+import com.codingame.gameengine.module.entities.TextBasedEntity.TextAlign;
+
+/**
+ * Compares the frames sent by the module with golden files. Run with <code>-Dgolden.update=true</code> to write the current frames into the
+ * golden files, then review their diff.
+ */
+class SerializerTest {
+
+    private static final Path GOLDEN_DIRECTORY = Paths.get("src/test/resources/com/codingame/gameengine/module/entities/golden");
+
+    private static class Game {
+        final RecordingGameManager gameManager = new RecordingGameManager();
+        final GraphicEntityModule module = new GraphicEntityModule(gameManager);
+
+        Game() {
+            try {
+                Field serializer = GraphicEntityModule.class.getDeclaredField("gameSerializer");
+                serializer.setAccessible(true);
+                serializer.set(module, new Serializer());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static void assertGolden(String name, Game game) throws IOException {
+        String recording = game.gameManager.getRecording();
+        Path golden = GOLDEN_DIRECTORY.resolve(name + ".txt");
+        if (Boolean.getBoolean("golden.update")) {
+            Files.createDirectories(GOLDEN_DIRECTORY);
+            Files.write(golden, recording.getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(new String(Files.readAllBytes(golden), StandardCharsets.UTF_8), recording, name);
+    }
+
+    @Test
+    void everyPropertyKind() throws IOException {
+        Game game = new Game();
+        GraphicEntityModule module = game.module;
+        module.createWorld(1920, 1080);
+
+        Circle circle = module.createCircle().setRadius(20).setFillColor(0xff0000).setFillAlpha(0.5).setLineColor(0x00ff00).setLineWidth(2.5)
+            .setLineAlpha(0.25);
+        Rectangle rectangle = module.createRectangle().setWidth(100).setHeight(50).setX(10).setY(-20).setZIndex(3);
+        RoundedRectangle roundedRectangle = module.createRoundedRectangle().setWidth(80).setHeight(40).setRadius(8);
+        Line line = module.createLine().setX2(300).setY2(400).setLineWidth(3);
+        Sprite sprite = module.createSprite().setImage("sprite.png").setBaseWidth(64).setBaseHeight(32).setAnchorX(0.5).setAnchorY(1)
+            .setTint(0x123456).setScaleMode(ScaleMode.NEAREST).setBlendMode(BlendMode.ADD);
+        SpriteAnimation animation = module.createSpriteAnimation().setImages("a0", "a1", "a2").setLoop(true).setDuration(500).setPlaying(false);
+        TilingSprite tilingSprite = module.createTilingSprite().setImage("tile.png").setTileX(5).setTileY(-5).setTileScale(0.5);
+        Text text = module.createText("score").setFontSize(24).setFontFamily("Verdana").setFontWeight(FontWeight.BOLD).setStrokeColor(0xffffff)
+            .setStrokeThickness(1.5).setFillColor(0x000000).setTextAlign(TextAlign.CENTER).setMaxWidth(200);
+        BitmapText bitmapText = module.createBitmapText().setFont("font").setText("bitmap").setFontSize(12);
+        Polygon polygon = module.createPolygon().addPoint(0, 0).addPoint(10, 0).addPoint(10, 10);
+        Group group = module.createGroup(circle, rectangle).setScaleX(2).setScaleY(0.5).setSkewX(Math.PI / 4).setSkewY(-Math.PI / 8);
+        BufferedGroup bufferedGroup = module.createBufferedGroup(line).setRotation(Math.PI / 2).setAlpha(0.75).setVisible(false);
+        sprite.setMask(roundedRectangle);
+        String[] images = new SpriteSheetSplitter(module).setName("sheet").setSourceImage("sheet.png").setWidth(32).setHeight(32)
+            .setOrigRow(0).setOrigCol(0).setImageCount(4).setImagesPerRow(2).split();
+        module.onGameInit();
+
+        circle.setRadius(30);
+        rectangle.setZIndex(0).setVisible(true);
+        sprite.setImage(images[1]).setMask(null).setBlendMode(BlendMode.NORMAL).setScaleMode(ScaleMode.LINEAR);
+        animation.reset().setPlaying(true).setImages(images);
+        text.setFontWeight(FontWeight.NORMAL).setTextAlign(TextAlign.RIGHT);
+        bitmapText.setFont("other");
+        bufferedGroup.setVisible(true).setRotation(0);
+        group.remove(rectangle);
+        tilingSprite.setTileScaleX(1);
+        polygon.setFillColor(0x00ffff);
+        module.onAfterGameTurn();
+
+        module.onAfterGameTurn();
+
+        assertGolden("properties", game);
+    }
+
+    @Test
+    void curvesAndFrameTimes() throws IOException {
+        Game game = new Game();
+        GraphicEntityModule module = game.module;
+        List<Sprite> sprites = new ArrayList<>();
+        for (Curve curve : Curve.values()) {
+            sprites.add(module.createSprite().setImage(curve.name()));
+        }
+        module.onGameInit();
+
+        for (int i = 0; i < sprites.size(); i++) {
+            Curve curve = Curve.values()[i];
+            sprites.get(i).setX(100 * i, curve).setY(-10 * i, curve).setAlpha(0.5, curve).setRotation(1, curve);
+        }
+        module.onAfterGameTurn();
+
+        Sprite sprite = sprites.get(0);
+        sprite.setX(1);
+        module.commitEntityState(0, sprite);
+        sprite.setX(2, Curve.EASE_IN);
+        module.commitEntityState(1 / 3.0, sprite);
+        sprite.setX(3, Curve.ELASTIC);
+        module.commitEntityState(0.1234565, sprite);
+        sprite.setX(4);
+        module.commitEntityState(1e-7, sprite);
+        sprites.get(1).setY(5);
+        module.commitWorldState(0.5);
+        sprites.get(2).setScale(2, Curve.EASE_OUT);
+        module.onAfterGameTurn();
+
+        assertGolden("curves", game);
+    }
+
+    @Test
+    void escapedTexts() throws IOException {
+        Game game = new Game();
+        GraphicEntityModule module = game.module;
+        String[] strings = {
+            "plain", "two words", "semi;colon", "it's", "'quoted'", "line\nbreak", "back\\slash", "\"double\"", "#hash", "##double hash",
+            "# 1", "", " ", "caf\u00e9 \u4e2d\u6587", "tab\tbed", "it's;a 'mix'\n"
+        };
+        List<Text> texts = new ArrayList<>();
+        for (String string : strings) {
+            texts.add(module.createText(string).setFontFamily(string));
+            module.createSprite().setImage(string);
+        }
+        module.onGameInit();
+
+        for (int i = 0; i < texts.size(); i++) {
+            texts.get(i).setText(strings[(i + 1) % strings.length]);
+        }
+        module.onAfterGameTurn();
+
+        assertGolden("texts", game);
+    }
+
+    @Test
+    void numberFormatting() throws IOException {
+        Game game = new Game();
+        GraphicEntityModule module = game.module;
+        double[] values = {
+            0, -0.0, 1e-7, -1e-7, 5e-7, 1.5e-6, 0.0000005, 0.1234565, 0.1234575, 0.9999995, 1.0000005, 1 / 3.0, -2 / 3.0, 123456.7890125,
+            999999999.9999995, 1e9, 1e12, -1e15, 1e20, Double.MIN_VALUE, Integer.MAX_VALUE + 0.5
+        };
+        List<Sprite> sprites = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            sprites.add(module.createSprite());
+        }
+        module.onGameInit();
+
+        for (int i = 0; i < values.length; i++) {
+            sprites.get(i).setScaleX(values[i]).setAnchorY(values[i]).setRotation(values[i]).setSkewX(values[i] * Math.PI / 180);
+        }
+        module.onAfterGameTurn();
+
+        assertGolden("numbers", game);
+    }
+
+    @Test
+    void childrenDeltas() throws IOException {
+        Game game = new Game();
+        GraphicEntityModule module = game.module;
+        List<Sprite> sprites = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            sprites.add(module.createSprite());
+        }
+        Group group = module.createGroup(sprites.get(0), sprites.get(1), sprites.get(2));
+        BufferedGroup bufferedGroup = module.createBufferedGroup();
+        module.onGameInit();
+
+        group.add(sprites.get(3));
+        group.remove(sprites.get(0));
+        bufferedGroup.add(sprites.get(4), sprites.get(5));
+        module.onAfterGameTurn();
+
+        // Removed then added back within the frame: nothing to send
+        group.remove(sprites.get(1));
+        group.add(sprites.get(1));
+        bufferedGroup.remove(sprites.get(4));
+        module.commitEntityState(0.5, bufferedGroup);
+        bufferedGroup.add(sprites.get(4));
+        module.onAfterGameTurn();
+
+        bufferedGroup.remove(sprites.get(5));
+        module.dispose(sprites.get(5));
+        module.onAfterGameTurn();
+
+        assertGolden("children", game);
+    }
+
+    @Test
+    void templates() throws IOException {
+        Game game = new Game();
+        GraphicEntityModule module = game.module;
+        EntityTemplate<Sprite> bullet = module.createTemplate(Sprite.class, sprite -> sprite.setImage("bullet.png").setAnchor(0.5).setZIndex(2));
+        EntityTemplate<Circle> dot = module.createTemplate(Circle.class, circle -> circle.setRadius(3).setFillColor(0xff00ff));
+
+        List<Sprite> bullets = module.createFromTemplate(bullet, 3);
+        module.createCircle();
+        module.createFromTemplate(dot, 2);
+        module.createFromTemplate(bullet, 1);
+        module.onGameInit();
+
+        bullets.get(0).setX(100);
+        bullets.get(1).setImage("bullet.png");
+        bullets.get(2).setZIndex(0);
+        module.createFromTemplate(bullet, 2).get(1).setY(7);
+        module.onAfterGameTurn();
+
+        assertGolden("templates", game);
+    }
+
+    @Test
+    void tilemapAndInstanceDeltas() throws IOException {
+        Game game = new Game();
+        GraphicEntityModule module = game.module;
+        Tilemap tilemap = module.createTilemap().setTiles("grass.png", "water.png", "#rock").setGridSize(4, 3).setTileSize(16, 16).fill(0);
+        InstancedSprite instances = module.createInstancedSprite().setImages("bullet.png", "spark.png").setAnchor(0.5).setInstanceCount(3);
+        instances.setInstancePosition(0, 10, 20).setInstancePosition(2, -5, 5);
+        module.onGameInit();
+
+        tilemap.setCell(1, 1, 2).setCell(3, 2, -1).setCell(0, 0, 1);
+        instances.setInstanceRotation(1, Math.PI).setInstanceAlpha(1, 0.5).setInstanceTint(0, 0xff0000).setInstanceImage(2, 1);
+        module.onAfterGameTurn();
+
+        tilemap.setCell(1, 1, 0);
+        module.commitEntityState(0.5, tilemap);
+        tilemap.setCell(1, 1, 2).setCell(2, 2, 1);
+        instances.setInstanceCount(5).setInstancePosition(4, 1, 1);
+        module.onAfterGameTurn();
+
+        tilemap.setGridSize(2, 2).setTiles("grass.png");
+        instances.setInstanceCount(1);
+        module.onAfterGameTurn();
+
+        assertGolden("tilemaps", game);
+    }
+
+    @Test
+    void splices() throws IOException {
+        Game game = new Game();
+        GraphicEntityModule module = game.module;
+        Text text = module.createText("Hello world");
+        Polygon polygon = module.createPolygon().addPoint(0, 0).addPoint(10, 0);
+        module.onGameInit();
+
+        text.setText("Hello big world");
+        polygon.addPoint(10, 10);
+        module.onAfterGameTurn();
+
+        text.setText("Jello big world!");
+        polygon.clearPoints().addPoint(0, 0).addPoint(10, 0).addPoint(5, 5);
+        module.onAfterGameTurn();
+
+        text.setText("");
+        polygon.clearPoints();
+        module.onAfterGameTurn();
+
+        text.setText("it's a new; line\n");
+        polygon.addPoint(-1, -1);
+        module.onAfterGameTurn();
+
+        assertGolden("splices", game);
+    }
+
+    @Test
+    void internedStrings() throws IOException {
+        Game game = new Game();
+        GraphicEntityModule module = game.module;
+        List<Sprite> sprites = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            sprites.add(module.createSprite().setImage("image" + i % 3 + ".png"));
+        }
+        module.createText("#0").setFontFamily("Arial");
+        module.createText("Arial").setFontFamily("Arial");
+        module.onGameInit();
+
+        for (int i = 0; i < sprites.size(); i++) {
+            sprites.get(i).setImage("frame" + i + ".png");
+        }
+        module.onAfterGameTurn();
+
+        for (int i = 0; i < sprites.size(); i++) {
+            sprites.get(i).setImage("image" + i % 4 + ".png");
+        }
+        module.onAfterGameTurn();
+
+        assertGolden("interned", game);
+    }
+
+    @Test
+    void snapshots() throws IOException {
+        Game game = new Game();
+        GraphicEntityModule module = game.module;
+        module.setSnapshotInterval(2);
+        Group group = module.createGroup();
+        Sprite sprite = module.createSprite().setImage("a.png");
+        Text text = module.createText("snapshot");
+        Tilemap tilemap = module.createTilemap().setTiles("t.png").setGridSize(2, 1);
+        InstancedSprite instances = module.createInstancedSprite().setImages("i.png").setInstanceCount(2);
+        module.onGameInit();
+
+        group.add(sprite);
+        tilemap.setCell(1, 0, 0);
+        instances.setInstancePosition(1, 3, 4);
+        text.setText("snap shot");
+        sprite.setX(10, Curve.LINEAR);
+        module.onAfterGameTurn();
+
+        Sprite other = module.createSprite();
+        group.add(other);
+        module.dispose(text);
+        module.onAfterGameTurn();
+
+        module.onAfterGameTurn();
+
+        assertGolden("snapshots", game);
+    }
+
+    private static List<String> largeGame(int parallelThreshold, boolean pipelined) {
+        Game game = new Game();
+        GraphicEntityModule module = game.module;
+        module.setParallelThreshold(parallelThreshold);
+        module.setPipelined(pipelined);
+        module.setSnapshotInterval(3);
+
+        Random random = new Random(1);
+        List<Sprite> sprites = new ArrayList<>();
+        List<Group> groups = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            sprites.add(module.createSprite().setImage("image" + random.nextInt(50)));
+        }
+        for (int i = 0; i < 20; i++) {
+            groups.add(module.createGroup());
+        }
+        module.onGameInit();
+
+        for (int turn = 0; turn < 10; turn++) {
+            for (int i = 0; i < 2000; i++) {
+                Sprite sprite = sprites.get(random.nextInt(sprites.size()));
+                switch (random.nextInt(5)) {
+                case 0:
+                    sprite.setX(random.nextInt(1920), Curve.values()[random.nextInt(Curve.values().length)]);
+                    break;
+                case 1:
+                    sprite.setImage("image" + random.nextInt(100));
+                    break;
+                case 2:
+                    sprite.setAlpha(random.nextDouble());
+                    break;
+                case 3:
+                    if (sprite.getParent().isPresent()) {
+                        sprite.getParent().get().remove(sprite);
+                    } else {
+                        groups.get(random.nextInt(groups.size())).add(sprite);
+                    }
+                    break;
+                default:
+                    module.commitEntityState(random.nextInt(4) / 4.0, sprite);
+                }
+            }
+            if (random.nextBoolean()) {
+                module.commitWorldState(0.5);
+            }
+            sprites.addAll(module.createFromTemplate(module.createTemplate(Sprite.class, sprite -> sprite.setImage("template")), 10));
+            module.onAfterGameTurn();
+        }
+        module.onAfterOnEnd();
+
+        List<String> frames = new ArrayList<>();
+        for (String frame : game.gameManager.getRecording().split("--- ")) {
+            frames.add(frame);
+        }
+        return frames;
+    }
+
+    @Test
+    void parallelFramesMatchSequentialFrames() {
+        List<String> sequential = largeGame(0, false);
+        assertEquals(sequential, largeGame(1, false));
+        assertEquals(sequential, largeGame(1000, false));
+        assertEquals(sequential, largeGame(1, true));
+    }
+}
@@ -72,7 +72,9 @@ public class ToggleModule implements Module {
     }
 
     private void sendFrameData() {
-        if (newRegistration.size() > 0) {
+        if (gameManager.isHeadless()) {
+            newRegistration.clear();
+        } else if (newRegistration.size() > 0) {
             Map<String, String> data = new HashMap<>();
             newRegistration.forEach((entityId, toggle) -> {
                 data.put(toggle.name, data.getOrDefault(toggle.name, "") + entityId + (toggle.state ? "+" : "-"));
@@ -45,7 +45,9 @@ public class TooltipModule implements Module {
     }
 
     private void sendFrameData() {
-        if (!newRegistration.isEmpty()) {
+        if (gameManager.isHeadless()) {
+            newRegistration.clear();
+        } else if (!newRegistration.isEmpty()) {
             Object[] data = { newRegistration };
 
             gameManager.setViewData("tooltips", data);
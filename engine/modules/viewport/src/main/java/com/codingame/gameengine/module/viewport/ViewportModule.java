@@ -46,7 +46,9 @@ public class ViewportModule implements Module {
     }
 
     private void sendFrameData() {
-        gameManager.setViewData("viewport", newEntityIds);
+        if (!gameManager.isHeadless()) {
+            gameManager.setViewData("viewport", newEntityIds);
+        }
 
         newEntityIds.clear();
     }
@@ -20,6 +20,7 @@ abstract class Agent {
     private OutputStream processStdin;
     private InputStream processStdout;
     private InputStream processStderr;
+    private AgentOutputReader outputReader;
     private int totalStderrBytesSent = 0;
     private int agentId;
     private boolean lastAgentByteIsCarriageReturn = false;
@@ -38,6 +39,15 @@ abstract class Agent {
 
     abstract protected InputStream getErrorStream();
 
+    /**
+     * Whether the standard output of this agent should be drained by a dedicated reader thread instead of being polled by <code>getOutput</code>.
+     *
+     * @return true to read the output with an <code>AgentOutputReader</code>
+     */
+    protected boolean useOutputReader() {
+        return false;
+    }
+
     /**
      * Initialize an agent given global properties. A call to this function is needed before-all
      *
@@ -56,6 +66,10 @@ abstract class Agent {
             this.processStdin = getInputStream();
             this.processStdout = getOutputStream();
             this.processStderr = getErrorStream();
+            if (useOutputReader() && processStdout != null) {
+                outputReader = new AgentOutputReader(processStdout);
+                outputReader.start();
+            }
             runInputOutput();
         } catch (Exception e) {
             setFailed(true);
@@ -64,6 +78,9 @@ abstract class Agent {
     }
 
     public void destroy() {
+        if (outputReader != null) {
+            outputReader.close();
+        }
     }
 
     /**
@@ -107,6 +124,9 @@ abstract class Agent {
         if (processStdout == null) {
             return null;
         }
+        if (outputReader != null) {
+            return outputReader.readLines(nbLine, timeout, AGENT_MAX_BUFFER_SIZE);
+        }
 
         try {
             byte[] tmp = new byte[AGENT_MAX_BUFFER_SIZE];
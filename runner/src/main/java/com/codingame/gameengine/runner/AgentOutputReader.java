@@ -0,0 +1,169 @@
+package com.codingame.gameengine.runner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Drains an agent's standard output in bulk on a dedicated thread and hands it out line by line.
+ * <p>
+ * A <code>\n</code> directly following a <code>\r</code> is dropped as it is received, so the buffered bytes are already normalized the same way
+ * the byte-per-byte polling loop of <code>Agent.getOutput</code> normalizes them.
+ * </p>
+ */
+class AgentOutputReader extends Thread {
+
+    private static final int READ_CHUNK_SIZE = 8192;
+    private static final int MAX_PENDING_BYTES = 1024 * 1024;
+
+    private final InputStream stream;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition dataAvailable = lock.newCondition();
+    private final Condition spaceAvailable = lock.newCondition();
+
+    private byte[] buffer = new byte[READ_CHUNK_SIZE];
+    private int start = 0;
+    private int end = 0;
+    private boolean lastByteIsCarriageReturn = false;
+    private boolean closed = false;
+    private boolean failed = false;
+
+    AgentOutputReader(InputStream stream) {
+        this.stream = stream;
+        setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+        byte[] chunk = new byte[READ_CHUNK_SIZE];
+        try {
+            while (true) {
+                int nbRead = stream.read(chunk, 0, chunk.length);
+                if (nbRead < 0) {
+                    break;
+                }
+                append(chunk, nbRead);
+            }
+            close(false);
+        } catch (IOException e) {
+            close(true);
+        } catch (InterruptedException e) {
+            close(false);
+        }
+    }
+
+    private void append(byte[] chunk, int length) throws InterruptedException {
+        lock.lock();
+        try {
+            while (!closed && end - start >= MAX_PENDING_BYTES) {
+                spaceAvailable.await();
+            }
+            if (closed) {
+                return;
+            }
+            ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                byte curByte = chunk[i];
+                if (!((curByte == '\n') && lastByteIsCarriageReturn)) {
+                    buffer[end++] = curByte;
+                }
+                lastByteIsCarriageReturn = curByte == '\r';
+            }
+            dataAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        int pending = end - start;
+        if (end + extra <= buffer.length) {
+            return;
+        }
+        byte[] target = buffer;
+        if (pending + extra > buffer.length) {
+            target = new byte[Math.max(buffer.length * 2, pending + extra)];
+        }
+        System.arraycopy(buffer, start, target, 0, pending);
+        buffer = target;
+        start = 0;
+        end = pending;
+    }
+
+    /**
+     * Stops the reader. Pending bytes remain available to <code>readLines</code>.
+     */
+    void close() {
+        close(false);
+        interrupt();
+    }
+
+    private void close(boolean error) {
+        lock.lock();
+        try {
+            closed = true;
+            failed |= error;
+            dataAvailable.signalAll();
+            spaceAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until <code>nbLine</code> lines have been received, <code>maxBufferSize</code> bytes have been received or the timeout has expired,
+     * whichever comes first.
+     *
+     * @param nbLine
+     *            Number of lines wanted
+     * @param timeout
+     *            Stop waiting after timeout milliseconds
+     * @param maxBufferSize
+     *            Maximum number of bytes to return
+     * @return the received output, or null if the stream failed before anything could be read
+     */
+    String readLines(int nbLine, long timeout, int maxBufferSize) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        lock.lock();
+        try {
+            int scanned = 0;
+            int nbOccurences = 0;
+
+            while (true) {
+                while (nbOccurences < nbLine && scanned < maxBufferSize && start + scanned < end) {
+                    byte curByte = buffer[start + scanned++];
+                    if ((curByte == '\n') || (curByte == '\r')) {
+                        ++nbOccurences;
+                    }
+                }
+                if (nbOccurences >= nbLine || scanned >= maxBufferSize || closed) {
+                    break;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                dataAvailable.awaitNanos(remaining);
+            }
+
+            if (scanned == 0 && failed) {
+                return null;
+            }
+            String output = new String(buffer, start, scanned, Agent.UTF8);
+            start += scanned;
+            if (start == end) {
+                start = 0;
+                end = 0;
+            }
+            spaceAvailable.signalAll();
+            return output;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.codingame.gameengine.runner;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import com.codingame.gameengine.runner.simulate.GameResult;
+
+/**
+ * The class to use to run many multiplayer games locally, for instance to evaluate bots against each other.
+ * <p>
+ * Matches are run concurrently on a bounded pool of worker threads and each <code>GameResult</code> is handed to the given consumer as soon as
+ * its match is over.
+ * </p>
+ */
+public class BatchGameRunner {
+
+    private final int parallelism;
+    private final List<Match> matches = new ArrayList<>();
+    private int viewSampleRate = 1;
+
+    /**
+     * Creates a runner using one worker thread per available processor.
+     */
+    public BatchGameRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a runner using the given number of worker threads.
+     *
+     * @param parallelism
+     *            the maximum number of matches running at the same time.
+     * @exception IllegalArgumentException
+     *                if parallelism &lt; 1
+     */
+    public BatchGameRunner(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Runs the matches headless, except one match in <code>viewSampleRate</code> which keeps its views as a sample. By default, every match
+     * keeps its views.
+     *
+     * @param viewSampleRate
+     *            1 to keep the views of every match, n to keep the views of the first match and then of one match in n, or 0 to run every match
+     *            headless.
+     * @exception IllegalArgumentException
+     *                if viewSampleRate &lt; 0
+     * @see GameRunner#setHeadless(boolean)
+     */
+    public void setViewSampleRate(int viewSampleRate) {
+        if (viewSampleRate < 0) {
+            throw new IllegalArgumentException("View sample rate must not be negative");
+        }
+        this.viewSampleRate = viewSampleRate;
+    }
+
+    /**
+     * Adds a match to run.
+     *
+     * @param match
+     *            the match to run.
+     */
+    public void addMatch(Match match) {
+        matches.add(match);
+    }
+
+    /**
+     * Adds one copy of the given match for each given seed.
+     *
+     * @param match
+     *            the match to run.
+     * @param seeds
+     *            the seeds to run the match with.
+     */
+    public void addMatches(Match match, long... seeds) {
+        for (long seed : seeds) {
+            matches.add(match.withSeed(seed));
+        }
+    }
+
+    /**
+     * Runs every added match and blocks until they are all over.
+     * <p>
+     * The consumer is called once per match, in order of completion. Calls are never concurrent, so the consumer does not need to be thread-safe.
+     * A match that could not be run at all, whatever its referee threw, is reported with a <code>GameResult</code> whose <code>failCause</code> is
+     * set. Only a <code>VirtualMachineError</code>, such as running out of memory, aborts the batch.
+     * </p>
+     *
+     * @param resultConsumer
+     *            called with each match and its result as soon as the match is over.
+     */
+    public void run(BiConsumer<Match, GameResult> resultConsumer) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "BatchGameRunner-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Object consumerLock = new Object();
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(matches.size());
+            for (int i = 0; i < matches.size(); i++) {
+                Match match = matches.get(i);
+                boolean headless = viewSampleRate == 0 || i % viewSampleRate != 0;
+                futures.add(pool.submit(() -> {
+                    GameResult result = simulate(match, headless);
+                    synchronized (consumerLock) {
+                        resultConsumer.accept(match, result);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Batch run failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Batch run interrupted", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private GameResult simulate(Match match, boolean headless) {
+        try {
+            MultiplayerGameRunner runner = match.createRunner();
+            if (headless) {
+                runner.setHeadless(true);
+            }
+            return runner.simulate();
+        } catch (VirtualMachineError e) {
+            throw e;
+        } catch (Throwable e) {
+            // Referees may throw checked exceptions or errors, which must not abort the other matches
+            GameResult result = new GameResult();
+            StringWriter sw = new StringWriter();
+            e.printStackTrace(new PrintWriter(sw));
+            result.failCause = sw.toString();
+            return result;
+        }
+    }
+}
@@ -31,6 +31,11 @@ class Command {
         this.lines = Arrays.asList(lines);
     }
 
+    public Command(CommandKey key, List<String> lines) {
+        this.key = key;
+        this.lines = lines;
+    }
+
     public void addLine(Object data) {
         lines.add(String.valueOf(data));
 
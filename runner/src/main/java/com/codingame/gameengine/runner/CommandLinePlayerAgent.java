@@ -65,6 +65,11 @@ public class CommandLinePlayerAgent extends Agent {
         processStderr = process.getErrorStream();
     }
 
+    @Override
+    protected boolean useOutputReader() {
+        return true;
+    }
+
     @Override
     public String getOutput(int nbLine, long timeout) {
         String output = super.getOutput(nbLine, timeout);
@@ -85,6 +90,7 @@ public class CommandLinePlayerAgent extends Agent {
 
     @Override
     public void destroy() {
+        super.destroy();
         process.destroy();
     }
 }
@@ -0,0 +1,221 @@
+package com.codingame.gameengine.runner;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.codingame.gameengine.runner.dto.GameResultDto;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Streams the per-turn data of a game (views, summaries, outputs and errors) to disk while the game runs, then assembles the
+ * <code>game.json</code> file of the viewer without holding the whole replay in memory.
+ * <p>
+ * Each growing list is written as a JSON array to its own spool file. The final file is made of these spools copied channel to channel, with
+ * the small remaining fields of the <code>GameResultDto</code> written around them.
+ * </p>
+ */
+class GameResultWriter implements Closeable {
+
+    private final Gson gson = new Gson();
+    private final Path spoolDirectory;
+    private final Map<String, Spool> errors = new LinkedHashMap<>();
+    private final Map<String, Spool> outputs = new LinkedHashMap<>();
+    private final Spool summaries;
+    private final Spool views;
+    private int spoolCount = 0;
+
+    GameResultWriter() throws IOException {
+        spoolDirectory = Files.createTempDirectory("codingame-result");
+        summaries = new Spool();
+        views = new Spool();
+    }
+
+    /**
+     * Declares an agent so that it appears in the errors and outputs even if nothing is added for it.
+     */
+    void addAgent(String agent) {
+        errors.computeIfAbsent(agent, key -> new Spool());
+        outputs.computeIfAbsent(agent, key -> new Spool());
+    }
+
+    void addError(String agent, String error) {
+        errors.computeIfAbsent(agent, key -> new Spool()).add(error);
+    }
+
+    void addOutput(String agent, String output) {
+        outputs.computeIfAbsent(agent, key -> new Spool()).add(output);
+    }
+
+    void addSummary(String summary) {
+        summaries.add(summary);
+    }
+
+    /**
+     * Adds a frame of the view. A frame made of a header line followed by its JSON data is written as an array of the header and the data,
+     * embedded as is rather than escaped in a string. Other frames are written as strings.
+     */
+    void addView(String view) {
+        int dataStart = view == null ? -1 : view.indexOf('\n') + 1;
+        if (dataStart > 0 && dataStart < view.length() && view.charAt(dataStart) == '{') {
+            int dataEnd = view.endsWith("\n") ? view.length() - 1 : view.length();
+            views.addRaw(view.substring(0, dataStart - 1), view.substring(dataStart, dataEnd));
+        } else {
+            views.add(view);
+        }
+    }
+
+    /**
+     * Writes the complete game result, in the same format as <code>new Gson().toJson(gameResult)</code> except for the views, followed by a
+     * line feed.
+     *
+     * @param file
+     *            the file to write
+     * @param gameResult
+     *            the rest of the game result. Its errors, outputs, summaries and views are ignored.
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    void writeTo(File file, GameResultDto gameResult) throws IOException {
+        try (
+            FileChannel target = FileChannel.open(
+                file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+            );
+            Writer out = new BufferedWriter(Channels.newWriter(target, StandardCharsets.UTF_8.newEncoder(), -1))
+        ) {
+            out.write('{');
+            writeName(out, "errors", true);
+            writeSpools(out, target, errors);
+            writeName(out, "outputs", false);
+            writeSpools(out, target, outputs);
+            writeName(out, "summaries", false);
+            summaries.transferTo(out, target);
+            writeName(out, "views", false);
+            views.transferTo(out, target);
+
+            writeField(out, "scores", gameResult.scores);
+            writeField(out, "uinput", gameResult.uinput);
+            writeField(out, "metadata", gameResult.metadata);
+            writeField(out, "tooltips", gameResult.tooltips);
+            writeField(out, "ids", gameResult.ids);
+            writeField(out, "agents", gameResult.agents);
+            writeField(out, "failCause", gameResult.failCause);
+            out.write("}\n");
+        }
+    }
+
+    private void writeName(Writer out, String name, boolean first) throws IOException {
+        if (!first) {
+            out.write(',');
+        }
+        out.write(gson.toJson(name));
+        out.write(':');
+    }
+
+    private void writeField(Writer out, String name, Object value) throws IOException {
+        // Like Gson, null fields are left out
+        if (value != null) {
+            writeName(out, name, false);
+            out.write(gson.toJson(value));
+        }
+    }
+
+    private void writeSpools(Writer out, FileChannel target, Map<String, Spool> spools) throws IOException {
+        out.write('{');
+        boolean first = true;
+        for (Map.Entry<String, Spool> entry : spools.entrySet()) {
+            writeName(out, entry.getKey(), first);
+            entry.getValue().transferTo(out, target);
+            first = false;
+        }
+        out.write('}');
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Spool spool : errors.values()) {
+            spool.close();
+        }
+        for (Spool spool : outputs.values()) {
+            spool.close();
+        }
+        summaries.close();
+        views.close();
+        Files.deleteIfExists(spoolDirectory);
+    }
+
+    /**
+     * A JSON array of strings, or of a string and a JSON value, written to a temporary file.
+     */
+    private class Spool {
+        private final Path path;
+        private final FileChannel channel;
+        private final JsonWriter writer;
+        private boolean finished = false;
+
+        Spool() {
+            try {
+                path = spoolDirectory.resolve("spool" + spoolCount++ + ".json");
+                channel = FileChannel.open(
+                    path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE
+                );
+                writer = gson.newJsonWriter(new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1)));
+                writer.beginArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void add(String value) {
+            try {
+                writer.value(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Adds an array of the string and of the JSON value, which is written without being checked.
+         */
+        void addRaw(String value, String json) {
+            try {
+                writer.beginArray();
+                writer.value(value);
+                writer.jsonValue(json);
+                writer.endArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void transferTo(Writer out, FileChannel target) throws IOException {
+            if (!finished) {
+                writer.endArray();
+                writer.flush();
+                finished = true;
+            }
+            out.flush();
+            long size = channel.size();
+            for (long position = 0; position < size;) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+
+        void close() throws IOException {
+            channel.close();
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -2,21 +2,23 @@ package com.codingame.gameengine.runner;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.codingame.gameengine.core.RefereeBridge;
 import com.codingame.gameengine.runner.Command.InputCommand;
 import com.codingame.gameengine.runner.Command.OutputCommand;
 import com.codingame.gameengine.runner.dto.AgentDto;
@@ -25,24 +27,29 @@ import com.codingame.gameengine.runner.dto.TooltipDto;
 import com.codingame.gameengine.runner.simulate.AgentData;
 import com.codingame.gameengine.runner.simulate.GameResult;
 import com.codingame.gameengine.runner.simulate.TooltipData;
-import com.google.gson.Gson;
 
 abstract class GameRunner {
 
     static final String INTERRUPT_THREAD = "05&08#1981";
-    private static final Pattern COMMAND_HEADER_PATTERN = Pattern
-        .compile("\\[\\[(?<cmd>.+)\\] ?(?<lineCount>[0-9]+)\\]");
+    private static final ExecutorService PLAYER_OUTPUT_READERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "GameRunner-player-output");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     protected static Log log = LogFactory.getLog(GameRunner.class);
     GameResultDto gameResult = new GameResultDto();
+    protected final Properties refereeSettings = new Properties();
     private ByteArrayOutputStream refereeStdout;
     private ByteArrayOutputStream refereeStderr;
 
-    private Agent referee;
+    private RefereeAgent referee;
+    private GameResultWriter resultWriter;
     protected final List<Agent> players;
     private final List<AsynchronousWriter> writers = new ArrayList<>();
     private final List<BlockingQueue<String>> queues = new ArrayList<>();
     private boolean gameEnded = false;
+    private boolean headless = Boolean.getBoolean("game.headless");
 
     private String[] avatars = new String[] { "16085734516701", "16085846089817", "16085713250612", "16085756802960", "16085746254929",
         "16085763837151", "16085720641630", "16085834521247" };
@@ -53,10 +60,10 @@ abstract class GameRunner {
     };
 
     protected GameRunner() {
-        referee = new RefereeAgent();
         players = new ArrayList<Agent>();
         refereeStdout = new ByteArrayOutputStream();
         refereeStderr = new ByteArrayOutputStream();
+        referee = new RefereeAgent(refereeSettings, refereeStdout, refereeStderr);
     }
 
     private void initialize(Properties conf) {
@@ -66,18 +73,21 @@ abstract class GameRunner {
         referee.initialize(conf);
         gameResult.outputs.put("referee", new ArrayList<>());
         gameResult.errors.put("referee", new ArrayList<>());
+        if (resultWriter != null) {
+            resultWriter.addAgent("referee");
+        }
 
         for (int i = 0; i < players.size(); i++) {
             String id = String.valueOf(i);
             Agent player = players.get(i);
             player.initialize(conf);
 
-            List<String> initOutputsValues = new ArrayList<>();
-            initOutputsValues.add(null);
-            gameResult.outputs.put(id, initOutputsValues);
-
-            List<String> initErrorsValues = new ArrayList<>();
-            gameResult.errors.put(id, initErrorsValues);
+            gameResult.outputs.put(id, new ArrayList<>());
+            gameResult.errors.put(id, new ArrayList<>());
+            if (resultWriter != null) {
+                resultWriter.addAgent(id);
+            }
+            addOutput(id, null);
 
             AgentDto agent = new AgentDto();
             agent.index = i;
@@ -123,7 +133,7 @@ abstract class GameRunner {
 
         buildInitCommand(initCommand);
 
-        referee.sendInput(initCommand.toString());
+        referee.send(initCommand);
         int round = 0;
         while (true) {
             GameTurnInfo turnInfo = readGameInfo(round);
@@ -136,41 +146,49 @@ abstract class GameRunner {
             gameResult.failCause = turnInfo.get(InputCommand.FAIL).orElse(null);
 
             if (validTurn) {
-                gameResult.outputs.get("referee").add(refereeStdout.toString());
+                addOutput("referee", refereeStdout.toString());
                 refereeStdout.reset();
-                gameResult.summaries.add(turnInfo.get(InputCommand.SUMMARY).orElse(turnInfo.get(InputCommand.INFOS).orElse(null)));
+                addSummary(turnInfo.get(InputCommand.SUMMARY).orElse(turnInfo.get(InputCommand.INFOS).orElse(null)));
             }
 
             if ((validTurn) && (!turnInfo.get(InputCommand.SCORES).isPresent())) {
-                NextPlayerInfo nextPlayerInfo = new NextPlayerInfo(
-                    turnInfo.get(InputCommand.NEXT_PLAYER_INFO).orElse(null)
+                List<NextPlayerInfo> nextPlayerInfos = NextPlayerInfo.parse(turnInfo.getLines(InputCommand.NEXT_PLAYER_INFO));
+                List<String> nextPlayerInputs = splitNextPlayerInputs(
+                    nextPlayerInfos,
+                    turnInfo.getLines(InputCommand.NEXT_PLAYER_INPUT)
                 );
 
-                String nextPlayerOutput = getNextPlayerOutput(
-                    nextPlayerInfo,
-                    turnInfo.get(InputCommand.NEXT_PLAYER_INPUT).orElse(null)
-                );
+                String[] nextPlayerOutputs = getNextPlayerOutputs(nextPlayerInfos, nextPlayerInputs);
 
-                for (Agent a : players) {
-                    gameResult.outputs.get(String.valueOf(a.getAgentId())).add(a.getAgentId() == nextPlayerInfo.nextPlayer ? nextPlayerOutput : null);
+                String[] agentOutputs = new String[players.size()];
+                for (int i = 0; i < nextPlayerInfos.size(); i++) {
+                    agentOutputs[nextPlayerInfos.get(i).nextPlayer] = nextPlayerOutputs[i];
                 }
-
-                if (nextPlayerOutput != null) {
-                    log.info("\t=== Read from player");
-                    log.info(nextPlayerOutput);
-                    log.info("\t=== End Player");
-                    Agent player = players.get(nextPlayerInfo.nextPlayer);
-                    sendPlayerOutput(nextPlayerOutput, nextPlayerInfo.nbLinesNextOutput, player);
-                } else {
-                    sendTimeOut();
+                for (int i = 0; i < players.size(); i++) {
+                    addOutput(String.valueOf(players.get(i).getAgentId()), agentOutputs[i]);
+                }
+                readPlayerErrors(nextPlayerInfos);
+
+                for (int i = 0; i < nextPlayerInfos.size(); i++) {
+                    NextPlayerInfo nextPlayerInfo = nextPlayerInfos.get(i);
+                    String nextPlayerOutput = nextPlayerOutputs[i];
+                    if (nextPlayerOutput != null) {
+                        log.info("\t=== Read from player");
+                        log.info(nextPlayerOutput);
+                        log.info("\t=== End Player");
+                        Agent player = players.get(nextPlayerInfo.nextPlayer);
+                        sendPlayerOutput(nextPlayerOutput, nextPlayerInfo.nbLinesNextOutput, player);
+                    } else {
+                        sendTimeOut();
+                    }
                 }
             }
 
-            readError(referee);
+            readRefereeError();
             if (!validTurn) {
-                gameResult.views.add(null);
+                addView(null);
             } else {
-                gameResult.views.add(turnInfo.get(InputCommand.VIEW).orElse(null));
+                addView(turnInfo.get(InputCommand.VIEW).orElse(null));
 
                 turnInfo.get(InputCommand.UINPUT).ifPresent(line -> {
                     gameResult.uinput.add(line);
@@ -180,26 +198,21 @@ abstract class GameRunner {
                     gameResult.metadata = line;
                 });
 
-                final int currentRound = round;
-                turnInfo.get(InputCommand.TOOLTIP).ifPresent(line -> {
-                    String[] tooltipData = line.split("\n");
-                    for (int i = 0; i < tooltipData.length / 2; ++i) {
-                        String text = tooltipData[i * 2];
-                        int eventId = Integer.valueOf(tooltipData[i * 2 + 1]);
-                        gameResult.tooltips.add(new TooltipDto(text, eventId, currentRound));
-                    }
-                });
+                List<String> tooltipData = turnInfo.getLines(InputCommand.TOOLTIP);
+                for (int i = 0; i < tooltipData.size() / 2; ++i) {
+                    String text = tooltipData.get(i * 2);
+                    int eventId = Integer.valueOf(tooltipData.get(i * 2 + 1));
+                    gameResult.tooltips.add(new TooltipDto(text, eventId, round));
+                }
 
-                turnInfo.get(InputCommand.SCORES).ifPresent(scores -> {
-                    for (String line : scores.split("\n")) {
-                        String[] parts = line.split(" ");
-                        if (parts.length > 1) {
-                            int player = Integer.decode(parts[0]);
-                            int score = Integer.decode(parts[1]);
-                            gameResult.scores.put(player, score);
-                        }
+                for (String line : turnInfo.getLines(InputCommand.SCORES)) {
+                    String[] parts = line.split(" ");
+                    if (parts.length > 1) {
+                        int player = Integer.decode(parts[0]);
+                        int score = Integer.decode(parts[1]);
+                        gameResult.scores.put(player, score);
                     }
-                });
+                }
             }
             round++;
             if (!validTurn || turnInfo.isEndTurn()) {
@@ -215,10 +228,39 @@ abstract class GameRunner {
 
     abstract protected void buildInitCommand(Command initCommand);
 
-    private String getJSONResult() {
-        addPlayerIds();
+    private void addOutput(String agent, String output) {
+        if (resultWriter != null) {
+            resultWriter.addOutput(agent, output);
+        } else {
+            gameResult.outputs.get(agent).add(output);
+        }
+    }
+
+    private void addError(String agent, String error) {
+        if (resultWriter != null) {
+            resultWriter.addError(agent, error);
+        } else {
+            gameResult.errors.get(agent).add(error);
+        }
+    }
+
+    private void addSummary(String summary) {
+        if (resultWriter != null) {
+            resultWriter.addSummary(summary);
+        } else {
+            gameResult.summaries.add(summary);
+        }
+    }
 
-        return new Gson().toJson(gameResult);
+    private void addView(String view) {
+        if (headless) {
+            return;
+        }
+        if (resultWriter != null) {
+            resultWriter.addView(view);
+        } else {
+            gameResult.views.add(view);
+        }
     }
 
     private void addPlayerIds() {
@@ -234,21 +276,28 @@ abstract class GameRunner {
         for (int i = 0; i < players.size(); i++) {
             Agent player = players.get(i);
             String id = String.valueOf(i);
-            gameResult.errors.get(id).add(player.readError());
+            addError(id, player.readError());
         }
     }
 
     /**
-     * Read all output from standard error stream
+     * Read all output from the referee's standard error stream
      */
-    private void readError(Agent agent) {
-        if (agent == referee) {
-            gameResult.errors.get("referee").add(refereeStderr.toString());
-            refereeStderr.reset();
-        } else {
-            for (Agent a : players) {
-                gameResult.errors.get(String.valueOf(a.getAgentId())).add(a == agent ? agent.readError() : null);
-            }
+    private void readRefereeError() {
+        addError("referee", refereeStderr.toString());
+        refereeStderr.reset();
+    }
+
+    /**
+     * Read all output from the standard error stream of the players executed this turn
+     */
+    private void readPlayerErrors(List<NextPlayerInfo> nextPlayerInfos) {
+        String[] errors = new String[players.size()];
+        for (NextPlayerInfo nextPlayerInfo : nextPlayerInfos) {
+            errors[nextPlayerInfo.nextPlayer] = players.get(nextPlayerInfo.nextPlayer).readError();
+        }
+        for (int i = 0; i < players.size(); i++) {
+            addError(String.valueOf(players.get(i).getAgentId()), errors[i]);
         }
     }
 
@@ -262,7 +311,7 @@ abstract class GameRunner {
         }
 
         Command command = new Command(OutputCommand.SET_PLAYER_OUTPUT, Arrays.copyOfRange(lines, 0, nbLines));
-        referee.sendInput(command.toString());
+        referee.send(command);
         log.info(command.toString());
     }
 
@@ -275,7 +324,67 @@ abstract class GameRunner {
 
     private void sendTimeOut() {
         Command command = new Command(OutputCommand.SET_PLAYER_TIMEOUT);
-        referee.sendInput(command.toString());
+        referee.send(command);
+    }
+
+    /**
+     * Splits the lines of a <code>NEXT_PLAYER_INPUT</code> command between the players of the turn. A single player receives all the lines.
+     * <p>
+     * The referee frames the input of each player on its own, so the lines are taken as they are, without looking for line breaks in them.
+     * </p>
+     */
+    static List<String> splitNextPlayerInputs(List<NextPlayerInfo> nextPlayerInfos, List<String> nextPlayerInput) {
+        List<String> inputs = new ArrayList<>(nextPlayerInfos.size());
+        if (nextPlayerInfos.size() == 1) {
+            inputs.add(joinLines(nextPlayerInput, 0, nextPlayerInput.size()));
+            return inputs;
+        }
+        int offset = 0;
+        for (NextPlayerInfo nextPlayerInfo : nextPlayerInfos) {
+            int end = Math.min(offset + nextPlayerInfo.nbLinesNextInput, nextPlayerInput.size());
+            inputs.add(joinLines(nextPlayerInput, offset, end));
+            offset = end;
+        }
+        return inputs;
+    }
+
+    private static String joinLines(List<String> lines, int start, int end) {
+        StringBuilder content = new StringBuilder();
+        for (int i = start; i < end; i++) {
+            content.append(lines.get(i)).append('\n');
+        }
+        return content.toString();
+    }
+
+    /**
+     * Sends their input to all the players of the turn at once, then waits for all their outputs in parallel, each against its own timeout.
+     *
+     * @return the output of each player, in the order of <code>nextPlayerInfos</code>, null for a player who timed out
+     */
+    private String[] getNextPlayerOutputs(List<NextPlayerInfo> nextPlayerInfos, List<String> nextPlayerInputs) {
+        String[] outputs = new String[nextPlayerInfos.size()];
+        if (nextPlayerInfos.size() == 1) {
+            outputs[0] = getNextPlayerOutput(nextPlayerInfos.get(0), nextPlayerInputs.get(0));
+            return outputs;
+        }
+
+        List<Future<String>> futures = new ArrayList<>(nextPlayerInfos.size());
+        for (int i = 0; i < nextPlayerInfos.size(); i++) {
+            NextPlayerInfo nextPlayerInfo = nextPlayerInfos.get(i);
+            String nextPlayerInput = nextPlayerInputs.get(i);
+            futures.add(PLAYER_OUTPUT_READERS.submit(() -> getNextPlayerOutput(nextPlayerInfo, nextPlayerInput)));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                outputs[i] = futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+        return outputs;
     }
 
     private String getNextPlayerOutput(NextPlayerInfo nextPlayerInfo, String nextPlayerInput) {
@@ -284,7 +393,7 @@ abstract class GameRunner {
         // Send player input to input queue
         queues.get(nextPlayerInfo.nextPlayer).offer(nextPlayerInput);
         long start = System.nanoTime();
-        // Wait for player output then read error
+        // Wait for player output
         String playerOutput = player.getOutput(nextPlayerInfo.nbLinesNextOutput, nextPlayerInfo.timeout);
         long end = System.nanoTime();
 
@@ -293,18 +402,13 @@ abstract class GameRunner {
         if (playerOutput != null)
             playerOutput = playerOutput.replace('\r', '\n');
 
-        if (checkOutput(playerOutput, nextPlayerInfo.nbLinesNextOutput) == OutputResult.OK) {
-            // Read this turn's stderr
-            readError(player);
-        } else {
-            // Give the agent time to crash cleanly
+        if (checkOutput(playerOutput, nextPlayerInfo.nbLinesNextOutput) != OutputResult.OK) {
+            // Give the agent time to crash cleanly, its stderr is read once all players are done
             try {
                 Thread.sleep(nextPlayerInfo.timeout);
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
-            // Read this turns stderr and the crash output
-            readError(player);
             return null;
         }
 
@@ -323,10 +427,10 @@ abstract class GameRunner {
     private GameTurnInfo readGameInfo(int round) {
         GameTurnInfo turnInfo = new GameTurnInfo();
 
-        referee.sendInput(new Command(OutputCommand.GET_GAME_INFO).toString());
+        referee.send(new Command(OutputCommand.GET_GAME_INFO));
 
         while (!turnInfo.isComplete() && !turnInfo.refereeHasFailed()) {
-            Command command = readCommand(referee, round);
+            Command command = readCommand(round);
             if (command == null) {
                 return turnInfo;
             }
@@ -335,39 +439,27 @@ abstract class GameRunner {
         return turnInfo;
     }
 
-    private Command readCommand(Agent agent, int round) {
+    private Command readCommand(int round) {
         try {
-            String output = agent.getOutput(1, 150_000);
-            if (output != null) {
-                output = output.replace('\r', '\n');
+            RefereeBridge.Message message = referee.receive(150_000);
+            if (message == null) {
+                throw new RuntimeException("Invalid Referee command: null");
             }
-            if (checkOutput(output, 1) != OutputResult.OK) {
-                throw new RuntimeException("Invalid Referee command: " + output);
-            }
-
-            Matcher m = COMMAND_HEADER_PATTERN.matcher(output.trim());
-            if (m.matches()) {
-                String command = m.group("cmd");
-                int nbLinesToRead = Integer.parseInt(m.group("lineCount"));
 
-                if (nbLinesToRead >= 0) {
-                    output = agent.getOutput(nbLinesToRead, 150_000, round == 0);
-                    output = output.replace('\r', '\n');
-                } else {
-                    throw new RuntimeException("Invalid Referee command line count: " + output);
-                }
-                if (checkOutput(output, nbLinesToRead) != OutputResult.OK) {
-                    throw new RuntimeException(
-                        String.format(
-                            "Error reading Referee %s command. Buffer capacity: %d / %d",
-                            command, output.length(), (round == 0 ? RefereeAgent.REFEREE_MAX_BUFFER_SIZE_EXTRA : RefereeAgent.REFEREE_MAX_BUFFER_SIZE)
-                        )
-                    );
-                }
-                return new Command(InputCommand.valueOf(command), output);
-            } else {
-                throw new RuntimeException("Invalid referee command: " + output);
+            int maxBufferSize = round == 0 ? RefereeAgent.REFEREE_MAX_BUFFER_SIZE_EXTRA : RefereeAgent.REFEREE_MAX_BUFFER_SIZE;
+            int length = 0;
+            for (String line : message.getLines()) {
+                length += line.length() + 1;
             }
+            if (length > maxBufferSize) {
+                throw new RuntimeException(
+                    String.format(
+                        "Error reading Referee %s command. Buffer capacity: %d / %d",
+                        message.getCommand(), length, maxBufferSize
+                    )
+                );
+            }
+            return new Command(InputCommand.valueOf(message.getCommand()), message.getLines());
         } catch (RuntimeException err) {
             err.printStackTrace();
             return new Command(InputCommand.FAIL, err.toString());
@@ -399,6 +491,23 @@ abstract class GameRunner {
         return OutputResult.OK;
     }
 
+    /**
+     * Runs the games of this runner without generating their views, for instance when evaluating bots with many games whose replays are not
+     * watched.
+     * <p>
+     * The value can also be set by setting the system property <code>game.headless</code>, which is used when this method is not called.
+     * </p>
+     * In headless mode, the referee and its modules skip the serialization of the frames and the views of the game result are left empty. Scores,
+     * summaries, tooltips and metadata are still computed.
+     *
+     * @param headless
+     *            true to skip the generation of the views.
+     */
+    public void setHeadless(boolean headless) {
+        this.headless = headless;
+        refereeSettings.setProperty("game.headless", String.valueOf(headless));
+    }
+
     /**
      * Runs the game and attempts to start a server on the port 8888.
      * <p>
@@ -417,9 +526,18 @@ abstract class GameRunner {
      *            the port on which to attempt to start the a server for the game's replay.
      */
     public void start(int port) {
-        runGame();
-
-        new Renderer(port).render(players.size(), getJSONResult());
+        // The replay is streamed to disk as the game runs instead of being kept in gameResult
+        try (GameResultWriter writer = new GameResultWriter()) {
+            resultWriter = writer;
+            runGame();
+            addPlayerIds();
+
+            new Renderer(port).render(players.size(), game -> writer.writeTo(game, gameResult));
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot write the game result", e);
+        } finally {
+            resultWriter = null;
+        }
     }
 
     /**
@@ -459,33 +577,20 @@ abstract class GameRunner {
      * Simulates the game and gathers game results
      */
     private void runGame() {
-        PrintStream out = System.out;
-        System.setOut(new PrintStream(new OutputStream() {
-            @Override
-            public void write(int b) throws IOException {
-                out.write(b);
-                refereeStdout.write(b);
-            }
-        }));
-        PrintStream err = System.err;
-        System.setErr(new PrintStream(new OutputStream() {
-            @Override
-            public void write(int b) throws IOException {
-                err.write(b);
-                refereeStderr.write(b);
-            }
-        }));
         requireGameNotEnded();
-        Properties conf = new Properties();
-        initialize(conf);
+        ThreadRoutedOutputStream.acquire();
+        try {
+            Properties conf = new Properties();
+            initialize(conf);
 
-        runAgents();
+            runAgents();
 
-        referee.destroy();
-        destroyPlayers();
-        gameEnded = true;
-        System.setOut(out);
-        System.setErr(err);
+            referee.destroy();
+            destroyPlayers();
+            gameEnded = true;
+        } finally {
+            ThreadRoutedOutputStream.release();
+        }
     }
 
     /**
@@ -499,15 +604,36 @@ abstract class GameRunner {
 
     static class NextPlayerInfo {
 
+        private static final int SINGLE_PLAYER_LINE_COUNT = 3;
+        private static final int BATCH_PLAYER_LINE_COUNT = 4;
+
         int nextPlayer;
         int nbLinesNextOutput;
         long timeout;
+        int nbLinesNextInput;
+
+        private NextPlayerInfo(List<String> nextPlayerInfo, int offset) {
+            nextPlayer = Integer.decode(nextPlayerInfo.get(offset));
+            nbLinesNextOutput = Integer.decode(nextPlayerInfo.get(offset + 1));
+            timeout = Long.decode(nextPlayerInfo.get(offset + 2));
+            if (nextPlayerInfo.size() - offset >= BATCH_PLAYER_LINE_COUNT) {
+                nbLinesNextInput = Integer.decode(nextPlayerInfo.get(offset + 3));
+            }
+        }
 
-        NextPlayerInfo(String command) {
-            String[] nextPlayerInfo = command.split("\n");
-            nextPlayer = Integer.decode(nextPlayerInfo[0]);
-            nbLinesNextOutput = Integer.decode(nextPlayerInfo[1]);
-            timeout = Long.decode(nextPlayerInfo[2]);
+        /**
+         * Parses a <code>NEXT_PLAYER_INFO</code> command. It holds either the 3 lines describing a single player (index, expected output lines,
+         * timeout) or, for players executed simultaneously, 4 lines per player: the same 3 lines plus the number of input lines of that player.
+         */
+        static List<NextPlayerInfo> parse(List<String> lines) {
+            if (lines.size() == SINGLE_PLAYER_LINE_COUNT) {
+                return Collections.singletonList(new NextPlayerInfo(lines, 0));
+            }
+            List<NextPlayerInfo> nextPlayerInfos = new ArrayList<>(lines.size() / BATCH_PLAYER_LINE_COUNT);
+            for (int offset = 0; offset + BATCH_PLAYER_LINE_COUNT <= lines.size(); offset += BATCH_PLAYER_LINE_COUNT) {
+                nextPlayerInfos.add(new NextPlayerInfo(lines, offset));
+            }
+            return nextPlayerInfos;
         }
     }
 }
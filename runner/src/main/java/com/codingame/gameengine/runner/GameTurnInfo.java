@@ -1,5 +1,6 @@
 package com.codingame.gameengine.runner;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -49,16 +50,30 @@ class GameTurnInfo {
                 received.containsKey(InputCommand.INFOS);
     }
 
+    /**
+     * @return the content of the command, one line after the other, each followed by a line feed
+     */
     public Optional<String> get(CommandKey key) {
         Command command = received.get(key);
         if (command == null) {
             return Optional.empty();
         }
-        List<String> lines = command.getLines();
-        if (lines.isEmpty()) {
-            return Optional.empty();
+        StringBuilder content = new StringBuilder();
+        for (String line : command.getLines()) {
+            content.append(line).append('\n');
+        }
+        return Optional.of(content.toString());
+    }
+
+    /**
+     * @return the lines of the command, or an empty list if it was not received
+     */
+    public List<String> getLines(CommandKey key) {
+        Command command = received.get(key);
+        if (command == null) {
+            return Collections.emptyList();
         }
-        return Optional.of(lines.get(0));
+        return command.getLines();
     }
 
     public boolean requestedMonitoring() {
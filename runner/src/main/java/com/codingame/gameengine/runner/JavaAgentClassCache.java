@@ -0,0 +1,225 @@
+package com.codingame.gameengine.runner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javassist.ClassPool;
+import javassist.CodeConverter;
+import javassist.CtClass;
+import javassist.CtConstructor;
+import javassist.CtField;
+import javassist.CtMethod;
+import javassist.LoaderClassPath;
+
+/**
+ * Loads the main class of a Java player with its <code>System.in</code>, <code>System.out</code> and <code>System.err</code> accesses
+ * redirected to per-game streams.
+ * <p>
+ * The classes of the player are those found in the same classpath entry as its main class, such as the same directory or jar. The main class is
+ * instrumented with javassist only the first time it is used. The bytecode of every class of the player is cached and defined again in a fresh,
+ * lightweight class loader for every game, so each game gets its own static state while the cost of running a bot stays flat across many
+ * games. Other classes, such as those of the JDK or of libraries, are shared through the parent class loader.
+ * </p>
+ */
+class JavaAgentClassCache {
+
+    private static final String SYSTEM_OUT_FIELD = "system_out";
+    private static final String SYSTEM_ERR_FIELD = "system_err";
+    private static final String SYSTEM_IN_FIELD = "system_in";
+    // The location of a class the parent loader does not find
+    private static final String NOT_FOUND = "";
+
+    // The same class name may be found in different places by different parent loaders
+    private static final Map<ClassLoader, ParentClasses> caches = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private JavaAgentClassCache() {
+    }
+
+    /**
+     * Defines the instrumented class in a new loader and binds its standard streams.
+     *
+     * @param className
+     *            the fully qualified name of the player's main class
+     * @param out
+     *            the stream receiving the player's standard output
+     * @param err
+     *            the stream receiving the player's standard error
+     * @param in
+     *            the stream the player reads its standard input from
+     * @return the class, ready to be run
+     * @throws ReflectiveOperationException
+     *             if the class cannot be loaded or its streams cannot be bound
+     */
+    static Class<?> load(String className, PrintStream out, PrintStream err, InputStream in) throws ReflectiveOperationException {
+        ClassLoader parent = Thread.currentThread().getContextClassLoader();
+        if (parent == null) {
+            parent = JavaAgentClassCache.class.getClassLoader();
+        }
+        ParentClasses classes = caches.computeIfAbsent(parent, ParentClasses::new);
+
+        String location = classes.getLocation(className);
+        if (NOT_FOUND.equals(location)) {
+            throw new ClassNotFoundException(className);
+        }
+        String classpathEntry = location.substring(0, location.length() - getResourceName(className).length());
+
+        Class<?> c = new AgentClassLoader(className, classpathEntry, classes).loadClass(className);
+        c.getDeclaredField(SYSTEM_OUT_FIELD).set(null, out);
+        c.getDeclaredField(SYSTEM_ERR_FIELD).set(null, err);
+        c.getDeclaredField(SYSTEM_IN_FIELD).set(null, in);
+        return c;
+    }
+
+    private static String getResourceName(String className) {
+        return className.replace('.', '/') + ".class";
+    }
+
+    private static byte[] instrument(String className, ClassLoader parent) {
+        try {
+            // A private pool is discarded once the bytecode is cached, so it does not grow with the number of games
+            ClassPool pool = new ClassPool(true);
+            pool.appendClassPath(new LoaderClassPath(parent));
+            CtClass cc = pool.get(className);
+
+            cc.setModifiers(cc.getModifiers() | Modifier.PUBLIC);
+
+            addStaticField(pool, cc, "java.io.PrintStream", SYSTEM_OUT_FIELD);
+            addStaticField(pool, cc, "java.io.PrintStream", SYSTEM_ERR_FIELD);
+            addStaticField(pool, cc, "java.io.InputStream", SYSTEM_IN_FIELD);
+
+            CodeConverter conv = new CodeConverter();
+            CtClass system = pool.get("java.lang.System");
+            conv.redirectFieldAccess(system.getField("out"), cc, SYSTEM_OUT_FIELD);
+            conv.redirectFieldAccess(system.getField("err"), cc, SYSTEM_ERR_FIELD);
+            conv.redirectFieldAccess(system.getField("in"), cc, SYSTEM_IN_FIELD);
+            for (CtMethod m : cc.getDeclaredMethods()) {
+                m.instrument(conv);
+            }
+            for (CtConstructor c : cc.getDeclaredConstructors()) {
+                c.instrument(conv);
+            }
+
+            byte[] bytecode = cc.toBytecode();
+            cc.detach();
+            return bytecode;
+        } catch (Exception e) {
+            throw new RuntimeException("Cannot instrument class " + className, e);
+        }
+    }
+
+    /**
+     * Adds a field to the class, which fails if the class already has a field with this name.
+     */
+    private static void addStaticField(ClassPool pool, CtClass cc, String type, String name) throws Exception {
+        CtField field = new CtField(pool.get(type), name, cc);
+        field.setModifiers(Modifier.PUBLIC | Modifier.STATIC);
+        cc.addField(field);
+    }
+
+    private static byte[] readBytecode(String location) {
+        try (InputStream in = new URL(location).openStream()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int nbRead;
+            while ((nbRead = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, nbRead);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The classes found by a parent class loader: where their class files are, and the bytecode of the classes of players.
+     */
+    private static class ParentClasses {
+        // Only referenced while the parent loader is, as the key of the caches
+        private final WeakReference<ClassLoader> parent;
+        private final Map<String, String> locations = new ConcurrentHashMap<>();
+        private final Map<String, byte[]> bytecodes = new ConcurrentHashMap<>();
+        private final Map<String, byte[]> instrumentedBytecodes = new ConcurrentHashMap<>();
+
+        ParentClasses(ClassLoader parent) {
+            this.parent = new WeakReference<>(parent);
+        }
+
+        ClassLoader getParent() {
+            return parent.get();
+        }
+
+        /**
+         * @return the URL of the class file of the class, or <code>NOT_FOUND</code>.
+         */
+        String getLocation(String className) {
+            return locations.computeIfAbsent(className, name -> {
+                URL url = getParent().getResource(getResourceName(name));
+                return url == null ? NOT_FOUND : url.toString();
+            });
+        }
+
+        byte[] getBytecode(String className, boolean mainClass) throws ClassNotFoundException {
+            try {
+                if (mainClass) {
+                    return instrumentedBytecodes.computeIfAbsent(className, name -> instrument(name, getParent()));
+                }
+                return bytecodes.computeIfAbsent(className, name -> readBytecode(getLocation(name)));
+            } catch (RuntimeException e) {
+                throw new ClassNotFoundException(className, e);
+            }
+        }
+    }
+
+    /**
+     * Defines every class of the player from the cache, child-first, and delegates the other classes to its parent.
+     */
+    private static class AgentClassLoader extends ClassLoader {
+
+        private final String mainClassName;
+        private final String classpathEntry;
+        private final ParentClasses classes;
+
+        AgentClassLoader(String mainClassName, String classpathEntry, ParentClasses classes) {
+            super(classes.getParent());
+            this.mainClassName = mainClassName;
+            this.classpathEntry = classpathEntry;
+            this.classes = classes;
+        }
+
+        private boolean isAgentClass(String name) {
+            if (name.startsWith("java.")) {
+                return false;
+            }
+            String location = classes.getLocation(name);
+            return !NOT_FOUND.equals(location) && location.startsWith(classpathEntry);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!isAgentClass(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null) {
+                    byte[] bytecode = classes.getBytecode(name, name.equals(mainClassName));
+                    c = defineClass(name, bytecode, 0, bytecode.length);
+                }
+                if (resolve) {
+                    resolveClass(c);
+                }
+                return c;
+            }
+        }
+    }
+}
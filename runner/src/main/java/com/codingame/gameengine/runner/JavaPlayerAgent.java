@@ -3,24 +3,13 @@ package com.codingame.gameengine.runner;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
 import java.io.PrintStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.util.Optional;
 import java.util.Properties;
 
-import javassist.ClassPool;
-import javassist.CodeConverter;
-import javassist.CtClass;
-import javassist.CtConstructor;
-import javassist.CtField;
-import javassist.CtMethod;
-import javassist.Loader;
-
 /**
  * A participating AI written as a Java class.
  */
@@ -28,13 +17,9 @@ public class JavaPlayerAgent extends Agent {
     private JavaAgentThread javaRunnerThread = null;
     private String codeMain = "Player";
 
-    private PipedInputStream agentStdin = new PipedInputStream(100_000);
-    private PipedOutputStream agentStdout = new PipedOutputStream();
-    private PipedOutputStream agentStderr = new PipedOutputStream();
-
-    private OutputStream processStdin;
-    private InputStream processStdout;
-    private InputStream processStderr;
+    private RingBufferChannel stdinChannel = new RingBufferChannel();
+    private RingBufferChannel stdoutChannel = new RingBufferChannel();
+    private RingBufferChannel stderrChannel = new RingBufferChannel();
 
     /**
      * @param className
@@ -44,29 +29,26 @@ public class JavaPlayerAgent extends Agent {
         super();
 
         codeMain = className;
-
-        try {
-            processStdin = new PipedOutputStream(agentStdin);
-            processStdout = new PipedInputStream(agentStdout, 100_000);
-            processStderr = new PipedInputStream(agentStderr, 100_000);
-        } catch (IOException e) {
-            throw new RuntimeException("Cannot initialize Player Agent", e);
-        }
     }
 
     @Override
     protected OutputStream getInputStream() {
-        return processStdin;
+        return stdinChannel.getOutputStream();
     }
 
     @Override
     protected InputStream getOutputStream() {
-        return processStdout;
+        return stdoutChannel.getInputStream();
     }
 
     @Override
     protected InputStream getErrorStream() {
-        return processStderr;
+        return stderrChannel.getInputStream();
+    }
+
+    @Override
+    public String getOutput(int nbLine, long timeout) {
+        return stdoutChannel.readLines(nbLine, timeout, AGENT_MAX_BUFFER_SIZE);
     }
 
     @Override
@@ -81,13 +63,18 @@ public class JavaPlayerAgent extends Agent {
      */
     @Override
     protected void runInputOutput() throws Exception {
-        javaRunnerThread = new JavaAgentThread(codeMain, agentStdin, agentStdout, agentStderr);
+        javaRunnerThread = new JavaAgentThread(
+            codeMain, stdinChannel.getInputStream(), stdoutChannel.getOutputStream(), stderrChannel.getOutputStream()
+        );
+        // Writing to the agent fails if its thread ends
+        stdinChannel.setReaderThread(javaRunnerThread);
         javaRunnerThread.start();
     }
 
     @SuppressWarnings("deprecation")
     @Override
     public void destroy() {
+        super.destroy();
         if (javaRunnerThread != null) {
             javaRunnerThread.setStopping(true);
             javaRunnerThread.interrupt();
@@ -103,6 +90,9 @@ public class JavaPlayerAgent extends Agent {
                 javaRunnerThread.stop();
             }
         }
+        stdinChannel.close();
+        stdoutChannel.close();
+        stderrChannel.close();
     }
 
     static class JavaAgentThread extends Thread {
@@ -125,57 +115,6 @@ public class JavaPlayerAgent extends Agent {
             this.stopping = stopping;
         }
 
-        private static Class<?> redirectIOs(String className, PrintStream out, PrintStream err, InputStream in) {
-            try {
-                String newName = "Agent" + (int) (Math.random() * 1_000_000);
-                ClassPool pool = ClassPool.getDefault();
-                CtClass cc = pool.getAndRename(className, newName);
-
-                cc.setModifiers(cc.getModifiers() | Modifier.PUBLIC);
-
-                try {
-                    CtField field = new CtField(pool.get("java.io.PrintStream"), "system_out", cc);
-                    field.setModifiers(Modifier.PUBLIC | Modifier.STATIC);
-                    cc.addField(field);
-                } catch (javassist.bytecode.DuplicateMemberException e) {
-                    System.err.println(e.getMessage());
-                }
-                try {
-                    CtField field = new CtField(pool.get("java.io.PrintStream"), "system_err", cc);
-                    field.setModifiers(Modifier.PUBLIC | Modifier.STATIC);
-                    cc.addField(field);
-                } catch (javassist.bytecode.DuplicateMemberException e) {
-                    System.err.println(e.getMessage());
-                }
-                try {
-                    CtField field = new CtField(pool.get("java.io.InputStream"), "system_in", cc);
-                    field.setModifiers(Modifier.PUBLIC | Modifier.STATIC);
-                    cc.addField(field);
-                } catch (javassist.bytecode.DuplicateMemberException e) {
-                    System.err.println(e.getMessage());
-                }
-
-                CodeConverter conv = new CodeConverter();
-                conv.redirectFieldAccess(pool.getCtClass("java.lang.System").getField("out"), cc, "system_out");
-                conv.redirectFieldAccess(pool.getCtClass("java.lang.System").getField("err"), cc, "system_err");
-                conv.redirectFieldAccess(pool.getCtClass("java.lang.System").getField("in"), cc, "system_in");
-                for (CtMethod m : cc.getDeclaredMethods()) {
-                    m.instrument(conv);
-                }
-                for (CtConstructor c : cc.getDeclaredConstructors()) {
-                    c.instrument(conv);
-                }
-
-                Class<?> c = new Loader(pool).loadClass(newName);
-                c.getDeclaredField("system_out").set(null, out);
-                c.getDeclaredField("system_err").set(null, err);
-                c.getDeclaredField("system_in").set(null, in);
-                return c;
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        }
-
         @Override
         public void run() {
             try {
@@ -186,7 +125,7 @@ public class JavaPlayerAgent extends Agent {
                     c.newInstance(stdin, stdout, stderr);
                 } catch (java.lang.NoSuchMethodException e) {
                     try {
-                        Method m = redirectIOs(className, this.stdout, this.stderr, stdin).getMethod("main",
+                        Method m = JavaAgentClassCache.load(className, this.stdout, this.stderr, stdin).getMethod("main",
                                 String[].class);
                         m.invoke(null, new Object[1]);
                     } catch (java.lang.NoSuchMethodException e2) {
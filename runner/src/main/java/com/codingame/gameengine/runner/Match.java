@@ -0,0 +1,174 @@
+package com.codingame.gameengine.runner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+/**
+ * The description of one multiplayer game to run with a <code>BatchGameRunner</code>: its agents, seed, league level and game parameters.
+ * <p>
+ * Agents are described rather than instantiated so that the same <code>Match</code> can be run several times, for instance with different seeds.
+ * </p>
+ */
+public class Match {
+
+    private final List<Consumer<MultiplayerGameRunner>> agents;
+    private Long seed;
+    private Integer leagueLevel;
+    private Properties gameParameters;
+
+    /**
+     * Creates an empty match. At least one agent must be added before running it.
+     */
+    public Match() {
+        agents = new ArrayList<>();
+    }
+
+    private Match(Match other) {
+        agents = new ArrayList<>(other.agents);
+        seed = other.seed;
+        leagueLevel = other.leagueLevel;
+        gameParameters = other.gameParameters;
+    }
+
+    /**
+     * Adds an AI to this match.
+     *
+     * @param playerClass
+     *            the Java class of an AI for your game.
+     * @return this <code>Match</code>.
+     */
+    public Match addAgent(Class<?> playerClass) {
+        agents.add(runner -> runner.addAgent(playerClass));
+        return this;
+    }
+
+    /**
+     * Adds an AI to this match, with the specified nickname.
+     *
+     * @param playerClass
+     *            the Java class of an AI for your game.
+     * @param nickname
+     *            the player's nickname
+     * @return this <code>Match</code>.
+     */
+    public Match addAgent(Class<?> playerClass, String nickname) {
+        agents.add(runner -> runner.addAgent(playerClass, nickname));
+        return this;
+    }
+
+    /**
+     * Adds an AI to this match.
+     * <p>
+     * The given command will be executed with <code>Runtime.getRuntime().exec()</code>.
+     *
+     * @param commandLine
+     *            the system command line to run the AI.
+     * @return this <code>Match</code>.
+     */
+    public Match addAgent(String commandLine) {
+        agents.add(runner -> runner.addAgent(commandLine));
+        return this;
+    }
+
+    /**
+     * Adds an AI to this match, with the specified nickname.
+     * <p>
+     * The given command will be executed with <code>Runtime.getRuntime().exec()</code>.
+     *
+     * @param commandLine
+     *            the system command line to run the AI.
+     * @param nickname
+     *            the player's nickname
+     * @return this <code>Match</code>.
+     */
+    public Match addAgent(String commandLine, String nickname) {
+        agents.add(runner -> runner.addAgent(commandLine, nickname));
+        return this;
+    }
+
+    /**
+     * Adds an AI to this match.
+     * <p>
+     * The given command array will be executed with <code>Runtime.getRuntime().exec()</code>.
+     * </p>
+     *
+     * @param commandArray
+     *            the system command array to run the AI.
+     * @return this <code>Match</code>.
+     */
+    public Match addAgent(String[] commandArray) {
+        agents.add(runner -> runner.addAgent(commandArray));
+        return this;
+    }
+
+    /**
+     * Sets the seed of this match. If no seed is set, the <code>GameManager</code> will generate one.
+     *
+     * @param seed
+     *            this match's seed
+     * @return this <code>Match</code>.
+     */
+    public Match setSeed(Long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Sets the league level of this match. The first league is 1.
+     *
+     * @param leagueLevel
+     *            the league level.
+     * @return this <code>Match</code>.
+     */
+    public Match setLeagueLevel(int leagueLevel) {
+        this.leagueLevel = leagueLevel;
+        return this;
+    }
+
+    /**
+     * Sets the game parameters passed to the <code>GameManager</code> for this match.
+     *
+     * @param gameParameters
+     *            the parameters to send
+     * @return this <code>Match</code>.
+     */
+    public Match setGameParameters(Properties gameParameters) {
+        this.gameParameters = gameParameters;
+        return this;
+    }
+
+    /**
+     * Returns a copy of this match using the given seed.
+     *
+     * @param seed
+     *            the seed of the copy
+     * @return a new <code>Match</code> with the same agents, league level and game parameters.
+     */
+    public Match withSeed(Long seed) {
+        return new Match(this).setSeed(seed);
+    }
+
+    /**
+     * @return the seed of this match, or null if the <code>GameManager</code> should generate one.
+     */
+    public Long getSeed() {
+        return seed;
+    }
+
+    MultiplayerGameRunner createRunner() {
+        MultiplayerGameRunner runner = new MultiplayerGameRunner();
+        agents.forEach(agent -> agent.accept(runner));
+        runner.setSeed(seed);
+        if (leagueLevel != null) {
+            runner.setLeagueLevel(leagueLevel);
+        }
+        if (gameParameters != null) {
+            Properties copy = new Properties();
+            copy.putAll(gameParameters);
+            runner.setGameParameters(copy);
+        }
+        return runner;
+    }
+}
@@ -12,18 +12,18 @@ public class MultiplayerGameRunner extends GameRunner {
     private Properties gameParameters;
 
     /**
-     * Once this runner is instantiated, the system property game.mode is set to "multi"
+     * The referee of the games run by this runner will use a <code>MultiplayerGameManager</code>.
      */
     public MultiplayerGameRunner() {
-        System.setProperty("game.mode", "multi");
+        refereeSettings.setProperty("game.mode", "multi");
     }
 
     /**
      * Sets the league level to run. The first league is 1.
      * <p>
-     * The value can also be set by setting the environment variable <code>league.level</code>.
+     * The value can also be set by setting the system property <code>league.level</code>, which is used when this method is not called.
      * </p>
-     * The value is program-wide, and will <b>not</b> be reset for subsequent instances of <code>MultiplayerGameRunner</code>.
+     * The value only applies to games run by this instance of <code>MultiplayerGameRunner</code>.
      * 
      * @param leagueLevel
      *            the league level. 1 is the lowest level and default value.
@@ -33,7 +33,7 @@ public class MultiplayerGameRunner extends GameRunner {
         if (leagueLevel < 1 || leagueLevel >= 20) {
             throw new IllegalArgumentException("League level must be higher than 0 and lesser than 20");
         }
-        System.setProperty("league.level", String.valueOf(leagueLevel));
+        refereeSettings.setProperty("league.level", String.valueOf(leagueLevel));
     }
 
     /**
@@ -1,42 +1,39 @@
 package com.codingame.gameengine.runner;
 
-import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
-import java.io.PrintStream;
+import java.util.Properties;
 
+import com.codingame.gameengine.core.RefereeBridge;
 import com.codingame.gameengine.core.RefereeMain;
 
 class RefereeAgent extends Agent {
 
     public static final int REFEREE_MAX_BUFFER_SIZE_EXTRA = 100_000;
     public static final int REFEREE_MAX_BUFFER_SIZE = 30_000;
-    private boolean lastRefereeByteIsCarriageReturn = false;
 
-    private PipedInputStream agentStdin = new PipedInputStream(100_000);
-    private PipedOutputStream agentStdout = new PipedOutputStream();
-    private PipedOutputStream agentStderr = new PipedOutputStream();
+    private final RefereeBridge bridge = new RefereeBridge();
 
-    private OutputStream processStdin = null;
-    private InputStream processStdout = null;
-    private InputStream processStderr = null;
-    
+    private final Properties settings;
+    private final OutputStream capturedStdout;
+    private final OutputStream capturedStderr;
     private Thread thread;
 
-    public RefereeAgent() {
+    /**
+     * @param settings
+     *            the game settings given to the referee's injector
+     * @param capturedStdout
+     *            receives a copy of what the referee writes to <code>System.out</code>
+     * @param capturedStderr
+     *            receives a copy of what the referee writes to <code>System.err</code>
+     */
+    public RefereeAgent(Properties settings, OutputStream capturedStdout, OutputStream capturedStderr) {
         super();
-
-        try {
-            processStdin = new PipedOutputStream(agentStdin);
-            processStdout = new PipedInputStream(agentStdout, 100_000);
-            processStderr = new PipedInputStream(agentStderr, 100_000);
-        } catch (IOException e) {
-            throw new RuntimeException("Cannot initialize Referee Agent");
-        }
+        this.settings = settings;
+        this.capturedStdout = capturedStdout;
+        this.capturedStderr = capturedStderr;
     }
-    
+
     @Override
     public void destroy() {
         if (thread != null) {
@@ -44,20 +41,22 @@ class RefereeAgent extends Agent {
         }
     }
 
-
+    /**
+     * The referee exchanges commands through a <code>RefereeBridge</code> rather than through standard streams.
+     */
     @Override
     protected OutputStream getInputStream() {
-        return processStdin;
+        return null;
     }
 
     @Override
     protected InputStream getOutputStream() {
-        return processStdout;
+        return null;
     }
 
     @Override
     protected InputStream getErrorStream() {
-        return processStderr;
+        return null;
     }
 
     @Override
@@ -65,71 +64,41 @@ class RefereeAgent extends Agent {
 
         thread = new Thread() {
             public void run() {
-                RefereeMain.start(agentStdin, new PrintStream(agentStdout));
+                ThreadRoutedOutputStream.OUT.capture(capturedStdout);
+                ThreadRoutedOutputStream.ERR.capture(capturedStderr);
+                try {
+                    RefereeMain.start(bridge, settings);
+                } finally {
+                    bridge.close();
+                }
             }
         };
         thread.start();
     }
 
-    @Override
-    public String getOutput(int nbLine, long timeout) {
-        return getOutput(nbLine, timeout, false);
+    /**
+     * Sends a command to the referee.
+     *
+     * @param command
+     *            the command to send
+     */
+    void send(Command command) {
+        bridge.send(command.getKey().name(), command.getLines());
     }
 
-    @Override
-    public String getOutput(int nbLine, long timeout, boolean extraBufferSpace) {
-        if (processStdout == null) {
-            return null;
-        }
-        int maxBufferSize = extraBufferSpace ? REFEREE_MAX_BUFFER_SIZE_EXTRA : REFEREE_MAX_BUFFER_SIZE;
+    /**
+     * Waits for the next command sent by the referee.
+     *
+     * @param timeout
+     *            the maximum time to wait in milliseconds
+     * @return the command, or null if the referee did not send anything in time or has stopped
+     */
+    RefereeBridge.Message receive(long timeout) {
         try {
-            byte[] tmp = new byte[maxBufferSize];
-            int offset = 0;
-            int nbOccurences = 0;
-
-            long t0 = System.nanoTime();
-
-            while ((offset < maxBufferSize) && (nbOccurences < nbLine)) {
-                long current = System.nanoTime();
-                if ((current - t0) > (timeout * 1_000_000L)) {
-                    break;
-                }
-
-                while ((offset < maxBufferSize) && (processStdout.available() > 0)
-                        && (nbOccurences < nbLine)) {
-                    current = System.nanoTime();
-                    if ((current - t0) > (timeout * 1_000_000L)) {
-                        break;
-                    }
-
-                    int nbRead = processStdout.read(tmp, offset, 1);
-                    if (nbRead <= 0) {
-                        break;
-                    }
-                    byte curByte = tmp[offset];
-                    if (!((curByte == '\n') && lastRefereeByteIsCarriageReturn)) {
-                        offset += nbRead;
-                        if ((curByte == '\n') || (curByte == '\r')) {
-                            ++nbOccurences;
-                        }
-                    }
-                    lastRefereeByteIsCarriageReturn = curByte == '\r';
-                }
-
-                if (!((offset < REFEREE_MAX_BUFFER_SIZE) && (nbOccurences < nbLine))) {
-                    break;
-                }
-
-                try {
-                    Thread.sleep(1);
-                } catch (Exception e) {
-                }
-            }
-            return new String(tmp, 0, offset, UTF8);
-        } catch (IOException e) {
-            e.printStackTrace();
-            processStdout = null;
+            return bridge.receive(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
         }
-        return null;
     }
-}
\ No newline at end of file
+}
@@ -332,7 +332,26 @@ class Renderer {
         return "fnt".equals(FilenameUtils.getExtension(f.toString()));
     }
 
+    /**
+     * Writes the <code>game.json</code> file of the viewer.
+     */
+    interface GameFileWriter {
+        void write(File game) throws IOException;
+    }
+
     public static List<Path> generateView(String jsonResult, String assetsPath) {
+        GameFileWriter gameFileWriter = null;
+        if (jsonResult != null) {
+            gameFileWriter = game -> {
+                try (PrintWriter out = new PrintWriter(game)) {
+                    out.println(jsonResult);
+                }
+            };
+        }
+        return generateView(assetsPath, gameFileWriter);
+    }
+
+    static List<Path> generateView(String assetsPath, GameFileWriter gameFileWriter) {
         List<Path> paths;
 
         Path tmpdir = Paths.get(System.getProperty("java.io.tmpdir")).resolve("codingame");
@@ -346,10 +365,10 @@ class Renderer {
             e.printStackTrace();
         }
 
-        if (jsonResult != null) {
+        if (gameFileWriter != null) {
             File game = tmpdir.resolve("game.json").toFile();
-            try (PrintWriter out = new PrintWriter(game)) {
-                out.println(jsonResult);
+            try {
+                gameFileWriter.write(game);
             } catch (IOException e) {
                 throw new RuntimeException("Cannot generate the game file", e);
             }
@@ -893,7 +912,12 @@ class Renderer {
     }
 
     public void render(int playerCount, String jsonResult) {
-        List<Path> paths = generateView(jsonResult, null);
+        List<Path> paths = generateView(jsonResult, (String) null);
+        serveHTTP(paths);
+    }
+
+    void render(int playerCount, GameFileWriter gameFileWriter) {
+        List<Path> paths = generateView(null, gameFileWriter);
         serveHTTP(paths);
     }
 
@@ -0,0 +1,293 @@
+package com.codingame.gameengine.runner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A single-producer/single-consumer byte channel backed by a ring buffer, used to connect the runner to agents running inside the same JVM.
+ * <p>
+ * Both sides publish their position through volatile fields and only park when the buffer is empty (reader) or full (writer), so data moves at
+ * memory-copy speed instead of at the granularity of <code>PipedInputStream</code>'s synchronized <code>wait()</code> slices.
+ * </p>
+ * Exactly one thread may write and exactly one thread may read at any given time. As with pipes, writing fails once the thread reading the
+ * channel has ended, instead of waiting forever for space in a full buffer.
+ */
+class RingBufferChannel {
+
+    static final int DEFAULT_CAPACITY = 1 << 17;
+    // How often a writer waiting for space checks that the reader is still alive
+    private static final long READER_CHECK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final byte[] buffer;
+    private final int capacity;
+    private final int mask;
+
+    private volatile long writePosition = 0;
+    private volatile long readPosition = 0;
+    private volatile boolean closed = false;
+    private volatile Thread waitingReader;
+    private volatile Thread waitingWriter;
+    private volatile Thread readerThread;
+
+    private boolean lastByteIsCarriageReturn = false;
+    private byte[] lineBuffer = new byte[0];
+
+    private final InputStream inputStream = new ChannelInputStream();
+    private final OutputStream outputStream = new ChannelOutputStream();
+
+    RingBufferChannel() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity
+     *            the size of the ring buffer, must be a power of two
+     */
+    RingBufferChannel(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.buffer = new byte[capacity];
+    }
+
+    /**
+     * @return the reading end of this channel
+     */
+    InputStream getInputStream() {
+        return inputStream;
+    }
+
+    /**
+     * @return the writing end of this channel
+     */
+    OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    /**
+     * Sets the thread that reads this channel, before it starts reading. Otherwise, the reader is the last thread that read from the input
+     * stream.
+     */
+    void setReaderThread(Thread thread) {
+        readerThread = thread;
+    }
+
+    /**
+     * Closes the channel. Bytes already written can still be read, after which readers get an end of stream. Further writes fail.
+     */
+    void close() {
+        closed = true;
+        wakeUp(waitingReader);
+        wakeUp(waitingWriter);
+    }
+
+    private static void wakeUp(Thread thread) {
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (closed) {
+                throw new IOException("Channel closed");
+            }
+            checkReaderAlive();
+            long position = writePosition;
+            int free = capacity - (int) (position - readPosition);
+            if (free == 0) {
+                awaitSpace();
+                continue;
+            }
+            int count = Math.min(len, free);
+            int index = (int) (position & mask);
+            int firstPart = Math.min(count, capacity - index);
+            System.arraycopy(b, off, buffer, index, firstPart);
+            System.arraycopy(b, off + firstPart, buffer, 0, count - firstPart);
+            writePosition = position + count;
+            wakeUp(waitingReader);
+
+            off += count;
+            len -= count;
+        }
+    }
+
+    private void checkReaderAlive() throws IOException {
+        Thread reader = readerThread;
+        if (reader != null && !reader.isAlive()) {
+            throw new IOException("Read end dead");
+        }
+    }
+
+    private void awaitSpace() throws IOException {
+        waitingWriter = Thread.currentThread();
+        try {
+            while (!closed && writePosition - readPosition == capacity) {
+                LockSupport.parkNanos(this, READER_CHECK_NANOS);
+                if (Thread.interrupted()) {
+                    throw new InterruptedIOException();
+                }
+                checkReaderAlive();
+            }
+        } finally {
+            waitingWriter = null;
+        }
+    }
+
+    /**
+     * Parks the reading thread until some data is available, the channel is closed or the given delay is over.
+     *
+     * @param timeoutNanos
+     *            maximum waiting time, or a negative value to wait without limit
+     * @return false if the reading thread was interrupted
+     */
+    private boolean awaitData(long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        waitingReader = Thread.currentThread();
+        try {
+            while (!closed && writePosition == readPosition) {
+                if (timeoutNanos < 0) {
+                    LockSupport.park(this);
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return true;
+                    }
+                    LockSupport.parkNanos(this, remaining);
+                }
+                if (Thread.interrupted()) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            waitingReader = null;
+        }
+    }
+
+    private int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        readerThread = Thread.currentThread();
+        while (writePosition == readPosition) {
+            if (closed) {
+                return -1;
+            }
+            if (!awaitData(-1)) {
+                throw new InterruptedIOException();
+            }
+        }
+        long position = readPosition;
+        int count = Math.min(len, (int) (writePosition - position));
+        int index = (int) (position & mask);
+        int firstPart = Math.min(count, capacity - index);
+        System.arraycopy(buffer, index, b, off, firstPart);
+        System.arraycopy(buffer, 0, b, off + firstPart, count - firstPart);
+        readPosition = position + count;
+        wakeUp(waitingWriter);
+        return count;
+    }
+
+    /**
+     * Reads until <code>nbLine</code> line breaks have been read, <code>maxBufferSize</code> bytes have been read, the channel is closed or the
+     * timeout has expired, whichever comes first.
+     * <p>
+     * A <code>\n</code> directly following a <code>\r</code> is skipped, and both are counted as line breaks.
+     * </p>
+     *
+     * @param nbLine
+     *            Number of lines wanted
+     * @param timeout
+     *            Stop reading after timeout milliseconds
+     * @param maxBufferSize
+     *            Maximum number of bytes to return
+     * @return the bytes read, decoded as UTF-8
+     */
+    String readLines(int nbLine, long timeout, int maxBufferSize) {
+        if (lineBuffer.length < maxBufferSize) {
+            lineBuffer = new byte[maxBufferSize];
+        }
+        readerThread = Thread.currentThread();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        int offset = 0;
+        int nbOccurences = 0;
+
+        while ((offset < maxBufferSize) && (nbOccurences < nbLine)) {
+            long position = readPosition;
+            long limit = writePosition;
+            if (position == limit) {
+                long remaining = deadline - System.nanoTime();
+                if (closed || remaining <= 0 || !awaitData(remaining)) {
+                    break;
+                }
+                continue;
+            }
+
+            while ((position < limit) && (offset < maxBufferSize) && (nbOccurences < nbLine)) {
+                byte curByte = buffer[(int) (position++ & mask)];
+                if (!((curByte == '\n') && lastByteIsCarriageReturn)) {
+                    lineBuffer[offset++] = curByte;
+                    if ((curByte == '\n') || (curByte == '\r')) {
+                        ++nbOccurences;
+                    }
+                }
+                lastByteIsCarriageReturn = curByte == '\r';
+            }
+            readPosition = position;
+            wakeUp(waitingWriter);
+        }
+        return new String(lineBuffer, 0, offset, Agent.UTF8);
+    }
+
+    private class ChannelInputStream extends InputStream {
+        private final byte[] single = new byte[1];
+
+        @Override
+        public int read() throws IOException {
+            int nbRead = RingBufferChannel.this.read(single, 0, 1);
+            return nbRead < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return RingBufferChannel.this.read(b, off, len);
+        }
+
+        @Override
+        public int available() {
+            return (int) (writePosition - readPosition);
+        }
+
+        @Override
+        public void close() {
+            RingBufferChannel.this.close();
+        }
+    }
+
+    private class ChannelOutputStream extends OutputStream {
+        private final byte[] single = new byte[1];
+
+        @Override
+        public void write(int b) throws IOException {
+            single[0] = (byte) b;
+            RingBufferChannel.this.write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            RingBufferChannel.this.write(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            RingBufferChannel.this.close();
+        }
+    }
+}
@@ -15,10 +15,10 @@ public class SoloGameRunner extends GameRunner {
     private List<String> testCaseInput;
 
     /**
-     * Once this runner is instantiated, the system property game.mode is set to "solo"
+     * The referee of the games run by this runner will use a <code>SoloGameManager</code>.
      */
     public SoloGameRunner() {
-        System.setProperty("game.mode", "solo");
+        refereeSettings.setProperty("game.mode", "solo");
     }
 
     private List<String> getLinesFromTestCaseFile(File file) {
@@ -0,0 +1,95 @@
+package com.codingame.gameengine.runner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Replaces <code>System.out</code> or <code>System.err</code> while at least one game is running, copying what each thread writes to the
+ * capture stream bound to that thread.
+ * <p>
+ * Everything is still written to the original stream. Bindings are inherited by child threads, so threads started by a referee are captured
+ * along with it. This lets several games capture their referee's output concurrently in the same JVM.
+ * </p>
+ */
+class ThreadRoutedOutputStream extends OutputStream {
+
+    private static final Object LOCK = new Object();
+    private static int activeGames = 0;
+    private static PrintStream originalOut;
+    private static PrintStream originalErr;
+
+    static final ThreadRoutedOutputStream OUT = new ThreadRoutedOutputStream();
+    static final ThreadRoutedOutputStream ERR = new ThreadRoutedOutputStream();
+
+    private final InheritableThreadLocal<OutputStream> capture = new InheritableThreadLocal<>();
+    private volatile OutputStream original;
+
+    private ThreadRoutedOutputStream() {
+    }
+
+    /**
+     * Installs the routed streams as <code>System.out</code> and <code>System.err</code> if no other game is running.
+     */
+    static void acquire() {
+        synchronized (LOCK) {
+            if (activeGames++ == 0) {
+                originalOut = System.out;
+                originalErr = System.err;
+                OUT.original = originalOut;
+                ERR.original = originalErr;
+                System.setOut(new PrintStream(OUT, true));
+                System.setErr(new PrintStream(ERR, true));
+            }
+        }
+    }
+
+    /**
+     * Restores the original <code>System.out</code> and <code>System.err</code> once the last running game is over.
+     */
+    static void release() {
+        synchronized (LOCK) {
+            if (--activeGames == 0) {
+                System.setOut(originalOut);
+                System.setErr(originalErr);
+            }
+        }
+    }
+
+    /**
+     * Copies everything the current thread and its future child threads write to this stream into the given stream.
+     *
+     * @param target
+     *            the stream receiving the copy, or null to stop capturing
+     */
+    void capture(OutputStream target) {
+        if (target == null) {
+            capture.remove();
+        } else {
+            capture.set(target);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        original.write(b);
+        OutputStream target = capture.get();
+        if (target != null) {
+            target.write(b);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        original.write(b, off, len);
+        OutputStream target = capture.get();
+        if (target != null) {
+            target.write(b, off, len);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        original.flush();
+    }
+}
@@ -0,0 +1,144 @@
+package com.codingame.gameengine.runner.replay;
+
+import java.util.Arrays;
+
+import com.codingame.gameengine.runner.replay.ReplayProperty.Kind;
+
+/**
+ * The values an entity has at the end of each frame of a replay.
+ * <p>
+ * Each property has a timeline of the frames where its value changed, with the new values, stored in primitive arrays when they are numbers.
+ * The value at a given frame is found by a binary search in the timeline. While decoding, the current values are kept aside and the changed
+ * properties are added to their timeline at the end of each frame.
+ * </p>
+ */
+class EntityHistory {
+    private static final int[] NO_FRAMES = new int[0];
+
+    private final String type;
+    private final int creationFrame;
+    private int destructionFrame = -1;
+
+    private final int[][] frames = new int[ReplayProperty.VALUES.length][];
+    private final int[] sizes = new int[ReplayProperty.VALUES.length];
+    private final double[][] numbers = new double[ReplayProperty.VALUES.length][];
+    private final Object[][] objects = new Object[ReplayProperty.VALUES.length][];
+
+    // The values being decoded, to be added to the timelines at the end of the frame
+    private final double[] currentNumbers = new double[ReplayProperty.VALUES.length];
+    private final Object[] currentObjects = new Object[ReplayProperty.VALUES.length];
+    private long changedProperties;
+
+    EntityHistory(String type, int creationFrame) {
+        this.type = type;
+        this.creationFrame = creationFrame;
+    }
+
+    String getType() {
+        return type;
+    }
+
+    int getCreationFrame() {
+        return creationFrame;
+    }
+
+    int getDestructionFrame() {
+        return destructionFrame;
+    }
+
+    void setDestructionFrame(int frame) {
+        destructionFrame = frame;
+    }
+
+    /**
+     * @return the value decoded so far, or null if the property has never been set.
+     */
+    Object getCurrentValue(ReplayProperty property) {
+        int slot = property.ordinal();
+        if (isNumeric(property)) {
+            return (changedProperties & bit(slot)) != 0 || sizes[slot] > 0 ? (Object) currentNumbers[slot] : null;
+        }
+        return currentObjects[slot];
+    }
+
+    void setNumber(ReplayProperty property, double value) {
+        currentNumbers[property.ordinal()] = value;
+        changedProperties |= bit(property.ordinal());
+    }
+
+    void setObject(ReplayProperty property, Object value) {
+        currentObjects[property.ordinal()] = value;
+        changedProperties |= bit(property.ordinal());
+    }
+
+    /**
+     * Sets the values decoded so far for another entity, as the values of this one.
+     */
+    void setCurrentValues(EntityHistory other) {
+        System.arraycopy(other.currentNumbers, 0, currentNumbers, 0, currentNumbers.length);
+        System.arraycopy(other.currentObjects, 0, currentObjects, 0, currentObjects.length);
+        changedProperties = other.changedProperties;
+    }
+
+    boolean hasChanges() {
+        return changedProperties != 0;
+    }
+
+    /**
+     * Adds the properties changed since the previous call to their timeline, as the values at the end of the given frame.
+     */
+    void endFrame(int frame) {
+        for (long bits = changedProperties; bits != 0; bits &= bits - 1) {
+            int slot = Long.numberOfTrailingZeros(bits);
+            ReplayProperty property = ReplayProperty.VALUES[slot];
+            int size = sizes[slot];
+            if (frames[slot] == null) {
+                frames[slot] = NO_FRAMES;
+            }
+            if (size == frames[slot].length) {
+                int capacity = Math.max(4, size * 2);
+                frames[slot] = Arrays.copyOf(frames[slot], capacity);
+                if (isNumeric(property)) {
+                    numbers[slot] = numbers[slot] == null ? new double[capacity] : Arrays.copyOf(numbers[slot], capacity);
+                } else {
+                    objects[slot] = objects[slot] == null ? new Object[capacity] : Arrays.copyOf(objects[slot], capacity);
+                }
+            }
+            frames[slot][size] = frame;
+            if (isNumeric(property)) {
+                numbers[slot][size] = currentNumbers[slot];
+            } else {
+                objects[slot][size] = currentObjects[slot];
+            }
+            sizes[slot] = size + 1;
+        }
+        changedProperties = 0;
+    }
+
+    /**
+     * @return the value of the property at the end of the given frame, or null if it had not been sent yet.
+     */
+    Object getValue(ReplayProperty property, int frame) {
+        int slot = property.ordinal();
+        if (sizes[slot] == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(frames[slot], 0, sizes[slot], frame);
+        if (index < 0) {
+            // The last change before the frame
+            index = -index - 2;
+            if (index < 0) {
+                return null;
+            }
+        }
+        return isNumeric(property) ? (Object) numbers[slot][index] : objects[slot][index];
+    }
+
+    private static boolean isNumeric(ReplayProperty property) {
+        return property.getKind() == Kind.NUMBER || property.getKind() == Kind.BOOLEAN;
+    }
+
+    private static long bit(int slot) {
+        return 1L << slot;
+    }
+}
@@ -0,0 +1,176 @@
+package com.codingame.gameengine.runner.replay;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.codingame.gameengine.runner.simulate.GameResult;
+
+/**
+ * The entities of the <code>GraphicEntityModule</code> in a replay, decoded without the viewer, for instance to check what a game displays in
+ * tests or to analyze many games.
+ * <p>
+ * Frames are numbered as in the viewer: one frame per game turn, starting at 0. The value of a property at a frame is its value at the end of
+ * that frame, as sent: angles are in degrees, player colors are negative and the <code>$0</code>, <code>$1</code>... of texts are not replaced by
+ * the names of the players. Entity ids are those returned by <code>Entity.getId()</code>, from 1 to <code>getEntityCount()</code>.
+ * </p>
+ * The values are stored as the frames where each property changed, so that the state of an entity at any frame is found without replaying the
+ * previous frames.
+ */
+public class Replay {
+
+    private final List<EntityHistory> entities;
+    private final int frameCount;
+
+    private Replay(ReplayDecoder decoder) {
+        entities = decoder.getEntities();
+        frameCount = decoder.getFrameCount();
+    }
+
+    /**
+     * Reads the replay of a <code>game.json</code> file, one view at a time.
+     *
+     * @param gameJson
+     *            the path to the file
+     * @return the replay
+     * @throws IOException
+     *             if the file cannot be read or is not a game result
+     */
+    public static Replay read(Path gameJson) throws IOException {
+        try (Reader reader = Files.newBufferedReader(gameJson, StandardCharsets.UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Reads the replay of a game result in the format of a <code>game.json</code> file, one view at a time.
+     *
+     * @param reader
+     *            the game result
+     * @return the replay
+     * @throws IOException
+     *             if the game result cannot be read or is not valid JSON
+     */
+    public static Replay read(Reader reader) throws IOException {
+        ReplayDecoder decoder = new ReplayDecoder();
+        decoder.readGameResult(reader);
+        return new Replay(decoder);
+    }
+
+    /**
+     * Decodes the replay of a game run with <code>simulate()</code>.
+     *
+     * @param gameResult
+     *            the result of the game
+     * @return the replay
+     */
+    public static Replay of(GameResult gameResult) {
+        ReplayDecoder decoder = new ReplayDecoder();
+        gameResult.views.forEach(decoder::addView);
+        return new Replay(decoder);
+    }
+
+    /**
+     * @return the number of frames of the replay.
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return the number of entities created during the game, which is also the greatest entity id.
+     */
+    public int getEntityCount() {
+        return entities.size();
+    }
+
+    /**
+     * @param id
+     *            the id of an entity
+     * @return the name of the class of the entity, such as <code>Sprite</code>.
+     * @exception IllegalArgumentException
+     *                if there is no entity with this id
+     */
+    public String getEntityType(int id) {
+        return getEntity(id).getType();
+    }
+
+    /**
+     * @param id
+     *            the id of an entity
+     * @return the frame during which the entity was created.
+     * @exception IllegalArgumentException
+     *                if there is no entity with this id
+     */
+    public int getCreationFrame(int id) {
+        return getEntity(id).getCreationFrame();
+    }
+
+    /**
+     * Returns the frame at the end of which the entity is no longer displayed, after it was disposed. The values of the entity remain those it
+     * had when disposed.
+     *
+     * @param id
+     *            the id of an entity
+     * @return the frame during which the entity was disposed, or -1 if it never was.
+     * @exception IllegalArgumentException
+     *                if there is no entity with this id
+     */
+    public int getDestructionFrame(int id) {
+        return getEntity(id).getDestructionFrame();
+    }
+
+    /**
+     * Returns the value of a property of an entity at the end of a frame. Numbers and booleans are <code>Double</code>s, texts and images are
+     * <code>String</code>s, children, points and cells are <code>int[]</code> and instances are a <code>double[]</code> of the x, y, rotation,
+     * alpha, tint and image of each instance, one after the other.
+     *
+     * @param id
+     *            the id of an entity
+     * @param property
+     *            a property of the entity
+     * @param frame
+     *            a frame of the replay
+     * @return the value, or null if the property had not been sent by the end of the frame. The default values of the viewer are not sent.
+     * @exception IllegalArgumentException
+     *                if there is no entity with this id
+     */
+    public Object getValue(int id, ReplayProperty property, int frame) {
+        return getEntity(id).getValue(property, frame);
+    }
+
+    /**
+     * Returns the values of every property of an entity sent by the end of a frame.
+     *
+     * @param id
+     *            the id of an entity
+     * @param frame
+     *            a frame of the replay
+     * @return the values by property, as returned by <code>getValue</code>, without the properties not sent yet.
+     * @exception IllegalArgumentException
+     *                if there is no entity with this id
+     */
+    public Map<ReplayProperty, Object> getState(int id, int frame) {
+        EntityHistory entity = getEntity(id);
+        Map<ReplayProperty, Object> state = new EnumMap<>(ReplayProperty.class);
+        for (ReplayProperty property : ReplayProperty.VALUES) {
+            Object value = entity.getValue(property, frame);
+            if (value != null) {
+                state.put(property, value);
+            }
+        }
+        return state;
+    }
+
+    private EntityHistory getEntity(int id) {
+        if (id < 1 || id > entities.size()) {
+            throw new IllegalArgumentException("Unknown entity: " + id);
+        }
+        return entities.get(id - 1);
+    }
+}
@@ -0,0 +1,512 @@
+package com.codingame.gameengine.runner.replay;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Decodes the frames of the <code>GraphicEntityModule</code> in the views of a game, the same way as the viewer does, into the history of
+ * each entity.
+ * <p>
+ * Only the key frames are decoded, as they are the frames of the viewer. The strings of the interned properties are registered in the order
+ * the viewer reads them, so that their references are resolved the same way.
+ * </p>
+ */
+class ReplayDecoder {
+    private static final String MODULE_NAME = "entitymodule";
+    private static final String KEY_FRAME = "KEY_FRAME";
+
+    private static final char CREATE = 'C';
+    private static final char UPDATE = 'U';
+    private static final char LOAD_SPRITE_SHEET = 'L';
+    private static final char DESTROY = 'D';
+
+    private static final String CHILDREN_DELTA = "cd";
+    private static final String CELLS_DELTA = "cc";
+    private static final String INSTANCES_DELTA = "in";
+    private static final String TEXT_SPLICE = "Tp";
+    private static final String POINTS_SPLICE = "pp";
+
+    private static final char STRING_REFERENCE = '#';
+    private static final int EMPTY_CELL = -1;
+
+    // The curves of the viewer, the default one is never sent
+    private static final Set<String> CURVES = new HashSet<>(Arrays.asList("_", "=", "<", ">", "~", "!", "∫", "🙖", "🙒", "Γ"));
+
+    private static final Map<String, String> TYPES = new HashMap<>();
+
+    static {
+        TYPES.put("R", "Rectangle");
+        TYPES.put("K", "RoundedRectangle");
+        TYPES.put("C", "Circle");
+        TYPES.put("G", "Group");
+        TYPES.put("B", "BufferedGroup");
+        TYPES.put("L", "Line");
+        TYPES.put("S", "Sprite");
+        TYPES.put("T", "Text");
+        TYPES.put("X", "BitmapText");
+        TYPES.put("A", "SpriteAnimation");
+        TYPES.put("P", "Polygon");
+        TYPES.put("D", "TilingSprite");
+        TYPES.put("M", "Tilemap");
+        TYPES.put("I", "InstancedSprite");
+    }
+
+    // Fields of an instance in the instances delta, in the order of their bits
+    private static final int INSTANCE_FIELD_COUNT = 6;
+    private static final double[] INSTANCE_DEFAULTS = { 0, 0, 0, 1, 0xFFFFFF, 0 };
+
+    private final List<EntityHistory> entities = new ArrayList<>();
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<EntityHistory> changedEntities = new ArrayList<>();
+    private int frameCount = 0;
+
+    List<EntityHistory> getEntities() {
+        return entities;
+    }
+
+    int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Reads the views of a <code>game.json</code> file one at a time, skipping the other fields.
+     */
+    void readGameResult(Reader in) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("views".equals(reader.nextName())) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    readView(reader);
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private void readView(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.STRING) {
+            addView(reader.nextString());
+        } else if (token == JsonToken.BEGIN_ARRAY) {
+            // Frames with data may be stored as an array of their header and their data
+            reader.beginArray();
+            if (isKeyFrame(reader.nextString())) {
+                decodeFrame(readFrameData(reader));
+            } else {
+                reader.skipValue();
+            }
+            reader.endArray();
+        } else {
+            reader.skipValue();
+        }
+    }
+
+    /**
+     * Decodes a view made of its header, then its data on the following line.
+     */
+    void addView(String view) {
+        if (view == null || !isKeyFrame(view)) {
+            return;
+        }
+        int dataStart = view.indexOf('\n') + 1;
+        String data = null;
+        if (dataStart > 0 && !view.substring(dataStart).trim().isEmpty()) {
+            try {
+                data = readFrameData(new JsonReader(new StringReader(view.substring(dataStart))));
+            } catch (IOException | IllegalStateException e) {
+                // The viewer shows a frame with invalid data as a frame without data
+                data = null;
+            }
+        }
+        decodeFrame(data);
+    }
+
+    private static boolean isKeyFrame(String view) {
+        int headerEnd = 0;
+        while (headerEnd < view.length() && view.charAt(headerEnd) != ' ' && view.charAt(headerEnd) != '\n') {
+            headerEnd++;
+        }
+        return KEY_FRAME.equals(view.substring(0, headerEnd));
+    }
+
+    /**
+     * Snapshots are skipped: they are bare markers for the viewer, with no values.
+     *
+     * @return the frame data of the module, null when absent.
+     */
+    private static String readFrameData(JsonReader reader) throws IOException {
+        String data = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (MODULE_NAME.equals(name) && reader.peek() == JsonToken.STRING) {
+                data = reader.nextString();
+            } else if ("frame".equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                // The first frame comes with the global data
+                String frameData = readFrameData(reader);
+                if (frameData != null) {
+                    data = frameData;
+                }
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return data;
+    }
+
+    private void decodeFrame(String data) {
+        int frame = frameCount++;
+        if (data != null) {
+            for (String chunk : split(data, '\n')) {
+                if (!chunk.isEmpty()) {
+                    decodeCommands(chunk.charAt(0), split(chunk.substring(1), ';'), frame);
+                }
+            }
+        }
+        for (EntityHistory entity : changedEntities) {
+            entity.endFrame(frame);
+        }
+        changedEntities.clear();
+    }
+
+    private void decodeCommands(char command, List<String> commands, int frame) {
+        switch (command) {
+        case CREATE:
+            commands.forEach(args -> create(resolveStrings(split(args, ' '), 2, false), frame));
+            break;
+        case UPDATE:
+            List<List<String>> updates = new ArrayList<>(commands.size());
+            commands.forEach(args -> updates.add(resolveStrings(split(args, ' '), 2, true)));
+            // The changes of the frame apply in the order of their instant, once their strings are registered in the order they were sent
+            updates.sort(Comparator.comparingDouble(args -> parseNumber(args.get(1))));
+            updates.forEach(args -> update(getEntity(args.get(0)), args, 2, true));
+            break;
+        case LOAD_SPRITE_SHEET:
+            break;
+        case DESTROY:
+            commands.forEach(args -> getEntity(args).setDestructionFrame(frame));
+            break;
+        default:
+            throw new IllegalArgumentException("Unrecognised command: " + command);
+        }
+    }
+
+    /**
+     * Replaces the values of the interned properties by the strings they stand for, registering the new ones.
+     *
+     * @return the arguments
+     */
+    private List<String> resolveStrings(List<String> args, int startIdx, boolean withCurves) {
+        int idx = startIdx;
+        while (idx + 1 < args.size()) {
+            ReplayProperty property = ReplayProperty.fromKey(args.get(idx));
+            if (property != null && property.getKind() == ReplayProperty.Kind.INTERNED_STRING) {
+                args.set(idx + 1, resolveString(args.get(idx + 1)));
+            }
+            idx += 2;
+            if (withCurves && idx < args.size() && CURVES.contains(args.get(idx))) {
+                idx++;
+            }
+        }
+        return args;
+    }
+
+    private void create(List<String> args, int frame) {
+        String type = TYPES.getOrDefault(args.get(0), args.get(0));
+        // Entities created from a template come as a batch followed by the properties they share
+        int count = args.size() > 1 ? (int) parseNumber(args.get(1)) : 1;
+        EntityHistory first = null;
+        for (int i = 0; i < count; i++) {
+            EntityHistory entity = new EntityHistory(type, frame);
+            entities.add(entity);
+            if (first == null) {
+                first = entity;
+                update(entity, args, 2, false);
+            } else if (first.hasChanges()) {
+                entity.setCurrentValues(first);
+                changedEntities.add(entity);
+            }
+        }
+    }
+
+    private EntityHistory getEntity(String id) {
+        int index = (int) parseNumber(id) - 1;
+        if (index < 0 || index >= entities.size()) {
+            throw new IllegalArgumentException("Unknown entity: " + id);
+        }
+        return entities.get(index);
+    }
+
+    private void update(EntityHistory entity, List<String> args, int startIdx, boolean withCurves) {
+        boolean changed = entity.hasChanges();
+        int idx = startIdx;
+        while (idx + 1 < args.size()) {
+            String key = args.get(idx);
+            String value = args.get(idx + 1);
+            idx += 2;
+            if (withCurves && idx < args.size() && CURVES.contains(args.get(idx))) {
+                idx++;
+            }
+            setValue(entity, key, value);
+        }
+        if (!changed && entity.hasChanges()) {
+            changedEntities.add(entity);
+        }
+    }
+
+    private void setValue(EntityHistory entity, String key, String value) {
+        switch (key) {
+        case CHILDREN_DELTA:
+            entity.setObject(ReplayProperty.CHILDREN, applyChildrenDelta((int[]) entity.getCurrentValue(ReplayProperty.CHILDREN), value));
+            return;
+        case CELLS_DELTA:
+            entity.setObject(ReplayProperty.CELLS, applyCellsDelta((int[]) entity.getCurrentValue(ReplayProperty.CELLS), value));
+            return;
+        case INSTANCES_DELTA:
+            entity.setObject(ReplayProperty.INSTANCES, applyInstancesDelta((double[]) entity.getCurrentValue(ReplayProperty.INSTANCES), value));
+            return;
+        case TEXT_SPLICE:
+            entity.setObject(ReplayProperty.TEXT, applyTextSplice((String) entity.getCurrentValue(ReplayProperty.TEXT), unescape(value)));
+            return;
+        case POINTS_SPLICE:
+            entity.setObject(ReplayProperty.POINTS, applyPointsSplice((int[]) entity.getCurrentValue(ReplayProperty.POINTS), value));
+            return;
+        default:
+            break;
+        }
+
+        ReplayProperty property = ReplayProperty.fromKey(key);
+        if (property == null) {
+            return;
+        }
+        switch (property.getKind()) {
+        case NUMBER:
+            entity.setNumber(property, parseNumber(value));
+            break;
+        case BOOLEAN:
+            entity.setNumber(property, "1".equals(value) ? 1 : 0);
+            break;
+        case STRING:
+        case INTERNED_STRING:
+            entity.setObject(property, unescape(value));
+            break;
+        case INT_LIST:
+            entity.setObject(property, parseInts(unescape(value)));
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Strings of the interned properties are numbered in the order they are first read, later occurrences may be sent as a '#' and that
+     * number in base 36. A literal starting with '#' is escaped by another '#'.
+     */
+    private String resolveString(String value) {
+        if (!value.isEmpty() && value.charAt(0) == STRING_REFERENCE && (value.length() == 1 || value.charAt(1) != STRING_REFERENCE)) {
+            int id = Integer.parseInt(value.substring(1), Character.MAX_RADIX);
+            if (id >= strings.size()) {
+                throw new IllegalArgumentException("Unknown string reference: " + value);
+            }
+            return strings.get(id);
+        }
+        String literal = !value.isEmpty() && value.charAt(0) == STRING_REFERENCE ? value.substring(1) : value;
+        if (!stringIds.containsKey(literal)) {
+            stringIds.put(literal, strings.size());
+            strings.add(literal);
+        }
+        return literal;
+    }
+
+    private static int[] applyChildrenDelta(int[] children, String value) {
+        // Added ids are positive, removed ids are negative
+        int[] delta = parseInts(value);
+        Set<Integer> removed = new HashSet<>();
+        int addedCount = 0;
+        for (int id : delta) {
+            if (id < 0) {
+                removed.add(-id);
+            } else {
+                addedCount++;
+            }
+        }
+        int[] previous = children == null ? new int[0] : children;
+        int[] result = new int[previous.length + addedCount];
+        int size = 0;
+        for (int id : previous) {
+            if (!removed.contains(id)) {
+                result[size++] = id;
+            }
+        }
+        for (int id : delta) {
+            if (id > 0) {
+                result[size++] = id;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static int[] applyCellsDelta(int[] cells, String value) {
+        // Runs of cells: index of the first cell, number of cells, tile
+        int[] delta = parseInts(value);
+        int length = cells == null ? 0 : cells.length;
+        for (int idx = 0; idx + 2 < delta.length; idx += 3) {
+            length = Math.max(length, delta[idx] + delta[idx + 1]);
+        }
+        int[] result = cells == null ? new int[0] : cells;
+        result = Arrays.copyOf(result, length);
+        if (cells == null || cells.length < length) {
+            Arrays.fill(result, cells == null ? 0 : cells.length, length, EMPTY_CELL);
+        }
+        for (int idx = 0; idx + 2 < delta.length; idx += 3) {
+            Arrays.fill(result, delta[idx], delta[idx] + delta[idx + 1], delta[idx + 2]);
+        }
+        return result;
+    }
+
+    private static double[] applyInstancesDelta(double[] instances, String value) {
+        // Blocks of an instance index, a bitmask of the changed fields and their values
+        double[] delta = parseNumbers(value);
+        double[] result = instances == null ? new double[0] : instances.clone();
+        int idx = 0;
+        while (idx + 1 < delta.length) {
+            int index = (int) delta[idx++];
+            int fields = (int) delta[idx++];
+            if ((index + 1) * INSTANCE_FIELD_COUNT > result.length) {
+                int previousLength = result.length;
+                result = Arrays.copyOf(result, (index + 1) * INSTANCE_FIELD_COUNT);
+                for (int i = previousLength; i < result.length; i++) {
+                    result[i] = INSTANCE_DEFAULTS[i % INSTANCE_FIELD_COUNT];
+                }
+            }
+            for (int field = 0; field < INSTANCE_FIELD_COUNT && idx < delta.length; field++) {
+                if ((fields & (1 << field)) != 0) {
+                    result[index * INSTANCE_FIELD_COUNT + field] = delta[idx++];
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String applyTextSplice(String text, String splice) {
+        // Index of the first changed character, number of removed characters, inserted text
+        String previous = text == null ? "" : text;
+        int first = splice.indexOf(',');
+        int second = splice.indexOf(',', first + 1);
+        int start = (int) parseNumber(splice.substring(0, first));
+        int deleteCount = (int) parseNumber(splice.substring(first + 1, second));
+        return previous.substring(0, start) + splice.substring(second + 1) + previous.substring(start + deleteCount);
+    }
+
+    private static int[] applyPointsSplice(int[] points, String splice) {
+        // Index of the first changed coordinate, number of removed coordinates, inserted coordinates
+        int[] previous = points == null ? new int[0] : points;
+        int[] values = parseInts(splice);
+        int start = values[0];
+        int deleteCount = values[1];
+        int insertCount = values.length - 2;
+        int[] result = new int[previous.length - deleteCount + insertCount];
+        System.arraycopy(previous, 0, result, 0, start);
+        System.arraycopy(values, 2, result, start, insertCount);
+        System.arraycopy(previous, start + deleteCount, result, start + insertCount, previous.length - start - deleteCount);
+        return result;
+    }
+
+    private static double parseNumber(String value) {
+        if (value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static double[] parseNumbers(String value) {
+        if (value.isEmpty()) {
+            return new double[0];
+        }
+        String[] tokens = value.split(",");
+        double[] numbers = new double[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            numbers[i] = parseNumber(tokens[i]);
+        }
+        return numbers;
+    }
+
+    private static int[] parseInts(String value) {
+        double[] numbers = parseNumbers(value);
+        int[] ints = new int[numbers.length];
+        for (int i = 0; i < numbers.length; i++) {
+            ints[i] = (int) numbers[i];
+        }
+        return ints;
+    }
+
+    private static String unescape(String text) {
+        if (text.length() >= 2 && text.charAt(0) == '\'' && text.charAt(text.length() - 1) == '\'') {
+            return text.substring(1, text.length() - 1).replace("\\'", "'");
+        }
+        return text;
+    }
+
+    /**
+     * Splits the text on the given character, except between single quotes, the same way as the viewer.
+     */
+    static List<String> split(String text, char separator) {
+        List<String> result = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean isEscaped = false;
+        boolean inQuotes = false;
+        for (int idx = 0; idx < text.length(); idx++) {
+            char c = text.charAt(idx);
+            if (c == separator) {
+                if (!inQuotes) {
+                    result.add(current.toString());
+                    current.setLength(0);
+                } else {
+                    if (isEscaped) {
+                        current.append('\\');
+                        isEscaped = false;
+                    }
+                    current.append(c);
+                }
+            } else if (c == '\'' && !isEscaped) {
+                inQuotes = !inQuotes;
+                current.append(c);
+            } else if (isEscaped) {
+                current.append('\\').append(c);
+                isEscaped = false;
+            } else if (c == '\\') {
+                isEscaped = true;
+            } else {
+                current.append(c);
+            }
+        }
+        if (isEscaped) {
+            current.append('\\');
+        }
+        result.add(current.toString());
+        return result;
+    }
+}
@@ -0,0 +1,136 @@
+package com.codingame.gameengine.runner.replay;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The properties of the entities of the <code>GraphicEntityModule</code> found in a replay, named as in the viewer.
+ */
+public enum ReplayProperty {
+    X("x", "x", Kind.NUMBER),
+    Y("y", "y", Kind.NUMBER),
+    Z_INDEX("zIndex", "z", Kind.NUMBER),
+    SCALE_X("scaleX", "sx", Kind.NUMBER),
+    SCALE_Y("scaleY", "sy", Kind.NUMBER),
+    SKEW_X("skewX", "kx", Kind.NUMBER),
+    SKEW_Y("skewY", "ky", Kind.NUMBER),
+    ALPHA("alpha", "a", Kind.NUMBER),
+    ROTATION("rotation", "r", Kind.NUMBER),
+    VISIBLE("visible", "v", Kind.BOOLEAN),
+    MASK("mask", "mask", Kind.NUMBER),
+    CHILDREN("children", "ch", Kind.INT_LIST),
+    BLEND_MODE("blendMode", "b", Kind.NUMBER),
+    RADIUS("radius", "R", Kind.NUMBER),
+    X2("x2", "X", Kind.NUMBER),
+    Y2("y2", "Y", Kind.NUMBER),
+    WIDTH("width", "w", Kind.NUMBER),
+    HEIGHT("height", "h", Kind.NUMBER),
+    POINTS("points", "ps", Kind.INT_LIST),
+    FILL_COLOR("fillColor", "f", Kind.NUMBER),
+    FILL_ALPHA("fillAlpha", "F", Kind.NUMBER),
+    LINE_COLOR("lineColor", "c", Kind.NUMBER),
+    LINE_WIDTH("lineWidth", "W", Kind.NUMBER),
+    LINE_ALPHA("lineAlpha", "A", Kind.NUMBER),
+    IMAGE("image", "i", Kind.INTERNED_STRING),
+    BASE_WIDTH("baseWidth", "bw", Kind.NUMBER),
+    BASE_HEIGHT("baseHeight", "bh", Kind.NUMBER),
+    SCALE_MODE("scaleMode", "sm", Kind.INTERNED_STRING),
+    ANCHOR_X("anchorX", "ax", Kind.NUMBER),
+    ANCHOR_Y("anchorY", "ay", Kind.NUMBER),
+    TINT("tint", "t", Kind.NUMBER),
+    IMAGES("images", "I", Kind.INTERNED_STRING),
+    IMAGE_RANGE("imageRange", "IR", Kind.STRING),
+    RESTARTED("restarted", "rs", Kind.NUMBER),
+    PLAYING("playing", "p", Kind.BOOLEAN),
+    LOOP("loop", "l", Kind.BOOLEAN),
+    DURATION("duration", "d", Kind.NUMBER),
+    TEXT("text", "T", Kind.INTERNED_STRING),
+    TEXT_ALIGN("textAlign", "ta", Kind.NUMBER),
+    FONT_SIZE("fontSize", "s", Kind.NUMBER),
+    FONT_FAMILY("fontFamily", "ff", Kind.INTERNED_STRING),
+    FONT_WEIGHT("fontWeight", "fw", Kind.INTERNED_STRING),
+    MAX_WIDTH("maxWidth", "maxWidth", Kind.NUMBER),
+    STROKE_COLOR("strokeColor", "sc", Kind.NUMBER),
+    STROKE_THICKNESS("strokeThickness", "S", Kind.NUMBER),
+    TILE_X("tileX", "tx", Kind.NUMBER),
+    TILE_Y("tileY", "ty", Kind.NUMBER),
+    TILE_SCALE_X("tileScaleX", "tsx", Kind.NUMBER),
+    TILE_SCALE_Y("tileScaleY", "tsy", Kind.NUMBER),
+    TILES("tiles", "tl", Kind.INTERNED_STRING),
+    COLUMNS("columns", "co", Kind.NUMBER),
+    ROWS("rows", "ro", Kind.NUMBER),
+    TILE_WIDTH("tileWidth", "tw", Kind.NUMBER),
+    TILE_HEIGHT("tileHeight", "th", Kind.NUMBER),
+    CELLS("cells", null, Kind.INT_LIST),
+    INSTANCE_COUNT("instanceCount", "ic", Kind.NUMBER),
+    INSTANCES("instances", null, Kind.INSTANCES);
+
+    /**
+     * How the value of a property is decoded and returned.
+     */
+    enum Kind {
+        /** A <code>Double</code>, as sent: angles are in degrees and player colors are negative. */
+        NUMBER,
+        /** A <code>Double</code>, 1 or 0. */
+        BOOLEAN,
+        /** A <code>String</code>. */
+        STRING,
+        /** A <code>String</code> which may be sent as a reference to the string table of the replay. */
+        INTERNED_STRING,
+        /** An <code>int[]</code>. */
+        INT_LIST,
+        /** A <code>double[]</code> of the x, y, rotation in degrees, alpha, tint and image index of each instance, one after the other. */
+        INSTANCES
+    }
+
+    static final ReplayProperty[] VALUES = values();
+    private static final Map<String, ReplayProperty> BY_KEY = new HashMap<>();
+    private static final Map<String, ReplayProperty> BY_NAME = new HashMap<>();
+
+    static {
+        for (ReplayProperty property : VALUES) {
+            if (property.key != null) {
+                BY_KEY.put(property.key, property);
+            }
+            BY_NAME.put(property.name, property);
+        }
+    }
+
+    private final String name;
+    private final String key;
+    private final Kind kind;
+
+    ReplayProperty(String name, String key, Kind kind) {
+        this.name = name;
+        this.key = key;
+        this.kind = kind;
+    }
+
+    /**
+     * @return the name of this property in the viewer.
+     */
+    public String getName() {
+        return name;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the property sent with the given key, or null if there is none.
+     */
+    static ReplayProperty fromKey(String key) {
+        ReplayProperty property = BY_KEY.get(key);
+        return property != null ? property : BY_NAME.get(key);
+    }
+
+    /**
+     * @param name
+     *            the name of a property in the viewer.
+     * @return the property with the given name, or null if there is none.
+     */
+    public static ReplayProperty fromName(String name) {
+        return BY_NAME.get(name);
+    }
+}
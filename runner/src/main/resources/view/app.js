@@ -153,7 +153,9 @@ function PlayerCtrl ($scope, $timeout, $interval, $element) {
 
   function convertFrameFormat (data) {
     // one frame in this method means one output, if in a single game turn two agents act, the two actions are put in separate frames
-    const frames = data.views.map(v => {
+    const frames = data.views.map(view => {
+      // Frames with data are stored as an array of their header and their data
+      const v = Array.isArray(view) ? view[0] + '\n' + JSON.stringify(view[1]) + '\n' : view
       const f = v.split('\n')
       const header = f[0].split(' ')
 
@@ -0,0 +1,44 @@
+package com.codingame.gameengine.runner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.codingame.gameengine.runner.GameRunner.NextPlayerInfo;
+
+class GameRunnerTest {
+
+    @Test
+    void singlePlayerReceivesAllTheLines() {
+        List<NextPlayerInfo> infos = NextPlayerInfo.parse(Arrays.asList("0", "1", "50"));
+
+        assertEquals(
+            Collections.singletonList("a\n\nb\n"),
+            GameRunner.splitNextPlayerInputs(infos, Arrays.asList("a", "", "b"))
+        );
+        assertEquals(
+            Collections.singletonList(""),
+            GameRunner.splitNextPlayerInputs(infos, Collections.emptyList())
+        );
+    }
+
+    @Test
+    void batchInputsAreSplitByLineCount() {
+        List<NextPlayerInfo> infos = NextPlayerInfo.parse(
+            Arrays.asList(
+                "0", "1", "50", "3",
+                "1", "1", "50", "0",
+                "2", "1", "50", "2"
+            )
+        );
+
+        assertEquals(
+            Arrays.asList("a  b\n\nc\n", "", "d\n  e\n"),
+            GameRunner.splitNextPlayerInputs(infos, Arrays.asList("a  b", "", "c", "d", "  e"))
+        );
+    }
+}